@@ -0,0 +1,194 @@
+package benchmark;
+
+import javafx.collections.ObservableList;
+import model.InHouse;
+import model.Inventory;
+import model.InventoryGenerator;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the inventory's hot paths at sizes from 1k to 10M parts
+ *
+ * The inventory is static, so each size runs in its own fork and is filled once per fork. Benchmarks
+ * that change the inventory undo their change outside the measured code, so the inventory keeps its
+ * size for the whole run. Operations read random parts from a fixed, seeded sequence.
+ *
+ * @author Ella Upchurch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+public class InventoryBenchmark {
+    /** random picks cycled through by the benchmarks; a power of two */
+    private static final int PICKS = 1 << 12;
+    /** parts added by one bulk add */
+    private static final int BULK_SIZE = 1_000;
+    private static final int PARTS_PER_PRODUCT = 4;
+    private static final int MAX_PRODUCTS = 100_000;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    /** parts added as Part objects, or loaded from a PartColumns store */
+    @Param({"objects", "columns"})
+    public String partStore;
+
+    private final int[] partIds = new int[PICKS];
+    private final String[] partNames = new String[PICKS];
+    private final String[] searchStrings = new String[PICKS];
+    private final String[] shortSearchStrings = new String[PICKS];
+    private final int[] productIds = new int[PICKS];
+    private final int[] machineIds = new int[PICKS];
+    private final double[] partPrices = new double[PICKS];
+    private int pick;
+
+    /** Fills the inventory with generated parts and with products using random parts */
+    @Setup(Level.Trial)
+    public void fillInventory() {
+        int productCount = Math.max(1, Math.min(MAX_PRODUCTS, size / 10));
+        new InventoryGenerator(482)
+                .setPartCount(size)
+                .setProductCount(productCount)
+                .setFanOut(PARTS_PER_PRODUCT, PARTS_PER_PRODUCT)
+                .setColumnar(partStore.equals("columns"))
+                .generate();
+
+        SplittableRandom random = new SplittableRandom(482);
+        for (int i = 0; i < PICKS; i++) {
+            partIds[i] = 1 + random.nextInt(size);
+            String name = Inventory.lookupPart(partIds[i]).getName();
+            partPrices[i] = Inventory.lookupPart(partIds[i]).getPrice();
+            partNames[i] = name;
+            // alternate ID searches, which find a few parts, with name-word searches, which find many
+            searchStrings[i] = i % 2 == 0 ? String.valueOf(partIds[i]) : name.substring(name.indexOf(' ') + 1);
+            shortSearchStrings[i] = String.valueOf(random.nextInt(10, 100));
+            productIds[i] = 1 + random.nextInt(productCount);
+            machineIds[i] = 100 + random.nextInt(900);
+        }
+    }
+
+    private static Part newPart(int id, int index) {
+        if (index % 3 == 0) {
+            return new Outsourced(id, "Part " + index, 1 + index % 500, 10, 1, 100, "Company " + index % 50);
+        }
+        return new InHouse(id, "Part " + index, 1 + index % 500, 10, 1, 100, index % 1000);
+    }
+
+    private int next() {return pick++ & (PICKS - 1);}
+
+    @Benchmark
+    public Part lookupPartById() {return Inventory.lookupPart(partIds[next()]);}
+
+    @Benchmark
+    public ObservableList<Part> lookupPartByName() {return Inventory.lookupPart(partNames[next()]);}
+
+    @Benchmark
+    public ObservableList<Part> searchParts() {return Inventory.searchParts(searchStrings[next()]);}
+
+    /** Two-character searches have no trigram and check every part */
+    @Benchmark
+    public ObservableList<Part> searchPartsShort() {return Inventory.searchParts(shortSearchStrings[next()]);}
+
+    @Benchmark
+    public boolean updatePart() {
+        Part part = Inventory.lookupPart(partIds[next()]);
+        return Inventory.updatePart(new InHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(),
+                part.getMin(), part.getMax(), 7));
+    }
+
+    /** The machine index is built by the first call, during warmup */
+    @Benchmark
+    public ObservableList<Part> lookupPartsByMachine() {return Inventory.lookupPartsByMachine(machineIds[next()]);}
+
+    /** Parts priced within a cent of a random part's price; the price index is built during warmup */
+    @Benchmark
+    public ObservableList<Part> lookupPartsPricedBetween() {
+        double price = partPrices[next()];
+        return Inventory.lookupPartsPricedBetween(price - 0.01, price + 0.01);
+    }
+
+    @Benchmark
+    public ObservableList<Part> lookupTopPartsByStock() {return Inventory.lookupTopPartsByStock(20);}
+
+    @Benchmark
+    public ObservableList<Product> lookupProductsUsingPart() {
+        return Inventory.lookupProductsUsingPart(partIds[next()]);
+    }
+
+    /** Walks a product's associated parts and the other products using each of them */
+    @Benchmark
+    public int traverseAssociations() {
+        int total = 0;
+        for (Part part : Inventory.lookupProduct(productIds[next()]).getAllAssociatedParts()) {
+            total += part.getStock() + Inventory.lookupProductsUsingPart(part.getId()).size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public void addParts(NewParts newParts) {Inventory.addParts(newParts.parts);}
+
+    @Benchmark
+    public boolean deletePart(DeletedPart deletedPart) {return Inventory.deletePart(deletedPart.part);}
+
+    /** Parts for one bulk add, deleted again after the add */
+    @State(Scope.Thread)
+    public static class NewParts {
+        List<Part> parts = new ArrayList<>(BULK_SIZE);
+
+        @Setup(Level.Invocation)
+        public void createParts() {
+            parts.clear();
+            for (int i = 0; i < BULK_SIZE; i++) {
+                parts.add(newPart(Inventory.getNewPartId(), i));
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void deleteParts() {
+            for (Part part : parts) {
+                Inventory.deletePart(part);
+            }
+        }
+    }
+
+    /** Random stored part for one delete, added back after the delete */
+    @State(Scope.Thread)
+    public static class DeletedPart {
+        private final SplittableRandom random = new SplittableRandom(4820);
+        Part part;
+
+        @Setup(Level.Invocation)
+        public void pickPart(InventoryBenchmark benchmark) {
+            part = Inventory.lookupPart(1 + random.nextInt(benchmark.size));
+        }
+
+        @TearDown(Level.Invocation)
+        public void restorePart() {Inventory.addPart(part);}
+    }
+}
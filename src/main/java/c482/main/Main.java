@@ -1,12 +1,19 @@
 package c482.main;
 
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import controller.ScreenNavigator;
 import model.*;
+import persistence.InventoryStorage;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * The java docs are located in a folder labeled "javadocs" this is submitted separately from the zip file
@@ -28,25 +35,68 @@ import java.io.IOException;
  */
 
 public class Main extends Application {
+    /** saved inventory; null if it couldn't be opened */
+    private static InventoryStorage storage;
 
     /** The start method.
-     Creates the FXML stage and loads initial screen.
+     Loads every screen once and shows the Main Screen.
      @param stage
      */
     @Override
     public void start(Stage stage) throws Exception {
-        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("MainScreen.fxml"));
-        Scene scene = new Scene(fxmlLoader.load(), 1005, 400);
+        ScreenNavigator.preload();
+        Scene scene = new Scene(ScreenNavigator.show(ScreenNavigator.Screen.MAIN));
         stage.setTitle("");
         stage.setScene(scene);
         stage.show();
+
+        if (storage != null) {
+            Timeline checkpoints = new Timeline(new KeyFrame(Duration.minutes(1), e -> storage.checkpointIfNeeded()));
+            checkpoints.setCycleCount(Animation.INDEFINITE);
+            checkpoints.play();
+        }
     }
 /**The main method.
- Creates sample data and launches application.
+ Loads the saved inventory snapshot & journal, creating sample or generated data on first run, and launches application.
  @param args
  */
     public static void main(String[] args) {
 
+        boolean firstRun = true;
+        try {
+            storage = InventoryStorage.open(Paths.get(System.getProperty("inventory.data", "data")));
+            firstRun = storage.isNew();
+        }
+        catch (IOException e) {
+            System.err.println("Could not open saved inventory, changes will not be saved: " + e.getMessage());
+        }
+
+        Integer generatedParts = Integer.getInteger("inventory.generate.parts");
+        if (firstRun && generatedParts != null) {
+            // large reproducible dataset for stress runs, e.g. -Dinventory.generate.parts=1000000
+            new InventoryGenerator(Long.getLong("inventory.generate.seed", 482))
+                    .setPartCount(generatedParts)
+                    .setProductCount(Integer.getInteger("inventory.generate.products", generatedParts / 10))
+                    .setColumnar(true)
+                    .generate();
+            // parts loaded from columns are not journaled, so save them in a snapshot right away
+            if (storage != null) {
+                storage.checkpoint();
+            }
+        }
+        else if (firstRun) {
+            createSampleData();
+        }
+        if (storage != null) {
+            storage.checkpointIfNeeded();
+        }
+
+        launch(args);
+    }
+
+    /** Creates sample parts & products. */
+    private static void createSampleData() {
+
         //sample parts
         int partId = Inventory.getNewPartId();
         InHouse brakes = new InHouse(partId, "Brakes", 15.00, 10, 1, 35, 101);
@@ -57,9 +107,7 @@ public class Main extends Application {
         partId = Inventory.getNewPartId();
         Outsourced seat = new Outsourced(partId, "Seat", 15.00, 10, 1, 65, "The Seat Company");
 
-        Inventory.addPart(brakes);
-        Inventory.addPart(wheel);
-        Inventory.addPart(seat);
+        Inventory.addParts(List.of(brakes, wheel, seat));
 
         //sample product
         int productId = Inventory.getNewProductId();
@@ -68,13 +116,10 @@ public class Main extends Application {
         productId = Inventory.getNewProductId();
         Product mBike = new Product(productId, "Mountain Bike", 299.99, 5, 1, 300);
 
-        Inventory.addProduct(tricycle);
-        Inventory.addProduct(mBike);
+        Inventory.addProducts(List.of(tricycle, mBike));
 
         tricycle.addAssociatedPart(brakes);
         tricycle.addAssociatedPart(wheel);
         tricycle.addAssociatedPart(seat);
-
-        launch(args);
     }
-}
\ No newline at end of file
+}
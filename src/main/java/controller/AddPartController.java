@@ -2,29 +2,21 @@ package controller;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
 import model.InHouse;
 import model.Inventory;
 import model.Outsourced;
 import model.Part;
 
 import java.io.IOException;
-import java.net.URL;
 import java.util.Optional;
-import java.util.ResourceBundle;
 
 /**
  * Controller class for the Add Part Screen
  *
  * @author Ella Upchurch
  */
-public class AddPartController implements Initializable {
+public class AddPartController implements ScreenController {
 
     @FXML
     private RadioButton inHouseRadio;
@@ -147,12 +139,8 @@ public class AddPartController implements Initializable {
     /**
      * Returns to Main Screen.
      */
-    private void returnToMain(ActionEvent actionEvent) throws IOException {
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/MainScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+    private void returnToMain(ActionEvent actionEvent) {
+        ScreenNavigator.show(ScreenNavigator.Screen.MAIN, actionEvent);
     }
 
     /**
@@ -225,14 +213,19 @@ public class AddPartController implements Initializable {
     }
 
     /**
-     * Initializes controller and sets In-House Button to true by default
-     * @param url
-     * @param resourceBundle
+     * Clears the fields and sets In-House Button to true by default
      */
     @Override
-    public void initialize(URL url, ResourceBundle resourceBundle) {
-
+    public void onShow() {
+
+        partNameField.clear();
+        partStockField.clear();
+        partPriceField.clear();
+        partMaxField.clear();
+        partMinField.clear();
+        machineOrCompanyId.clear();
         inHouseRadio.setSelected(true);
+        partManufacturerId.setText("Machine ID");
     }
 
 }
@@ -1,17 +1,10 @@
 package controller;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
+import model.BomCosts;
 import model.Inventory;
 import model.Part;
 import model.Product;
@@ -26,9 +19,9 @@ import java.util.ResourceBundle;
  *
  * @author Ella Upchurch
  */
-public class AddProductController implements Initializable {
-    /** creates an observable list of associated parts */
-    private ObservableList<Part> assocParts = FXCollections.observableArrayList();
+public class AddProductController implements Initializable, ScreenController {
+    /** holds the associated parts & their quantities until the product is saved */
+    private Product draft = newDraft();
 
     @FXML
     private TableView<Part>addPartTable;
@@ -43,6 +36,8 @@ public class AddProductController implements Initializable {
     @FXML
     private TextField productPriceField;
     @FXML
+    private Label partsCostLabel;
+    @FXML
     private TextField productMaxField;
     @FXML
     private TextField productMinField;
@@ -62,36 +57,23 @@ public class AddProductController implements Initializable {
     private TableColumn<Part, Integer> assocPartStockCol;
     @FXML
     private TableColumn<Part, Double> assocPartPriceCol;
+    @FXML
+    private TableColumn<Part, Integer> assocPartQuantityCol;
+
+    private LiveSearch<Part> partSearch;
 
     /**
      * Searches for parts based on values entered into search field & refreshes Add Part Table showing only search results
      *
      * Parts can be searched by id and name (regardless of capitalization)
      * When the search field is left blank, the table shows all products
+     * Searches also run in the background as the user types; pressing Enter reports when nothing is found
      *
      * @param actionEvent part search field used
      */
     @FXML
     void onPartSearch(ActionEvent actionEvent) {
-        ObservableList<Part> allParts = Inventory.getAllParts();
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        String searchString = partSearchField.getText().toLowerCase(); // Convert search string to lowercase
-
-        for (Part part : allParts) {
-            // Convert attributes to lowercase for case-insensitive comparison
-            String partIdLower = String.valueOf(part.getId()).toLowerCase();
-            String partNameLower = part.getName().toLowerCase();
-
-            if (partIdLower.contains(searchString) || partNameLower.contains(searchString)) {
-                partsFound.add(part);
-            }
-        }
-
-        addPartTable.setItems(partsFound);
-
-        if (partsFound.isEmpty()) {
-            displayAlert(6);
-        }
+        partSearch.searchNow();
     }
 
     /**
@@ -108,8 +90,10 @@ public class AddProductController implements Initializable {
             displayAlert(2);
         }
         else {
-            assocParts.add(selectedPart);
-            assocPartTable.setItems(assocParts);
+            draft.addAssociatedPart(selectedPart);
+            assocPartTable.setItems(draft.getAllAssociatedParts());
+            assocPartTable.refresh();
+            showPartsCost(BomCosts.getPartsCost(draft));
         }
 
     }
@@ -141,9 +125,7 @@ public class AddProductController implements Initializable {
 
                     Product newProduct = new Product(id, name, price, stock, min, max);
 
-                    for (Part part : assocParts) {
-                        newProduct.addAssociatedPart(part);
-                    }
+                    draft.forEachAssociatedPart(newProduct::setAssociatedPartQuantity);
 
                     newProduct.setId(Inventory.getNewProductId());
                     Inventory.addProduct(newProduct);
@@ -181,8 +163,10 @@ public class AddProductController implements Initializable {
 
             if (result.isPresent() && result.get() == ButtonType.OK){
 
-                assocParts.remove(selectedPart);
+                draft.deleteAssociatedPart(selectedPart);
+                assocPartTable.setItems(draft.getAllAssociatedParts());
                 assocPartTable.refresh();
+                showPartsCost(BomCosts.getPartsCost(draft));
             }
         }
     }
@@ -208,12 +192,8 @@ public class AddProductController implements Initializable {
     /**
      * Returns to Main Screen
      */
-    private void returnToMain(ActionEvent actionEvent) throws IOException {
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/MainScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+    private void returnToMain(ActionEvent actionEvent) {
+        ScreenNavigator.show(ScreenNavigator.Screen.MAIN, actionEvent);
     }
 
     /**
@@ -291,6 +271,38 @@ public class AddProductController implements Initializable {
         }
     }
 
+    /**
+     * Clears the fields & associated parts and shows all parts again
+     */
+    @Override
+    public void onShow() {
+
+        productNameField.clear();
+        productStockField.clear();
+        productPriceField.clear();
+        productMaxField.clear();
+        productMinField.clear();
+
+        draft = newDraft();
+        assocPartTable.setItems(draft.getAllAssociatedParts());
+        showPartsCost(0);
+        partSearch.reset();
+        addPartTable.getSelectionModel().clearSelection();
+    }
+
+    /** Creates an empty product to collect associated parts in
+     */
+    private static Product newDraft() {
+        return new Product(0, "", 0, 0, 0, 0);
+    }
+
+    /** Shows the summed price of the associated parts next to the product price
+     * @param cost parts cost
+     */
+    private void showPartsCost(double cost) {
+        partsCostLabel.setText(String.format("Parts cost: %.2f", cost));
+    }
+
     /**
      * Initializes controller; populates Add Part Table with data from Main Screen Part Table.
      * @param resourceBundle
@@ -299,16 +311,19 @@ public class AddProductController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
-        addPartTable.setItems(Inventory.getAllParts());
+        addPartTable.setItems(Inventory.getPartsView());
+        partSearch = new LiveSearch<>(partSearchField, addPartTable, Inventory.getPartsView(),
+                Inventory::searchPartsInBackground, Inventory::lookupPart, () -> displayAlert(6));
 
-        addPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        addPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        addPartStockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        addPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        CellValues.bind(addPartIdCol, Part::getId);
+        CellValues.bind(addPartNameCol, Part::getName);
+        CellValues.bind(addPartStockCol, Part::getStock);
+        CellValues.bind(addPartPriceCol, Part::getPrice);
 
-        assocPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        assocPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        assocPartStockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        assocPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        CellValues.bind(assocPartIdCol, Part::getId);
+        CellValues.bind(assocPartNameCol, Part::getName);
+        CellValues.bind(assocPartStockCol, Part::getStock);
+        CellValues.bind(assocPartPriceCol, Part::getPrice);
+        CellValues.bind(assocPartQuantityCol, part -> draft.getAssociatedPartQuantity(part.getId()));
     }
 }
@@ -0,0 +1,78 @@
+package controller;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * This class binds TableView columns to getters of the row item
+ *
+ * Replaces PropertyValueFactory, which looks getters up by reflection and wraps the value in a new
+ * property each time a cell is drawn. Here each column reads its value through a method reference,
+ * and keeps one read-only observable value per row item, held weakly, which reads the getter when the
+ * cell asks for the value.
+ *
+ * @author Ella Upchurch
+ */
+final class CellValues {
+
+    private CellValues() {}
+
+    /**
+     * Shows the value of a getter in a column
+     *
+     * @param column column to fill
+     * @param getter gets the column's value from a row item, e.g. Part::getName
+     * @param <S> type of row item
+     * @param <V> type of value shown
+     */
+    static <S, V> void bind(TableColumn<S, V> column, Function<S, V> getter) {
+        Map<S, ObservableValue<V>> cellValues = new WeakHashMap<>();
+        column.setCellValueFactory(cell -> {
+            S item = cell.getValue();
+            if (item == null) {
+                return null;
+            }
+            return cellValues.computeIfAbsent(item, key -> new CellValue<>(item, getter));
+        });
+    }
+
+    /**
+     * Read-only value of one cell; items don't notify changes, so listeners are never called,
+     * matching PropertyValueFactory for plain getters
+     */
+    private static final class CellValue<S, V> implements ObservableValue<V> {
+        /** held weakly, as a weak map's value must not keep its key alive */
+        private final WeakReference<S> item;
+        private final Function<S, V> getter;
+
+        CellValue(S item, Function<S, V> getter) {
+            this.item = new WeakReference<>(item);
+            this.getter = getter;
+        }
+
+        @Override
+        public V getValue() {
+            S value = item.get();
+            return value == null ? null : getter.apply(value);
+        }
+
+        @Override
+        public void addListener(ChangeListener<? super V> listener) {}
+
+        @Override
+        public void removeListener(ChangeListener<? super V> listener) {}
+
+        @Override
+        public void addListener(InvalidationListener listener) {}
+
+        @Override
+        public void removeListener(InvalidationListener listener) {}
+    }
+}
@@ -0,0 +1,146 @@
+package controller;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.util.Duration;
+import model.IntList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * This class runs a search field's searches on the inventory's search thread
+ *
+ * Searches start once typing pauses, or right away when Enter is pressed. Starting a search cancels
+ * the one in flight. Found IDs are collected on the search thread and added to the table in batches
+ * through Platform.runLater, so the first results show while the search is still running and the
+ * window never waits for a search to finish.
+ *
+ * @param <T> type of item found
+ *
+ * @author Ella Upchurch
+ */
+class LiveSearch<T> {
+    private static final Duration TYPING_PAUSE = Duration.millis(200);
+    /** found IDs passed to the JavaFX thread at a time */
+    private static final int BATCH_SIZE = 500;
+
+    private final TextField searchField;
+    private final TableView<T> table;
+    private final ObservableList<T> allItems;
+    private final Searcher searcher;
+    private final IntFunction<T> lookup;
+    private final Runnable notFound;
+    private final PauseTransition typingPause = new PauseTransition(TYPING_PAUSE);
+    private Search current;
+
+    /**
+     * Creates a live search and starts searching as the user types
+     *
+     * @param searchField field holding the search text
+     * @param table table showing the results
+     * @param allItems items shown while the search text is blank
+     * @param searcher runs a search on the search thread, e.g. Inventory::searchPartsInBackground
+     * @param lookup gets a found item by ID on the JavaFX thread, or null if it is gone
+     * @param notFound shows that a search started with Enter found nothing
+     */
+    LiveSearch(TextField searchField, TableView<T> table, ObservableList<T> allItems,
+               Searcher searcher, IntFunction<T> lookup, Runnable notFound) {
+        this.searchField = searchField;
+        this.table = table;
+        this.allItems = allItems;
+        this.searcher = searcher;
+        this.lookup = lookup;
+        this.notFound = notFound;
+        typingPause.setOnFinished(e -> start(false));
+        searchField.textProperty().addListener((observable, oldText, newText) -> typingPause.playFromStart());
+    }
+
+    /**
+     * Searches right away, e.g. when Enter is pressed, showing notFound if nothing is found
+     */
+    void searchNow() {
+        typingPause.stop();
+        start(true);
+    }
+
+    /**
+     * Clears the search field and shows all items again, cancelling any search in flight
+     */
+    void reset() {
+        searchField.clear();
+        typingPause.stop();
+        start(false);
+    }
+
+    private void start(boolean reportNotFound) {
+        if (current != null) {
+            current.cancelled = true;
+        }
+        String searchString = searchField.getText();
+        if (searchString.isEmpty()) {
+            current = null;
+            table.setItems(allItems);
+            return;
+        }
+        current = new Search(reportNotFound);
+        table.setItems(current.results);
+        searcher.search(searchString, current::isCancelled, current::found, current::finished);
+    }
+
+    /** One search; its results are only added while it is the current search */
+    private class Search {
+        private final ObservableList<T> results = FXCollections.observableArrayList();
+        private final boolean reportNotFound;
+        private volatile boolean cancelled;
+        /** IDs found but not yet passed on, used only by the search thread */
+        private final IntList pending = new IntList(BATCH_SIZE);
+
+        Search(boolean reportNotFound) {this.reportNotFound = reportNotFound;}
+
+        boolean isCancelled() {return cancelled;}
+
+        void found(int id) {
+            pending.add(id);
+            if (pending.size() >= BATCH_SIZE) {
+                publish(false);
+            }
+        }
+
+        void finished() {publish(true);}
+
+        private void publish(boolean last) {
+            int[] ids = pending.toArray();
+            pending.clear();
+            Platform.runLater(() -> {
+                if (cancelled) {
+                    return;
+                }
+                List<T> items = new ArrayList<>(ids.length);
+                for (int id : ids) {
+                    T item = lookup.apply(id);
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+                results.addAll(items);
+                if (last && reportNotFound && results.isEmpty()) {
+                    notFound.run();
+                }
+            });
+        }
+    }
+
+    /** Runs a search on the search thread, such as Inventory::searchPartsInBackground */
+    @FunctionalInterface
+    interface Searcher {
+        void search(String searchString, BooleanSupplier cancelled, IntConsumer found, Runnable done);
+    }
+}
@@ -1,20 +1,17 @@
 package controller;
 
-import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
+import model.BomCosts;
+import model.BuildableQuantities;
 import model.Inventory;
 import model.Part;
 import model.Product;
+import model.ReorderAlert;
+import model.ReorderAlerts;
 
 import java.io.IOException;
 import java.net.URL;
@@ -28,7 +25,7 @@ import java.util.ResourceBundle;
  * @author Ella Upchurch
  */
 
-public class MainScreenController implements Initializable {
+public class MainScreenController implements Initializable, ScreenController {
 
     private static Part partToModify;
     private static Product productToModify;
@@ -57,6 +54,29 @@ public class MainScreenController implements Initializable {
     private TableColumn<Product, Integer> productInventoryCol;
     @FXML
     private TableColumn<Product, Double> productPriceCol;
+    @FXML
+    private TableColumn<Product, Double> productCostCol;
+    @FXML
+    private TableColumn<Product, Integer> productBuildableCol;
+    @FXML
+    private TableView<ReorderAlert> alertsTable;
+    @FXML
+    private TableColumn<ReorderAlert, String> alertTypeCol;
+    @FXML
+    private TableColumn<ReorderAlert, Integer> alertIDCol;
+    @FXML
+    private TableColumn<ReorderAlert, String> alertNameCol;
+    @FXML
+    private TableColumn<ReorderAlert, Integer> alertInventoryCol;
+    @FXML
+    private TableColumn<ReorderAlert, Integer> alertMinCol;
+    @FXML
+    private TableColumn<ReorderAlert, Integer> alertMaxCol;
+    @FXML
+    private TableColumn<ReorderAlert, ReorderAlert.Level> alertLevelCol;
+
+    private LiveSearch<Part> partSearch;
+    private LiveSearch<Product> productSearch;
 
     /**
      * Gets part to modify
@@ -87,37 +107,20 @@ public class MainScreenController implements Initializable {
      *
      * Parts can be searched by id and name (regardless of capitalization)
      * When the search field is left blank, the table shows all parts
+     * Searches also run in the background as the user types; pressing Enter reports when nothing is found
      *
      * @param actionEvent part search field used
      */
     @FXML
     void onPartSearch(ActionEvent actionEvent) {
-        ObservableList<Part> allParts = Inventory.getAllParts();
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        String searchString = partSearchField.getText().toLowerCase(); // Convert search string to lowercase
-
-        for (Part part : allParts) {
-            // Convert attributes to lowercase for case-insensitive comparison
-            String partIdLower = String.valueOf(part.getId()).toLowerCase();
-            String partNameLower = part.getName().toLowerCase();
-
-            if (partIdLower.contains(searchString) || partNameLower.contains(searchString)) {
-                partsFound.add(part);
-            }
-        }
-
-        partsTable.setItems(partsFound);
-
-        if (partsFound.isEmpty()) {
-            displayAlert(3);
-        }
+        partSearch.searchNow();
     }
 
     /**
      * Deletes selected part from Part Table
      *
      * Displays an error message when no product is selected.
-     * Displays confirmation dialog before deleting product
+     * Displays confirmation dialog before deleting product, noting how many products use the part
      *
      * @param actionEvent delete part button click
      */
@@ -133,6 +136,11 @@ public class MainScreenController implements Initializable {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alert.setTitle("Alert");
             alert.setContentText("Are you sure you want to delete the selected part? This action cannot be undone.");
+
+            ObservableList<Product> productsUsingPart = Inventory.lookupProductsUsingPart(selectedPart.getId());
+            if (!productsUsingPart.isEmpty()) {
+                alert.setHeaderText("This part is associated with " + productsUsingPart.size() + " product(s)");
+            }
             Optional<ButtonType> result = alert.showAndWait();
 
             if (result.isPresent() && result.get() == ButtonType.OK){
@@ -156,11 +164,7 @@ public class MainScreenController implements Initializable {
             displayAlert(1);
         }
         else {
-            Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/ModifyPartScreen.fxml"));
-            Scene scene = new Scene(parent);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.show();
+            ScreenNavigator.show(ScreenNavigator.Screen.MODIFY_PART, actionEvent);
         }
 
     }
@@ -173,11 +177,7 @@ public class MainScreenController implements Initializable {
     @FXML
     void onAddPartButtonClick(ActionEvent actionEvent) throws IOException {
 
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/AddPartScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+        ScreenNavigator.show(ScreenNavigator.Screen.ADD_PART, actionEvent);
     }
 
     /**
@@ -185,30 +185,13 @@ public class MainScreenController implements Initializable {
      *
      * Products can be searched by id and name (regardless of capitalization)
      * When the search field is left blank, the table shows all products
+     * Searches also run in the background as the user types; pressing Enter reports when nothing is found
      *
      * @param actionEvent product search field used
      */
     @FXML
     void onProductSearch(ActionEvent actionEvent) {
-        ObservableList<Product> allProducts = Inventory.getAllProducts();
-        ObservableList<Product> productsFound = FXCollections.observableArrayList();
-        String searchString = productSearchField.getText().toLowerCase(); // Convert search string to lowercase
-
-        for (Product product : allProducts) {
-            // Convert attributes to lowercase for case-insensitive comparison
-            String partIdLower = String.valueOf(product.getId()).toLowerCase();
-            String partNameLower = product.getName().toLowerCase();
-
-            if (partIdLower.contains(searchString) || partNameLower.contains(searchString)) {
-                productsFound.add(product);
-            }
-        }
-
-        productsTable.setItems(productsFound);
-
-        if (productsFound.isEmpty()) {
-            displayAlert(3);
-        }
+        productSearch.searchNow();
     }
     /**
      * Deletes selected product in the product table.
@@ -236,9 +219,7 @@ public class MainScreenController implements Initializable {
 
             if (result.isPresent() && result.get() == ButtonType.OK) {
 
-                ObservableList<Part> assocParts = selectedProduct.getAllAssociatedParts();
-
-                if (assocParts.size() >= 1) {
+                if (selectedProduct.getAssociatedPartCount() >= 1) {
                     displayAlert(5);
                 }
                 else {
@@ -262,11 +243,7 @@ public class MainScreenController implements Initializable {
         if (productToModify == null) {
             displayAlert(1);
         } else {
-            Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/ModifyProductScreen.fxml"));
-            Scene scene = new Scene(parent);
-            Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-            stage.setScene(scene);
-            stage.show();
+            ScreenNavigator.show(ScreenNavigator.Screen.MODIFY_PRODUCT, actionEvent);
         }
     }
 
@@ -278,11 +255,7 @@ public class MainScreenController implements Initializable {
     @FXML
     void onAddProductButtonClick(ActionEvent actionEvent) throws IOException{
 
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/AddProductScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+        ScreenNavigator.show(ScreenNavigator.Screen.ADD_PRODUCT, actionEvent);
     }
 
     /**
@@ -321,6 +294,19 @@ public class MainScreenController implements Initializable {
         }
     }
 
+    /**
+     * Resets the screen when returning to it; clears the search fields & selections and redraws the tables
+     */
+    @Override
+    public void onShow() {
+        partSearch.reset();
+        productSearch.reset();
+        partsTable.getSelectionModel().clearSelection();
+        productsTable.getSelectionModel().clearSelection();
+        partsTable.refresh();
+        productsTable.refresh();
+    }
+
     /**
      * Initializes controller; populates Part and Product Table data
      *
@@ -331,19 +317,39 @@ public class MainScreenController implements Initializable {
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
 
-        partsTable.setItems(Inventory.getAllParts());
+        partsTable.setItems(Inventory.getPartsView());
+
+        CellValues.bind(partIDCol, Part::getId);
+        CellValues.bind(partNameCol, Part::getName);
+        CellValues.bind(partInventoryCol, Part::getStock);
+        CellValues.bind(partPriceCol, Part::getPrice);
+
+        productsTable.setItems(Inventory.getProductsView());
+
+        CellValues.bind(productIDCol, Product::getId);
+        CellValues.bind(productNameCol, Product::getName);
+        CellValues.bind(productInventoryCol, Product::getStock);
+        CellValues.bind(productPriceCol, Product::getPrice);
+        CellValues.bind(productCostCol, BomCosts::getPartsCost);
+        CellValues.bind(productBuildableCol, BuildableQuantities::getBuildable);
 
-        partIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        partNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        partInventoryCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        partPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        // the alerts panel follows the inventory as it changes
+        ReorderAlerts.start();
+        alertsTable.setItems(ReorderAlerts.getAlerts());
+        alertsTable.setPlaceholder(new Label("All parts & products are within their min & max"));
 
-        productsTable.setItems(Inventory.getAllProducts());
+        CellValues.bind(alertTypeCol, ReorderAlert::getItemType);
+        CellValues.bind(alertIDCol, ReorderAlert::getId);
+        CellValues.bind(alertNameCol, ReorderAlert::getName);
+        CellValues.bind(alertInventoryCol, ReorderAlert::getStock);
+        CellValues.bind(alertMinCol, ReorderAlert::getMin);
+        CellValues.bind(alertMaxCol, ReorderAlert::getMax);
+        CellValues.bind(alertLevelCol, ReorderAlert::getLevel);
 
-        productIDCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        productNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        productInventoryCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        productPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        partSearch = new LiveSearch<>(partSearchField, partsTable, Inventory.getPartsView(),
+                Inventory::searchPartsInBackground, Inventory::lookupPart, () -> displayAlert(3));
+        productSearch = new LiveSearch<>(productSearchField, productsTable, Inventory.getProductsView(),
+                Inventory::searchProductsInBackground, Inventory::lookupProduct, () -> displayAlert(3));
 
     }
 }
\ No newline at end of file
@@ -2,31 +2,26 @@ package controller;
 
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
 import model.InHouse;
 import model.Inventory;
+import model.InventoryTransaction;
 import model.Outsourced;
 import model.Part;
 
 import java.io.IOException;
-import java.net.URL;
 import java.util.Optional;
-import java.util.ResourceBundle;
 
 /**
  * Controller class for the Modify Part Screen
  *
  * @author Ella Upchurch
  */
-public class ModifyPartController implements Initializable {
+public class ModifyPartController implements ScreenController {
 
     private Part selectedPart;
+    /** version of the part as shown, so saving fails instead of overwriting changes made elsewhere meanwhile */
+    private long selectedPartVersion;
     @FXML
     private RadioButton inHouseRadio;
     @FXML
@@ -53,7 +48,9 @@ public class ModifyPartController implements Initializable {
     /**
      * Replaces part in inventory and returns to Main Screen
      *
-     * Error messages are displayed when invalid inputs are detected, preventing empty or invalid values
+     * Error messages are displayed when invalid inputs are detected, preventing empty or invalid values.
+     * If the part was changed elsewhere since the screen was shown, nothing is saved and the part's
+     * current values are shown instead.
      *
      * @param actionEvent save button click
      */
@@ -69,7 +66,7 @@ public class ModifyPartController implements Initializable {
             int max = Integer.parseInt(partMaxField.getText());
             int machineId;
             String companyName;
-            boolean addPartSuccessful = false;
+            Part newPart = null;
 
             if (name.isEmpty()) {
                 displayAlert(5);
@@ -79,9 +76,7 @@ public class ModifyPartController implements Initializable {
                     if (inHouseRadio.isSelected()) {
                         try {
                             machineId = Integer.parseInt(machineOrCompanyId.getText());
-                            InHouse newInHousePart = new InHouse(id, name, price, stock, min, max, machineId);
-                            Inventory.addPart(newInHousePart);
-                            addPartSuccessful = true;
+                            newPart = new InHouse(id, name, price, stock, min, max, machineId);
                         } catch (Exception e) {
                             displayAlert(2);
                         }
@@ -89,13 +84,21 @@ public class ModifyPartController implements Initializable {
 
                     if (outsourcedRadio.isSelected()) {
                         companyName = machineOrCompanyId.getText();
-                        Outsourced newOutsourcedPart = new Outsourced(id, name, price, stock, min, max, companyName);
-                        Inventory.addPart(newOutsourcedPart);
-                        addPartSuccessful = true;
+                        newPart = new Outsourced(id, name, price, stock, min, max, companyName);
                     }
-                    if (addPartSuccessful) {
-                        Inventory.deletePart(selectedPart);
-                        returnToMain(actionEvent);
+                    if (newPart != null) {
+                        if (savePart(newPart)) {
+                            returnToMain(actionEvent);
+                        }
+                        else {
+                            displayAlert(6);
+                            if (Inventory.lookupPart(id) != null) {
+                                showPart(id);
+                            }
+                            else {
+                                returnToMain(actionEvent);
+                            }
+                        }
                     }
                 }
             }
@@ -146,13 +149,24 @@ public class ModifyPartController implements Initializable {
     /**
      * Returns to Main Screen
      */
-    private void returnToMain(ActionEvent actionEvent) throws IOException {
+    private void returnToMain(ActionEvent actionEvent) {
+        ScreenNavigator.show(ScreenNavigator.Screen.MAIN, actionEvent);
+    }
 
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/MainScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+    /**
+     * Replaces the part in a transaction, unless it was changed or deleted since it was shown
+     */
+    private boolean savePart(Part newPart) {
+
+        InventoryTransaction transaction = Inventory.beginTransaction();
+        try {
+            // the transaction checks for changes from its start on; the version covers the time before
+            return Inventory.getPartVersion(newPart.getId()) == selectedPartVersion
+                    && transaction.updatePart(newPart) && Inventory.commit(transaction);
+        }
+        finally {
+            transaction.rollback();
+        }
     }
 
     /**
@@ -221,18 +235,31 @@ public class ModifyPartController implements Initializable {
                 alert.setContentText("Name Field cannot be empty.");
                 alert.showAndWait();
                 break;
+            case 6:
+                alert.setTitle("Error");
+                alert.setHeaderText("Part Was Changed");
+                alert.setContentText("The part was changed elsewhere while it was being modified. Its current values are shown; enter the changes again.");
+                alert.showAndWait();
+                break;
         }
     }
 
     /**
-     *Initializes controller and populates text fields with values of selected part
-     @param url
-     @param resourceBundle
+     *Populates text fields with values of selected part
      */
     @Override
-    public void initialize(URL url, ResourceBundle resourceBundle) {
+    public void onShow() {
+
+        showPart(MainScreenController.getPartToModify().getId());
+    }
+
+    /**
+     *Records the part's version and populates text fields with the part
+     */
+    private void showPart(int partId) {
 
-        selectedPart = MainScreenController.getPartToModify();
+        selectedPartVersion = Inventory.getPartVersion(partId);
+        selectedPart = Inventory.lookupPart(partId);
 
         if (selectedPart instanceof InHouse) {
             inHouseRadio.setSelected(true);
@@ -1,17 +1,10 @@
 package controller;
 
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
+import model.BomCosts;
 import model.Inventory;
 import model.Part;
 import model.Product;
@@ -26,12 +19,12 @@ import java.util.ResourceBundle;
  *
  * @author Ella Upchurch
  */
-public class ModifyProductController implements Initializable {
+public class ModifyProductController implements Initializable, ScreenController {
 
     private Product selectedProduct;
 
-    /** creates an observable list of associated parts */
-    private ObservableList<Part> assocParts = FXCollections.observableArrayList();
+    /** copy of the selected product holding the edited associated parts & quantities until saved */
+    private Product draft;
     @FXML
     private TableView<Part> addPartTable;
     @FXML
@@ -47,6 +40,8 @@ public class ModifyProductController implements Initializable {
     @FXML
     private TextField productPriceField;
     @FXML
+    private Label partsCostLabel;
+    @FXML
     private TextField productMaxField;
     @FXML
     private TextField productMinField;
@@ -66,6 +61,10 @@ public class ModifyProductController implements Initializable {
     private TableColumn<Part, Integer> assocPartStockCol;
     @FXML
     private TableColumn<Part, Double> assocPartPriceCol;
+    @FXML
+    private TableColumn<Part, Integer> assocPartQuantityCol;
+
+    private LiveSearch<Part> partSearch;
 
     /**
      * Associates selected part with the `Product & adds it to product's associated parts table.
@@ -80,8 +79,10 @@ public class ModifyProductController implements Initializable {
             displayAlert(2);
         }
         else {
-            assocParts.add(selectedPart);
-            assocPartTable.setItems(assocParts);
+            draft.addAssociatedPart(selectedPart);
+            assocPartTable.setItems(draft.getAllAssociatedParts());
+            assocPartTable.refresh();
+            showPartsCost(BomCosts.getPartsCost(draft));
         }
 
     }
@@ -110,15 +111,19 @@ public class ModifyProductController implements Initializable {
 
                     Product newProduct = new Product(id, name, price, stock, min, max);
 
-                    for (Part part : assocParts) {
-                        newProduct.addAssociatedPart(part);
-                    }
+                    draft.forEachAssociatedPart(newProduct::setAssociatedPartQuantity);
+                    draft.forEachComponent(newProduct::setComponentQuantity);
 
-                    Inventory.addProduct(newProduct);
-                    addProductSuccessful = true;
+                    if (Inventory.updateProduct(newProduct)) {
+                        addProductSuccessful = true;
+                    }
+                    else {
+                        // the product was deleted elsewhere while it was being modified
+                        displayAlert(7);
+                        returnToMain(actionEvent);
+                    }
                 }
                 if (addProductSuccessful) {
-                    Inventory.deleteProduct(selectedProduct);
                     returnToMain(actionEvent);
                 }
             }
@@ -165,46 +170,27 @@ public class ModifyProductController implements Initializable {
 
             if (result.isPresent() && result.get() == ButtonType.OK){
 
-                assocParts.remove(selectedPart);
+                draft.deleteAssociatedPart(selectedPart);
+                assocPartTable.setItems(draft.getAllAssociatedParts());
                 assocPartTable.refresh();
+                showPartsCost(BomCosts.getPartsCost(draft));
             }
         }
     }
 
     /** Searches for parts based on values entered into search field & refreshes Add Part Table showing only search results.
      * Parts can be searched by id and name (regardless of capitalization). When the search field is left blank, the table shows all products
+     * Searches also run in the background as the user types; pressing Enter reports when nothing is found
      * @param actionEvent part search field used
      */
     @FXML
     void onPartSearch(ActionEvent actionEvent) {
-        ObservableList<Part> allParts = Inventory.getAllParts();
-        ObservableList<Part> partsFound = FXCollections.observableArrayList();
-        String searchString = partSearchField.getText().toLowerCase(); // Convert search string to lowercase
-
-        for (Part part : allParts) {
-            // Convert attributes to lowercase for case-insensitive comparison
-            String partIdLower = String.valueOf(part.getId()).toLowerCase();
-            String partNameLower = part.getName().toLowerCase();
-
-            if (partIdLower.contains(searchString) || partNameLower.contains(searchString)) {
-                partsFound.add(part);
-            }
-        }
-
-        addPartTable.setItems(partsFound);
-
-        if (partsFound.isEmpty()) {
-            displayAlert(6);
-        }
+        partSearch.searchNow();
     }
 
     /** Returns to Main Screen. */
-    private void returnToMain(ActionEvent actionEvent) throws IOException {
-        Parent parent = FXMLLoader.load(getClass().getResource("/c482/main/MainScreen.fxml"));
-        Scene scene = new Scene(parent);
-        Stage stage = (Stage) ((Node) actionEvent.getSource()).getScene().getWindow();
-        stage.setScene(scene);
-        stage.show();
+    private void returnToMain(ActionEvent actionEvent) {
+        ScreenNavigator.show(ScreenNavigator.Screen.MAIN, actionEvent);
     }
 
     /** Checks if Min value is less than Max and greater than 0. */
@@ -273,15 +259,19 @@ public class ModifyProductController implements Initializable {
                 infoAlert.setHeaderText("Part not Found");
                 infoAlert.showAndWait();
                 break;
+            case 7:
+                alert.setTitle("Error");
+                alert.setHeaderText("Product Not Found");
+                alert.setContentText("The product was deleted elsewhere while it was being modified, so the changes were not saved.");
+                alert.showAndWait();
+                break;
         }
     }
 
-    /** Initializes controller; populates Add Part Table with data from Main Screen Part Table. Populates text fields with values of selected product
-     * @param url
-     * @param resourceBundle
+    /** Populates text fields & associated parts with values of selected product and shows all parts again
      */
     @Override
-    public void initialize(URL url, ResourceBundle resourceBundle) {
+    public void onShow() {
 
         selectedProduct = MainScreenController.getProductToModify();
 
@@ -292,21 +282,47 @@ public class ModifyProductController implements Initializable {
         productMaxField.setText(String.valueOf(selectedProduct.getMax()));
         productMinField.setText(String.valueOf(selectedProduct.getMin()));
 
-        assocParts = selectedProduct.getAllAssociatedParts();
-
-        assocPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        assocPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        assocPartStockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        assocPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        // edit a copy so cancelling leaves the product's associations untouched
+        draft = new Product(selectedProduct.getId(), selectedProduct.getName(), selectedProduct.getPrice(),
+                selectedProduct.getStock(), selectedProduct.getMin(), selectedProduct.getMax());
+        selectedProduct.forEachAssociatedPart(draft::setAssociatedPartQuantity);
+        selectedProduct.forEachComponent(draft::setComponentQuantity);
 
-        assocPartTable.setItems(assocParts);
+        assocPartTable.setItems(draft.getAllAssociatedParts());
         assocPartTable.refresh();
+        showPartsCost(BomCosts.getPartsCost(draft));
+
+        partSearch.reset();
+        addPartTable.getSelectionModel().clearSelection();
+    }
+
+    /** Shows the summed price of the associated parts next to the product price
+     * @param cost parts cost
+     */
+    private void showPartsCost(double cost) {
+        partsCostLabel.setText(String.format("Parts cost: %.2f", cost));
+    }
+
+    /** Initializes controller; populates Add Part Table with data from Main Screen Part Table
+     * @param url
+     * @param resourceBundle
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+
+        addPartTable.setItems(Inventory.getPartsView());
+        partSearch = new LiveSearch<>(partSearchField, addPartTable, Inventory.getPartsView(),
+                Inventory::searchPartsInBackground, Inventory::lookupPart, () -> displayAlert(6));
 
-        addPartTable.setItems(Inventory.getAllParts());
+        CellValues.bind(addPartIdCol, Part::getId);
+        CellValues.bind(addPartNameCol, Part::getName);
+        CellValues.bind(addPartStockCol, Part::getStock);
+        CellValues.bind(addPartPriceCol, Part::getPrice);
 
-        addPartIdCol.setCellValueFactory(new PropertyValueFactory<>("id"));
-        addPartNameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
-        addPartStockCol.setCellValueFactory(new PropertyValueFactory<>("stock"));
-        addPartPriceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+        CellValues.bind(assocPartIdCol, Part::getId);
+        CellValues.bind(assocPartNameCol, Part::getName);
+        CellValues.bind(assocPartStockCol, Part::getStock);
+        CellValues.bind(assocPartPriceCol, Part::getPrice);
+        CellValues.bind(assocPartQuantityCol, part -> draft.getAssociatedPartQuantity(part.getId()));
     }
 }
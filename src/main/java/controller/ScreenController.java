@@ -0,0 +1,17 @@
+package controller;
+
+/**
+ * This interface is implemented by controllers of screens kept by {@link ScreenNavigator}
+ *
+ * A screen's controller is created once, so per-visit setup that used to happen in initialize goes
+ * in {@link #onShow()} instead.
+ *
+ * @author Ella Upchurch
+ */
+interface ScreenController {
+
+    /**
+     * Resets the screen for a new visit; called each time just before the screen is shown
+     */
+    void onShow();
+}
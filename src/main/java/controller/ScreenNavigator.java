@@ -0,0 +1,88 @@
+package controller;
+
+import javafx.event.ActionEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This class switches between the application's screens
+ *
+ * Every screen's FXML is loaded once by {@link #preload()}. Switching screens resets the screen's
+ * controller through {@link ScreenController#onShow()} and swaps the root of the window's scene, so
+ * no XML is parsed and no controls are built after startup.
+ *
+ * @author Ella Upchurch
+ */
+public final class ScreenNavigator {
+
+    /** Screens of the application */
+    public enum Screen {
+        MAIN("MainScreen.fxml"),
+        ADD_PART("AddPartScreen.fxml"),
+        MODIFY_PART("ModifyPartScreen.fxml"),
+        ADD_PRODUCT("AddProductScreen.fxml"),
+        MODIFY_PRODUCT("ModifyProductScreen.fxml");
+
+        private final String fxml;
+
+        Screen(String fxml) {this.fxml = fxml;}
+    }
+
+    private static final Map<Screen, Parent> roots = new EnumMap<>(Screen.class);
+    private static final Map<Screen, ScreenController> controllers = new EnumMap<>(Screen.class);
+
+    private ScreenNavigator() {}
+
+    /**
+     * Loads every screen; must be called on the JavaFX thread before the first screen is shown
+     *
+     * @throws IOException if a screen's FXML can't be loaded
+     */
+    public static void preload() throws IOException {
+        for (Screen screen : Screen.values()) {
+            FXMLLoader loader = new FXMLLoader(ScreenNavigator.class.getResource("/c482/main/" + screen.fxml));
+            roots.put(screen, loader.load());
+            controllers.put(screen, loader.getController());
+        }
+    }
+
+    /**
+     * Resets a screen and gets its root, e.g. to build the first scene
+     *
+     * @param screen screen to show
+     * @return root node of screen
+     */
+    public static Parent show(Screen screen) {
+        if (roots.isEmpty()) {
+            try {
+                preload();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        controllers.get(screen).onShow();
+        return roots.get(screen);
+    }
+
+    /**
+     * Shows a screen in the window an event came from, resizing the window to fit it
+     *
+     * @param screen screen to show
+     * @param actionEvent event from a control in the current screen
+     */
+    static void show(Screen screen, ActionEvent actionEvent) {
+        Scene scene = ((Node) actionEvent.getSource()).getScene();
+        scene.setRoot(show(screen));
+        Window window = scene.getWindow();
+        window.sizeToScene();
+    }
+}
@@ -0,0 +1,158 @@
+package model;
+
+/**
+ * This class computes the parts cost of products, the prices of their associated parts times the parts'
+ * quantities, plus the parts costs of their component products times the components' quantities
+ *
+ * Costs of stored products are memoized. The memo follows inventory events through the where-used
+ * indexes: re-pricing, replacing or deleting a part drops the costs of just the products built from it
+ * at any level, and changing a product's parts or components drops the costs of that product and the
+ * products built from it, so a cost is recomputed only when it is next read. The price each part was
+ * costed at is kept, so changing a part's stock or any field other than its price leaves the costs
+ * alone. Parts are priced at the current price of the part stored under their ID, so products holding
+ * a part that was since replaced in the inventory use the new price.
+ *
+ * Must be used on the thread owning the inventory.
+ *
+ * @author Ella Upchurch
+ */
+public final class BomCosts {
+    /** parts cost by product ID; a missing entry is recomputed when read */
+    private static final IntMap<Double> costByProduct = new IntMap<>();
+    /** price each part had when costs were last computed from it, by part ID */
+    private static final IntMap<Double> pricedAt = new IntMap<>();
+    private static long recomputations;
+    /** IDs of the products being costed, to catch a product found among its own components */
+    private static final IntIntMap costing = new IntIntMap();
+
+    static {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {
+                if (oldPart != null) {
+                    invalidateUsersOf(newPart.getId());
+                }
+            }
+
+            @Override
+            public void partChanged(Part part) {
+                Double price = pricedAt.get(part.getId());
+                if (price != null && price != part.getPrice()) {
+                    invalidateUsersOf(part.getId());
+                }
+            }
+
+            @Override
+            public void partRemoved(Part oldPart) {invalidateUsersOf(oldPart.getId());}
+
+            @Override
+            public void partsLoaded(RowSource<Part> rows) {
+                costByProduct.clear();
+                pricedAt.clear();
+            }
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {invalidate(newProduct.getId());}
+
+            @Override
+            public void productRemoved(Product oldProduct) {invalidate(oldProduct.getId());}
+
+            @Override
+            public void associationChanged(Product product, int partId, int quantity) {invalidate(product.getId());}
+
+            @Override
+            public void componentChanged(Product assembly, int componentId, int quantity) {
+                invalidate(assembly.getId());
+            }
+        });
+    }
+
+    private BomCosts() {}
+
+    /**
+     * Gets the parts cost of a product, memoized for products in the inventory
+     *
+     * @param product product to cost
+     * @return cost of the product's associated parts plus the parts costs of its components
+     * @throws IllegalStateException if the product is found among its own components
+     */
+    public static double getPartsCost(Product product) {
+        if (Inventory.lookupProduct(product.getId()) != product) {
+            return getAssociatedPartsCost(product) + getComponentsCost(product);
+        }
+        Double cost = costByProduct.get(product.getId());
+        if (cost == null) {
+            cost = getAssociatedPartsCost(product) + getComponentsCost(product);
+            costByProduct.put(product.getId(), cost);
+            recomputations++;
+        }
+        return cost;
+    }
+
+    /**
+     * Gets the cost of a product's components, each component's parts cost times its quantity
+     *
+     * @param product product to cost
+     * @return sum of the parts costs of the product's components; components missing from the inventory cost 0
+     * @throws IllegalStateException if the product is found among its own components
+     */
+    public static double getComponentsCost(Product product) {
+        if (product.getComponentCount() == 0) {
+            return 0;
+        }
+        if (costing.containsKey(product.getId())) {
+            throw new IllegalStateException("Product " + product.getId() + " is a component of itself");
+        }
+        costing.put(product.getId(), 0);
+        try {
+            double[] cost = new double[1];
+            product.forEachComponent((componentId, quantity) -> {
+                Product component = Inventory.lookupProduct(componentId);
+                if (component != null) {
+                    cost[0] += quantity * getPartsCost(component);
+                }
+            });
+            return cost[0];
+        }
+        finally {
+            costing.remove(product.getId());
+        }
+    }
+
+    /**
+     * Gets the cost of a product's own associated parts, each part's current price times its quantity;
+     * not memoized
+     *
+     * @param product product to cost
+     * @return sum of the current prices of the product's associated parts times their quantities; parts
+     *         no longer in the inventory cost nothing
+     */
+    public static double getAssociatedPartsCost(Product product) {
+        double[] cost = new double[1];
+        product.forEachAssociatedPart((partId, quantity) -> {
+            Part part = Inventory.lookupPart(partId);
+            if (part != null) {
+                double price = part.getPrice();
+                pricedAt.put(partId, price);
+                cost[0] += quantity * price;
+            }
+        });
+        return cost[0];
+    }
+
+    /** Gets the number of memoized costs computed so far, to check that changes recompute few products
+     * @return recomputation count
+     */
+    public static long getRecomputations() {return recomputations;}
+
+    /** Drops the costs of every product built from a part, which are costed at its new price when next read */
+    private static void invalidateUsersOf(int partId) {
+        pricedAt.remove(partId);
+        Inventory.forEachProductBuiltFromPart(partId, costByProduct::remove);
+    }
+
+    /** Drops the costs of a product and of every product built from it */
+    private static void invalidate(int productId) {
+        Inventory.forEachProductBuiltFrom(productId, costByProduct::remove);
+    }
+}
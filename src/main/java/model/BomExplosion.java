@@ -0,0 +1,199 @@
+package model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class explodes multi-level bills of materials into the total parts needed to build products
+ *
+ * A product needs each of its associated parts times the part's quantity, plus the parts
+ * of each component product times the component's quantity, down through every level of
+ * sub-assemblies. Components are resolved to the inventory's products by ID, and components missing
+ * from the inventory add nothing.
+ *
+ * The components of a product are exploded as separate fork-join tasks, so wide trees are evaluated in
+ * parallel on the common pool. The parts needed per unit of each stored product are memoized, so a
+ * sub-assembly shared by many products is exploded once; the memo follows inventory events and drops a
+ * product's entry, and those of every product built from it, when its parts or components change.
+ * A product found inside itself fails the explosion instead of recursing forever.
+ *
+ * Must be called on the thread owning the inventory, which waits while the pool explodes the tree.
+ *
+ * @author Ella Upchurch
+ */
+public final class BomExplosion {
+    /** parts needed per unit, by product ID; entries are never changed once published */
+    private static final ConcurrentHashMap<Integer, IntIntMap> partsPerUnit = new ConcurrentHashMap<>();
+    private static final AtomicLong recomputations = new AtomicLong();
+
+    static {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {invalidate(newProduct.getId());}
+
+            @Override
+            public void productRemoved(Product oldProduct) {invalidate(oldProduct.getId());}
+
+            @Override
+            public void associationChanged(Product product, int partId, int quantity) {invalidate(product.getId());}
+
+            @Override
+            public void componentChanged(Product assembly, int componentId, int quantity) {
+                invalidate(assembly.getId());
+            }
+        });
+    }
+
+    private BomExplosion() {}
+
+    /**
+     * Computes the total parts needed to build units of a product, through every level of components
+     *
+     * @param product product to explode
+     * @param units units of the product to build
+     * @return quantity of each part needed, by part ID
+     * @throws IllegalArgumentException if units is negative
+     * @throws IllegalStateException if the product is found among its own components
+     * @throws ArithmeticException if a quantity overflows an int
+     */
+    public static IntIntMap explode(Product product, int units) {
+        if (units < 0) {
+            throw new IllegalArgumentException("Negative units " + units + " of product " + product.getId());
+        }
+        IntIntMap perUnit = ForkJoinPool.commonPool().invoke(new ExplodeTask(product, null));
+        IntIntMap requirements = new IntIntMap(perUnit.size());
+        perUnit.forEach((partId, quantity) -> requirements.put(partId, Math.multiplyExact(quantity, units)));
+        return requirements;
+    }
+
+    /**
+     * Checks if a product is, or is built from, another product at any level of components
+     *
+     * @param productId ID of product to search from
+     * @param componentId ID of product to look for
+     * @return true if the inventory's product with ID productId is or contains the other product
+     */
+    public static boolean contains(int productId, int componentId) {
+        if (productId == componentId) {
+            return true;
+        }
+        IntIntMap visited = new IntIntMap();
+        IntList pending = new IntList();
+        pending.add(productId);
+        visited.put(productId, 0);
+        boolean[] found = new boolean[1];
+        for (int next = 0; next < pending.size() && !found[0]; next++) {
+            Product product = Inventory.lookupProduct(pending.get(next));
+            if (product == null) {
+                continue;
+            }
+            product.forEachComponent((id, quantity) -> {
+                if (id == componentId) {
+                    found[0] = true;
+                }
+                else if (!visited.containsKey(id)) {
+                    visited.put(id, 0);
+                    pending.add(id);
+                }
+            });
+        }
+        return found[0];
+    }
+
+    /** Gets the number of products exploded into the memo so far, to check that changes recompute few products
+     * @return recomputation count
+     */
+    public static long getRecomputations() {return recomputations.get();}
+
+    /** Drops the memoized parts of a product and of every product built from it */
+    private static void invalidate(int productId) {
+        Inventory.forEachProductBuiltFrom(productId, partsPerUnit::remove);
+    }
+
+    /** Adds to a required quantity, failing instead of overflowing */
+    private static void require(IntIntMap requirements, int partId, int quantity) {
+        int required = requirements.get(partId);
+        requirements.put(partId, required == IntIntMap.NO_VALUE ? quantity : Math.addExact(required, quantity));
+    }
+
+    /** Link in the chain of products being exploded, from a product up to the root */
+    private static final class Path {
+        final int productId;
+        final Path parent;
+
+        Path(int productId, Path parent) {
+            this.productId = productId;
+            this.parent = parent;
+        }
+
+        boolean contains(int id) {
+            for (Path path = this; path != null; path = path.parent) {
+                if (path.productId == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Explodes one unit of a product, forking a task per component when there are several */
+    private static final class ExplodeTask extends RecursiveTask<IntIntMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final Product product;
+        private final Path parent;
+
+        ExplodeTask(Product product, Path parent) {
+            this.product = product;
+            this.parent = parent;
+        }
+
+        @Override
+        protected IntIntMap compute() {
+            int id = product.getId();
+            if (parent != null && parent.contains(id)) {
+                throw new IllegalStateException("Product " + id + " is a component of itself");
+            }
+            boolean stored = Inventory.lookupProduct(id) == product;
+            if (stored) {
+                IntIntMap memoized = partsPerUnit.get(id);
+                if (memoized != null) {
+                    return memoized;
+                }
+            }
+            Path path = new Path(id, parent);
+            int count = product.getComponentCount();
+            ExplodeTask[] tasks = new ExplodeTask[count];
+            int[] quantities = new int[count];
+            int[] taskCount = new int[1];
+            product.forEachComponent((componentId, quantity) -> {
+                Product component = Inventory.lookupProduct(componentId);
+                if (component != null) {
+                    tasks[taskCount[0]] = new ExplodeTask(component, path);
+                    quantities[taskCount[0]++] = quantity;
+                }
+            });
+            // fork all but the last component, which this thread explodes while the others run
+            for (int i = 0; i < taskCount[0] - 1; i++) {
+                tasks[i].fork();
+            }
+            IntIntMap last = taskCount[0] > 0 ? tasks[taskCount[0] - 1].compute() : null;
+
+            IntIntMap requirements = new IntIntMap();
+            product.forEachAssociatedPart((partId, quantity) -> require(requirements, partId, quantity));
+            for (int i = 0; i < taskCount[0]; i++) {
+                int quantity = quantities[i];
+                IntIntMap parts = i == taskCount[0] - 1 ? last : tasks[i].join();
+                parts.forEach((partId, perUnit) -> require(requirements, partId, Math.multiplyExact(perUnit, quantity)));
+            }
+            if (!stored) {
+                return requirements;
+            }
+            recomputations.incrementAndGet();
+            IntIntMap published = partsPerUnit.putIfAbsent(id, requirements);
+            return published != null ? published : requirements;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package model;
+
+/**
+ * This class computes how many units of each product can be built from the parts in stock
+ *
+ * A product can be built as many times as its scarcest part allows: for each part it needs, through
+ * every level of components, the part's stock divided by the quantity needed per unit, rounded down.
+ * A part missing from the inventory allows none, and a product that needs no parts counts as 0.
+ *
+ * Quantities of stored products are memoized. The memo follows inventory events through the where-used
+ * indexes: a part's stock edit drops the quantities of just the products built from that part, and
+ * changing a product's parts or components drops the quantities of that product and the products built
+ * from it, so a quantity is recomputed only when it is next read, and only from the parts of its own
+ * product.
+ *
+ * Must be used on the thread owning the inventory.
+ *
+ * @author Ella Upchurch
+ */
+public final class BuildableQuantities {
+    /** buildable quantity by product ID; a missing entry is recomputed when read */
+    private static final IntIntMap buildableByProduct = new IntIntMap();
+    private static long recomputations;
+
+    static {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {invalidateUsersOf(newPart.getId());}
+
+            @Override
+            public void partChanged(Part part) {invalidateUsersOf(part.getId());}
+
+            @Override
+            public void partRemoved(Part oldPart) {invalidateUsersOf(oldPart.getId());}
+
+            @Override
+            public void partsLoaded(RowSource<Part> rows) {buildableByProduct.clear();}
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {invalidate(newProduct.getId());}
+
+            @Override
+            public void productRemoved(Product oldProduct) {invalidate(oldProduct.getId());}
+
+            @Override
+            public void associationChanged(Product product, int partId, int quantity) {invalidate(product.getId());}
+
+            @Override
+            public void componentChanged(Product assembly, int componentId, int quantity) {
+                invalidate(assembly.getId());
+            }
+        });
+    }
+
+    private BuildableQuantities() {}
+
+    /**
+     * Gets how many units of a product can be built from the parts in stock, memoized for products in
+     * the inventory
+     *
+     * @param product product to check
+     * @return units that can be built
+     * @throws IllegalStateException if the product is found among its own components
+     */
+    public static int getBuildable(Product product) {
+        if (Inventory.lookupProduct(product.getId()) != product) {
+            return buildable(product);
+        }
+        int buildable = buildableByProduct.get(product.getId());
+        if (buildable == IntIntMap.NO_VALUE) {
+            buildable = buildable(product);
+            buildableByProduct.put(product.getId(), buildable);
+            recomputations++;
+        }
+        return buildable;
+    }
+
+    /** Gets the number of memoized quantities computed so far, to check that stock edits recompute few products
+     * @return recomputation count
+     */
+    public static long getRecomputations() {return recomputations;}
+
+    private static int buildable(Product product) {
+        IntIntMap needed;
+        if (product.getComponentCount() > 0) {
+            try {
+                needed = BomExplosion.explode(product, 1);
+            }
+            catch (ArithmeticException e) {
+                // more of a part than an int holds is needed per unit, so none can be built
+                return 0;
+            }
+        }
+        else {
+            IntIntMap partQuantities = new IntIntMap(product.getAssociatedPartCount());
+            product.forEachAssociatedPart(partQuantities::put);
+            needed = partQuantities;
+        }
+        if (needed.isEmpty()) {
+            return 0;
+        }
+        int[] buildable = {Integer.MAX_VALUE};
+        needed.forEach((partId, quantity) -> {
+            Part part = Inventory.lookupPart(partId);
+            int stock = part != null ? Math.max(part.getStock(), 0) : 0;
+            buildable[0] = Math.min(buildable[0], stock / quantity);
+        });
+        return buildable[0];
+    }
+
+    private static void invalidateUsersOf(int partId) {
+        Inventory.forEachProductBuiltFromPart(partId, buildableByProduct::remove);
+    }
+
+    /** Drops the quantities of a product and of every product built from it */
+    private static void invalidate(int productId) {
+        Inventory.forEachProductBuiltFrom(productId, buildableByProduct::remove);
+    }
+}
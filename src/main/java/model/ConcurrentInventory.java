@@ -0,0 +1,493 @@
+package model;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class creates a thread-safe front end to the inventory for background threads
+ *
+ * Import jobs and barcode scanner threads can add, replace, delete and look up parts & products from
+ * any thread. Changes land immediately in lock-striped ID maps, so lookups from any thread see them
+ * at once, and are queued for the JavaFX application thread. A single drain task applies the queued
+ * changes to {@link Inventory} in batches, which is what updates the TableViews; runs of queued part
+ * or product adds go through {@link Inventory#addParts} / {@link Inventory#addProducts} so each run
+ * fires one list change.
+ *
+ * Only the call queuing a change puts it in the maps, in the same step as it queues it, so the maps
+ * show changes to each ID in the order they reach the inventory. Changes made on the JavaFX thread
+ * directly through Inventory are mirrored back into the maps by an inventory listener, unless a
+ * queued change to the same ID is still waiting, as that change will replace them. Parts loaded from
+ * stored rows are not copied into the maps: a lookup missing the maps reads the row, so loading a
+ * snapshot keeps its rows unbuilt.
+ *
+ * @author Ella Upchurch
+ */
+public class ConcurrentInventory {
+    private static final int STRIPES = 64;
+    /** most queued changes applied in one pulse, so a huge import doesn't freeze the screen */
+    private static final int MAX_BATCH = 10_000;
+
+    private static final Mirror<Part> parts = new Mirror<>(Part::getId, Inventory::lookupPart, Inventory::deletePart);
+    private static final Mirror<Product> products =
+            new Mirror<>(Product::getId, Inventory::lookupProduct, Inventory::deleteProduct);
+
+    /** queued changes: an Entry to store or delete, or a Runnable for any other change */
+    private static final ConcurrentLinkedQueue<Object> pendingChanges = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private static final Executor JAVA_FX_THREAD = Platform::runLater;
+    private static volatile Executor publisher = JAVA_FX_THREAD;
+
+    /**
+     * Starts mirroring direct inventory changes into the maps; called once by Inventory as it is
+     * initialized, so the maps follow the inventory from its first change without copying its lists
+     */
+    static void startMirroring() {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {
+                if (oldPart != null && oldPart.getId() != newPart.getId()) {
+                    parts.removedDirectly(oldPart.getId());
+                }
+                parts.storedDirectly(newPart);
+            }
+
+            @Override
+            public void partsLoaded(RowSource<Part> rows) {parts.load(rows);}
+
+            @Override
+            public void partRemoved(Part oldPart) {parts.removedDirectly(oldPart.getId());}
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {
+                if (oldProduct != null && oldProduct.getId() != newProduct.getId()) {
+                    products.removedDirectly(oldProduct.getId());
+                }
+                products.storedDirectly(newProduct);
+            }
+
+            @Override
+            public void productRemoved(Product oldProduct) {products.removedDirectly(oldProduct.getId());}
+        });
+    }
+
+    /** Creates new part ID
+     * @return unique part ID
+     */
+    public static int getNewPartId() {return Inventory.getNewPartId();}
+
+    /** Creates new product ID
+     * @return unique product ID
+     */
+    public static int getNewProductId() {return Inventory.getNewProductId();}
+
+    /**
+     * Searches for parts by ID, including changes not yet shown on screen
+     *
+     * A part still stored as a row is returned as a temporary copy built from the row.
+     *
+     * @param partId ID of part
+     * @return found part, or null
+     */
+    public static Part lookupPart(int partId) {return parts.lookup(partId);}
+
+    /**
+     * Gets a part from the rows parts were last loaded from, whatever was stored since
+     *
+     * @param partId ID of part
+     * @return part built from its row, or null if no loaded row has the ID
+     */
+    static Part lookupLoadedPart(int partId) {return parts.loadedItem(partId);}
+
+    /**
+     * Searches for products by ID, including changes not yet shown on screen
+     *
+     * @param productId ID of product
+     * @return found product, or null
+     */
+    public static Product lookupProduct(int productId) {return products.lookup(productId);}
+
+    /**
+     * Adds a part, replacing any part with the same ID
+     *
+     * @param newPart part to add
+     */
+    public static void addPart(Part newPart) {parts.submit(newPart.getId(), newPart);}
+
+    /**
+     * Adds many parts, e.g. from an import job
+     *
+     * @param newParts parts to add, in order
+     */
+    public static void addParts(Collection<? extends Part> newParts) {
+        for (Part newPart : newParts) {
+            addPart(newPart);
+        }
+    }
+
+    /**
+     * Adds a product, replacing any product with the same ID
+     *
+     * @param newProduct product to add
+     */
+    public static void addProduct(Product newProduct) {products.submit(newProduct.getId(), newProduct);}
+
+    /**
+     * Removes the part with an ID
+     *
+     * @param partId ID of part to delete
+     * @return boolean that indicates if a part was deleted
+     */
+    public static boolean deletePart(int partId) {return parts.submit(partId, null) != null;}
+
+    /**
+     * Removes the product with an ID
+     *
+     * @param productId ID of product to delete
+     * @return boolean that indicates if a product was deleted
+     */
+    public static boolean deleteProduct(int productId) {return products.submit(productId, null) != null;}
+
+    /**
+     * Associates a part with a product; the product's part list is changed on the JavaFX thread
+     *
+     * @param productId ID of product
+     * @param part part to associate
+     */
+    public static void addAssociatedPart(int productId, Part part) {
+        publish(() -> {
+            Product product = Inventory.lookupProduct(productId);
+            if (product != null) {
+                product.addAssociatedPart(part);
+            }
+        });
+    }
+
+    /**
+     * Sets the executor that runs queued changes on the JavaFX thread; replaced when running without
+     * the JavaFX toolkit, for example in load tests
+     *
+     * @param executor executor that runs tasks on the thread owning the inventory
+     */
+    public static void setPublisher(Executor executor) {publisher = executor;}
+
+    /**
+     * Checks if queued changes run on the JavaFX thread, rather than an executor set by setPublisher
+     *
+     * @return true unless the publisher was replaced
+     */
+    static boolean publishesToJavaFx() {return publisher == JAVA_FX_THREAD;}
+
+    /**
+     * Applies every queued change now; must be called on the thread owning the inventory
+     */
+    public static void flush() {
+        while (!pendingChanges.isEmpty()) {
+            applyBatch(Integer.MAX_VALUE);
+        }
+    }
+
+    /** Queues a change to run on the JavaFX thread, in order with the other queued changes */
+    static void publish(Runnable change) {
+        pendingChanges.add(change);
+        scheduleDrain();
+    }
+
+    /**
+     * Queues a change storing & deleting several parts & products as one task, showing them in the
+     * maps in the same step; used to apply a transaction commit
+     *
+     * @param newParts parts the change stores
+     * @param oldPartIds IDs of parts the change deletes
+     * @param newProducts products the change stores
+     * @param oldProductIds IDs of products the change deletes
+     * @param change task making the change on the JavaFX thread
+     */
+    static void publish(List<Part> newParts, int[] oldPartIds, List<Product> newProducts, int[] oldProductIds,
+                        Runnable change) {
+        int[] partStripes = parts.entries.lockKeys(idsOf(newParts, Part::getId, oldPartIds));
+        try {
+            int[] productStripes = products.entries.lockKeys(idsOf(newProducts, Product::getId, oldProductIds));
+            try {
+                List<Entry<?>> queued = new ArrayList<>();
+                for (Part newPart : newParts) {
+                    queued.add(parts.put(newPart.getId(), newPart));
+                }
+                for (int id : oldPartIds) {
+                    queued.add(parts.put(id, null));
+                }
+                for (Product newProduct : newProducts) {
+                    queued.add(products.put(newProduct.getId(), newProduct));
+                }
+                for (int id : oldProductIds) {
+                    queued.add(products.put(id, null));
+                }
+                pendingChanges.add((Runnable) () -> {
+                    try {
+                        change.run();
+                    }
+                    finally {
+                        for (Entry<?> entry : queued) {
+                            entry.applied();
+                        }
+                    }
+                });
+            }
+            finally {
+                products.entries.unlockKeys(productStripes);
+            }
+        }
+        finally {
+            parts.entries.unlockKeys(partStripes);
+        }
+        scheduleDrain();
+    }
+
+    private static <T> int[] idsOf(List<T> items, ToIntFunction<T> idOf, int[] moreIds) {
+        int[] ids = new int[items.size() + moreIds.length];
+        for (int i = 0; i < items.size(); i++) {
+            ids[i] = idOf.applyAsInt(items.get(i));
+        }
+        System.arraycopy(moreIds, 0, ids, items.size(), moreIds.length);
+        return ids;
+    }
+
+    /** Schedules a drain unless one is already waiting */
+    private static void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            publisher.execute(ConcurrentInventory::drain);
+        }
+    }
+
+    /** Applies up to maxChanges queued changes, grouping runs of adds into bulk adds */
+    @SuppressWarnings("unchecked")
+    private static void applyBatch(int maxChanges) {
+        List<Entry<Part>> partRun = new ArrayList<>();
+        List<Entry<Product>> productRun = new ArrayList<>();
+        Object change;
+        int applied = 0;
+        while (applied < maxChanges && (change = pendingChanges.poll()) != null) {
+            applied++;
+            Entry<?> entry = change instanceof Entry ? (Entry<?>) change : null;
+            if (entry != null && entry.item instanceof Part) {
+                flushRun(productRun, Inventory::addProducts);
+                partRun.add((Entry<Part>) entry);
+            }
+            else if (entry != null && entry.item instanceof Product) {
+                flushRun(partRun, Inventory::addParts);
+                productRun.add((Entry<Product>) entry);
+            }
+            else {
+                flushRun(partRun, Inventory::addParts);
+                flushRun(productRun, Inventory::addProducts);
+                if (entry != null) {
+                    entry.applyDelete();
+                }
+                else {
+                    ((Runnable) change).run();
+                }
+            }
+        }
+        flushRun(partRun, Inventory::addParts);
+        flushRun(productRun, Inventory::addProducts);
+    }
+
+    private static <T> void flushRun(List<Entry<T>> run, Consumer<List<T>> bulkAdd) {
+        if (!run.isEmpty()) {
+            List<T> items = new ArrayList<>(run.size());
+            for (Entry<T> entry : run) {
+                items.add(entry.item);
+            }
+            bulkAdd.accept(items);
+            for (Entry<T> entry : run) {
+                entry.applied();
+            }
+            run.clear();
+        }
+    }
+
+    /** Applies up to one batch of queued changes, rescheduling itself while more are waiting */
+    private static void drain() {
+        drainScheduled.set(false);
+        applyBatch(MAX_BATCH);
+        if (!pendingChanges.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            publisher.execute(ConcurrentInventory::drain);
+        }
+    }
+
+    /** What the maps hold for an ID: a part or product, or none where a stored row would otherwise show */
+    private static final class Entry<T> {
+        final Mirror<T> mirror;
+        final int id;
+        /** item stored, or null if deleted */
+        final T item;
+        /** true until the queued change that made the entry is applied to the inventory */
+        volatile boolean queued;
+
+        Entry(Mirror<T> mirror, int id, T item, boolean queued) {
+            this.mirror = mirror;
+            this.id = id;
+            this.item = item;
+            this.queued = queued;
+        }
+
+        /** Deletes whatever part or product has the ID now, as a queued delete replaces direct changes */
+        void applyDelete() {
+            T stored = mirror.inventoryLookup.apply(id);
+            if (stored != null) {
+                mirror.inventoryDelete.test(stored);
+            }
+            applied();
+        }
+
+        /** Marks the entry's change applied, dropping a delete that no longer hides a row */
+        void applied() {
+            queued = false;
+            if (item == null && !mirror.hasRow(id)) {
+                mirror.entries.remove(id, this);
+            }
+        }
+    }
+
+    /** Maps of the parts or products by ID, plus the rows they were loaded from */
+    private static final class Mirror<T> {
+        final StripedIntMap<Entry<T>> entries = new StripedIntMap<>(STRIPES);
+        final ToIntFunction<T> idOf;
+        final IntFunction<T> inventoryLookup;
+        final Predicate<T> inventoryDelete;
+        /** rows loaded into the inventory; only changed on the JavaFX thread */
+        volatile LoadedRows<T> loaded;
+
+        Mirror(ToIntFunction<T> idOf, IntFunction<T> inventoryLookup, Predicate<T> inventoryDelete) {
+            this.idOf = idOf;
+            this.inventoryLookup = inventoryLookup;
+            this.inventoryDelete = inventoryDelete;
+        }
+
+        T lookup(int id) {return visible(id, entries.get(id));}
+
+        /** Gets the item an entry shows, or the loaded row where there is no entry */
+        T visible(int id, Entry<T> entry) {
+            return entry != null ? entry.item : loadedItem(id);
+        }
+
+        /** Gets the loaded row with an ID, ignoring entries, or null */
+        T loadedItem(int id) {
+            LoadedRows<T> rows = loaded;
+            int row = rows != null ? rows.rowOf(id) : -1;
+            return row >= 0 ? rows.source.materialize(row) : null;
+        }
+
+        boolean hasRow(int id) {
+            LoadedRows<T> rows = loaded;
+            return rows != null && rows.rowOf(id) >= 0;
+        }
+
+        /**
+         * Stores or deletes an item in the map and queues the change in one step, so changes to an ID
+         * are queued in the order the map shows them
+         *
+         * @return item shown before, or null if there was none; a delete of nothing isn't queued
+         */
+        T submit(int id, T item) {
+            List<T> before = new ArrayList<>(1);
+            Entry<T> entry = new Entry<>(this, id, item, true);
+            entries.compute(id, current -> {
+                T visible = visible(id, current);
+                before.add(visible);
+                if (item == null && visible == null) {
+                    return current;
+                }
+                pendingChanges.add(entry);
+                return entry;
+            });
+            T visible = before.get(0);
+            if (item != null || visible != null) {
+                scheduleDrain();
+            }
+            return visible;
+        }
+
+        /** Stores or deletes an item for a change the caller queues while holding the ID's stripe */
+        Entry<T> put(int id, T item) {
+            Entry<T> entry = new Entry<>(this, id, item, true);
+            entries.put(id, entry);
+            return entry;
+        }
+
+        /** Mirrors an item stored directly in the inventory, unless a queued change to it is waiting */
+        void storedDirectly(T item) {
+            int id = idOf.applyAsInt(item);
+            entries.compute(id, current -> current != null && (current.queued || current.item == item)
+                    ? current : new Entry<>(this, id, item, false));
+        }
+
+        /** Mirrors an item deleted directly from the inventory, unless a queued change to it is waiting */
+        void removedDirectly(int id) {
+            entries.compute(id, current -> current != null && current.queued
+                    ? current : hasRow(id) ? new Entry<>(this, id, null, false) : null);
+        }
+
+        /** Falls back to rows loaded into the now empty inventory; entries of queued changes stay */
+        void load(RowSource<T> rows) {
+            loaded = new LoadedRows<>(rows);
+            entries.removeIf(entry -> !entry.queued);
+        }
+    }
+
+    /** Rows loaded into the inventory, found by ID from any thread */
+    private static final class LoadedRows<T> {
+        final RowSource<T> source;
+        /** row of each ID, or null when IDs ascend with the rows, as in snapshots, and are binary searched */
+        final IntIntMap rowById;
+
+        LoadedRows(RowSource<T> source) {
+            this.source = source;
+            boolean ascending = true;
+            for (int row = 1; row < source.rowCount() && ascending; row++) {
+                ascending = source.idAt(row - 1) < source.idAt(row);
+            }
+            if (ascending) {
+                rowById = null;
+            }
+            else {
+                rowById = new IntIntMap(source.rowCount());
+                for (int row = 0; row < source.rowCount(); row++) {
+                    rowById.put(source.idAt(row), row);
+                }
+            }
+        }
+
+        /** Finds the row of an ID, or -1 */
+        int rowOf(int id) {
+            if (rowById != null) {
+                return rowById.get(id);
+            }
+            int low = 0;
+            int high = source.rowCount() - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int midId = source.idAt(mid);
+                if (midId < id) {
+                    low = mid + 1;
+                }
+                else if (midId > id) {
+                    high = mid - 1;
+                }
+                else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -31,5 +31,8 @@ public class InHouse extends Part{
     /** The setter for part machine ID
      * @param machineId
      */
-    public void setMachineId(int machineId) {this.machineId = machineId;}
+    public void setMachineId(int machineId) {
+        this.machineId = machineId;
+        Inventory.partFieldsChanged(this);
+    }
 }
@@ -0,0 +1,233 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class creates a hash map from primitive int keys to primitive int values
+ *
+ * Works like {@link IntMap} but stores values in an int array, so neither keys nor values are boxed.
+ *
+ * @author Ella Upchurch
+ */
+public class IntIntMap {
+    private static final int MIN_CAPACITY = 16;
+
+    /** Value returned by {@link #get(int)} when a key is not present */
+    public static final int NO_VALUE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /** Creates an empty map */
+    public IntIntMap() {this(MIN_CAPACITY);}
+
+    /**
+     * Creates an empty map sized for the expected number of entries
+     *
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public IntIntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /** The getter for map size
+     * @return number of entries in the map
+     */
+    public int size() {return size;}
+
+    /** Checks if map has no entries
+     * @return true if map is empty
+     */
+    public boolean isEmpty() {return size == 0;}
+
+    /**
+     * Gets the value stored for a key
+     *
+     * @param key key to look up
+     * @return value for key, or {@link #NO_VALUE} if key is not present
+     */
+    public int get(int key) {
+        int slot = find(key);
+        return slot < 0 ? NO_VALUE : values[slot];
+    }
+
+    /**
+     * Checks if a key is present
+     *
+     * @param key key to look up
+     * @return true if key has a value
+     */
+    public boolean containsKey(int key) {return find(key) >= 0;}
+
+    /**
+     * Stores a value for a key, replacing any previous value
+     *
+     * @param key key to store
+     * @param value value to store
+     * @return previous value for key, or {@link #NO_VALUE} if there was none
+     */
+    public int put(int key, int value) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > (mask + 1) * 3 / 4) {
+            resize((mask + 1) * 2);
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Adds to the value stored for a key, treating a missing key as 0
+     *
+     * @param key key to update
+     * @param delta amount to add
+     * @return new value for key
+     */
+    public int addTo(int key, int delta) {
+        int slot = find(key);
+        if (slot < 0) {
+            put(key, delta);
+            return delta;
+        }
+        values[slot] += delta;
+        return values[slot];
+    }
+
+    /**
+     * Removes the value stored for a key
+     *
+     * @param key key to remove
+     * @return removed value, or {@link #NO_VALUE} if key was not present
+     */
+    public int remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return NO_VALUE;
+        }
+        int previous = values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    /** Removes all entries */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Makes sure the map can hold the given number of entries without resizing
+     *
+     * @param expectedSize number of entries expected
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > mask + 1) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Runs an action for every entry in the map, in no particular order
+     *
+     * @param action action to run with each key and value
+     */
+    public void forEach(EntryConsumer action) {
+        for (int i = 0; i < used.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /** Action run for a map entry without boxing */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Runs the action
+         *
+         * @param key entry key
+         * @param value entry value
+         */
+        void accept(int key, int value);
+    }
+
+    /** Finds the slot holding key, or -1 */
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Empties a slot and shifts back later entries of the same probe run so no tombstones are needed */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next]) {
+            int home = mix(keys[next]) & mask;
+            // move the entry into the gap if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (used[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Returns a power of two table size that keeps the load factor under 3/4 */
+    private static int tableSizeFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, (int) Math.min(1 << 30, (long) expectedSize * 4 / 3 + 1));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /** Spreads sequential IDs across the table */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
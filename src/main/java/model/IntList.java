@@ -0,0 +1,78 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class creates a growable list of primitive ints
+ *
+ * @author Ella Upchurch
+ */
+public class IntList {
+    private int[] elements;
+    private int size;
+
+    /** Creates an empty list */
+    public IntList() {this(8);}
+
+    /**
+     * Creates an empty list with room for the given number of elements
+     *
+     * @param capacity initial capacity
+     */
+    public IntList(int capacity) {elements = new int[Math.max(1, capacity)];}
+
+    /** The getter for list size
+     * @return number of elements
+     */
+    public int size() {return size;}
+
+    /** Checks if list has no elements
+     * @return true if list is empty
+     */
+    public boolean isEmpty() {return size == 0;}
+
+    /**
+     * Gets the element at an index
+     *
+     * @param index index of element
+     * @return element at index
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Appends an element
+     *
+     * @param value element to add
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = value;
+    }
+
+    /** Removes all elements */
+    public void clear() {size = 0;}
+
+    /** Sorts the list ascending and drops duplicate elements */
+    public void sortDistinct() {
+        Arrays.sort(elements, 0, size);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || elements[distinct - 1] != elements[i]) {
+                elements[distinct++] = elements[i];
+            }
+        }
+        size = distinct;
+    }
+
+    /** Copies the list to an array
+     * @return array holding the elements
+     */
+    public int[] toArray() {return Arrays.copyOf(elements, size);}
+}
@@ -0,0 +1,253 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * This class creates a hash map keyed by primitive int, used to index parts and products by ID
+ *
+ * Keys are stored in an int array with linear probing so lookups never box the key.
+ * Null values are not allowed; a null value marks an empty slot.
+ *
+ * @param <V> type of value stored
+ *
+ * @author Ella Upchurch
+ */
+public class IntMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /** Creates an empty map */
+    public IntMap() {this(MIN_CAPACITY);}
+
+    /**
+     * Creates an empty map sized for the expected number of entries
+     *
+     * @param expectedSize number of entries the map should hold without resizing
+     */
+    public IntMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /** The getter for map size
+     * @return number of entries in the map
+     */
+    public int size() {return size;}
+
+    /** Checks if map has no entries
+     * @return true if map is empty
+     */
+    public boolean isEmpty() {return size == 0;}
+
+    /**
+     * Gets the value stored for a key
+     *
+     * @param key key to look up
+     * @return value for key, or null if key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = find(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks if a key is present
+     *
+     * @param key key to look up
+     * @return true if key has a value
+     */
+    public boolean containsKey(int key) {return find(key) >= 0;}
+
+    /**
+     * Stores a value for a key, replacing any previous value
+     *
+     * @param key key to store
+     * @param value value to store, must not be null
+     * @return previous value for key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntMap does not allow null values");
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) * 3 / 4) {
+            resize((mask + 1) * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value stored for a key
+     *
+     * @param key key to remove
+     * @return removed value, or null if key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        removeSlot(slot);
+        return previous;
+    }
+
+    /**
+     * Removes the entry for a key only if it currently maps to the given value
+     *
+     * @param key key to remove
+     * @param value value the key must map to (compared by identity)
+     * @return true if the entry was removed
+     */
+    public boolean remove(int key, V value) {
+        int slot = find(key);
+        if (slot < 0 || values[slot] != value) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /** Removes all entries */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Makes sure the map can hold the given number of entries without resizing
+     *
+     * @param expectedSize number of entries expected
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        if (capacity > mask + 1) {
+            resize(capacity);
+        }
+    }
+
+    /**
+     * Runs an action for every value in the map, in no particular order
+     *
+     * @param action action to run
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((V) value);
+            }
+        }
+    }
+
+    /**
+     * Runs an action for every entry in the map, in no particular order
+     *
+     * @param action action to run with each key and value
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * Action run for a map entry without boxing the key
+     *
+     * @param <V> type of value
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Runs the action
+         *
+         * @param key entry key
+         * @param value entry value
+         */
+        void accept(int key, V value);
+    }
+
+    /** Finds the slot holding key, or -1 */
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /** Empties a slot and shifts back later entries of the same probe run so no tombstones are needed */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = mix(keys[next]) & mask;
+            // move the entry into the gap if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /** Returns a power of two table size that keeps the load factor under 3/4 */
+    private static int tableSizeFor(int expectedSize) {
+        int needed = Math.max(MIN_CAPACITY, (int) Math.min(1 << 30, (long) expectedSize * 4 / 3 + 1));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /** Spreads sequential IDs across the table */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
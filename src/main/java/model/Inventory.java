@@ -3,38 +3,205 @@ package model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
 /**
  * This class creates an inventory that holds parts and products
  *
+ * The lists are shown by TableViews, so the inventory must only be changed on the JavaFX application
+ * thread (or before the application launches). Other threads go through {@link ConcurrentInventory}.
+ *
  * @author Ella Upchurch
  */
 public class Inventory {
-    //may need to be removed, see UML diagram
-    private static int partId = 0;
-    private static int productId = 0;
+    /** ID counters are atomic so any thread can reserve an ID; adding an item moves them past its ID */
+    private static AtomicInteger partId = new AtomicInteger();
+    private static AtomicInteger productId = new AtomicInteger();
+
+    private static List<InventoryListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** slot storage indexed by ID, so lookups, replacements & deletes don't scan the lists */
+    private static SlotList<Part> allParts = new SlotList<>(Part.class, Part::getId);
+    private static SlotList<Product> allProducts = new SlotList<>(Product.class, Product::getId);
+
+    /** paged views for TableViews, so showing every part doesn't keep every part in memory */
+    private static PagedList<Part> partsView = new PagedList<>(allParts, 32);
+    private static PagedList<Product> productsView = new PagedList<>(allProducts, 32);
+
+    /** Reverse association index: part ID to (product ID to units of the part used per unit of the product) */
+    private static IntMap<IntIntMap> productsUsingPart = new IntMap<>();
+    /** Reverse component index: product ID to (assembly product ID to units used per unit of the assembly) */
+    private static IntMap<IntIntMap> assembliesUsingProduct = new IntMap<>();
 
-    private static ObservableList<Part> allParts = FXCollections.observableArrayList();
-    private static ObservableList<Product> allProducts = FXCollections.observableArrayList();
+    /** Part IDs by company code of outsourced parts & by machine ID of in-house parts;
+     * built by the first query, then kept current */
+    private static PartGroupIndex partsByCompany;
+    private static PartGroupIndex partsByMachine;
+    /** company codes of the company groups; dropped & rebuilt with the groups once names no longer used pile up */
+    private static StringDictionary companyCodes;
+    /** company codes allowed beyond twice the number of company groups before the groups are rebuilt */
+    private static final int SPARE_COMPANY_CODES = 64;
+    /** Part & product IDs ordered by price, stock & stock minus min;
+     * built by the first query, then kept current */
+    private static StockLevelIndex partLevels;
+    private static StockLevelIndex productLevels;
 
-    /** Adds a part to the inventory
+    /** Search indexes behind the part & product search fields */
+    private static SearchIndex<Part> partSearchIndex = new SearchIndex<>(Part::getId, Part::getName);
+    private static SearchIndex<Product> productSearchIndex = new SearchIndex<>(Product::getId, Product::getName);
+    private static RowSource<Part> loadedPartRows;
+
+    /** single thread running background searches in order, after any pending index build */
+    private static ExecutorService searchExecutor = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "inventory-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** indexing of parts loaded from stored rows, done on the search thread */
+    private static CompletableFuture<Void> partSearchIndexBuild = CompletableFuture.completedFuture(null);
+
+    static {
+        // registered while the lists are still empty, so the thread-safe maps never copy them
+        ConcurrentInventory.startMirroring();
+        StockLedger.startTracking();
+        InventoryVersions.startStamping();
+    }
+
+    /** Adds a part to the inventory, replacing any part with the same ID
      * @param newPart part to add
      */
-    public static void addPart(Part newPart){allParts.add(newPart);}
+    public static void addPart(Part newPart){
+        Part oldPart = allParts.put(newPart);
+        partId.accumulateAndGet(newPart.getId(), Math::max);
+        partSearchIndex.add(newPart);
+        groupPart(newPart);
+        indexPartLevels(newPart);
+        for (InventoryListener listener : listeners) {
+            listener.partStored(newPart, oldPart);
+        }
+    }
 
-    /** Adds a product to the inventory
+    /** Adds a product to the inventory, replacing any product with the same ID
      * @param newProduct product to be added
      */
-    public static void addProduct(Product newProduct){allProducts.add(newProduct);}
+    public static void addProduct(Product newProduct){
+        Product oldProduct = allProducts.put(newProduct);
+        productId.accumulateAndGet(newProduct.getId(), Math::max);
+        if (oldProduct != null) {
+            unindexAssociations(oldProduct);
+        }
+        indexAssociations(newProduct);
+        productSearchIndex.add(newProduct);
+        indexProductLevels(newProduct);
+        for (InventoryListener listener : listeners) {
+            listener.productStored(newProduct, oldProduct);
+        }
+    }
+
+    /** Adds many parts to the inventory at once, e.g. when loading a catalogue
+     *
+     * The lists fire a single change for the whole batch, so bound tables update once.
+     * Parts replace any part with the same ID.
+     *
+     * @param newParts parts to add, in order
+     */
+    public static void addParts(Collection<? extends Part> newParts){
+        partSearchIndex.ensureCapacity(newParts.size());
+        allParts.putAll(newParts, (newPart, oldPart) -> {
+            partId.accumulateAndGet(newPart.getId(), Math::max);
+            partSearchIndex.add(newPart);
+            groupPart(newPart);
+            indexPartLevels(newPart);
+            for (InventoryListener listener : listeners) {
+                listener.partStored(newPart, oldPart);
+            }
+        });
+    }
+
+    /** Loads parts from stored rows, such as a snapshot file, into an empty part list
+     *
+     * Rows are turned into Part objects only when they are first read, and the rows are added to the
+     * part search index on the search thread, so a large inventory can be shown right away.
+     * Listeners are told about the rows as a whole, not about each loaded part.
+     *
+     * @param rows stored parts
+     */
+    public static void loadParts(RowSource<Part> rows){
+        allParts.loadRows(rows);
+        loadedPartRows = rows;
+        int maxId = 0;
+        for (int row = 0; row < rows.rowCount(); row++) {
+            maxId = Math.max(maxId, rows.idAt(row));
+        }
+        partId.accumulateAndGet(maxId, Math::max);
+        dropPartGroups();
+        partLevels = null;
+        partSearchIndex.clear();
+        // parts changed on this thread meanwhile are indexed directly, so rows never replace them
+        partSearchIndexBuild = CompletableFuture.runAsync(() -> {
+            for (int row = 0; row < rows.rowCount(); row++) {
+                partSearchIndex.addIfAbsent(rows.idAt(row), rows.nameAt(row));
+            }
+        }, searchExecutor);
+        for (InventoryListener listener : listeners) {
+            listener.partsLoaded(rows);
+        }
+    }
+
+    /** Visits every part without keeping parts built from stored rows in memory
+     *
+     * Parts loaded by {@link #loadParts(RowSource)} and not yet read are passed as temporary copies;
+     * changes made to them are lost unless the rows are views writing through, as {@link PartColumns}'s are.
+     *
+     * @param action action run for each part, in list order
+     */
+    public static void scanParts(Consumer<Part> action){
+        RowSource<Part> rows = loadedPartRows;
+        allParts.forEachRow((part, row) -> action.accept(part != null ? part : rows.materialize(row)));
+    }
+
+    /** Adds many products to the inventory at once
+     *
+     * The lists fire a single change for the whole batch, so bound tables update once.
+     * Products replace any product with the same ID.
+     *
+     * @param newProducts products to add, in order
+     */
+    public static void addProducts(Collection<? extends Product> newProducts){
+        productSearchIndex.ensureCapacity(newProducts.size());
+        allProducts.putAll(newProducts, (newProduct, oldProduct) -> {
+            productId.accumulateAndGet(newProduct.getId(), Math::max);
+            if (oldProduct != null) {
+                unindexAssociations(oldProduct);
+            }
+            indexAssociations(newProduct);
+            productSearchIndex.add(newProduct);
+            indexProductLevels(newProduct);
+            for (InventoryListener listener : listeners) {
+                listener.productStored(newProduct, oldProduct);
+            }
+        });
+    }
 
     /** Creates new part ID
      * @return unique part ID
      */
-    public static int getNewPartId(){return ++partId;}
+    public static int getNewPartId(){return partId.incrementAndGet();}
 
     /** Creates new product ID
      * @return unique product ID
      */
-    public static int getNewProductId(){return ++productId;}
+    public static int getNewProductId(){return productId.incrementAndGet();}
 
     /**
      * Searches for parts by ID
@@ -42,16 +209,7 @@ public class Inventory {
      * @param partID of part
      * @return found parts
      */
-    public static Part lookupPart(int partID) {
-        Part partFound = null;
-
-        for (Part part : allParts){
-            if (part.getId() == partID){
-                partFound = part;
-            }
-        }
-        return partFound;
-    }
+    public static Part lookupPart(int partID) {return allParts.getById(partID);}
 
     /**
      * searches for parts by name
@@ -61,12 +219,13 @@ public class Inventory {
      */
     public static ObservableList<Part> lookupPart(String partName) {
         ObservableList<Part> partsFound = FXCollections.observableArrayList();
-
-        for (Part part : allParts){
-            if (part.getName().equals(partName)){
-                partsFound.add(part);
+        RowSource<Part> rows = loadedPartRows;
+        // stored rows are matched by name alone, so only the parts found are built
+        allParts.forEachRow((part, row) -> {
+            if (part != null ? part.getName().equals(partName) : rows.nameAt(row).equals(partName)) {
+                partsFound.add(part != null ? part : allParts.getById(rows.idAt(row)));
             }
-        }
+        });
         return partsFound;
     }
 
@@ -76,16 +235,7 @@ public class Inventory {
      * @param productId of product
      * @return found products
      */
-    public static Product lookupProduct(int productId) {
-        Product productFound = null;
-
-        for (Product product : allProducts){
-            if (product.getId() == productId){
-                productFound = product;
-            }
-        }
-        return productFound;
-    }
+    public static Product lookupProduct(int productId) {return allProducts.getById(productId);}
 
     /**
      * searches for products by name
@@ -104,6 +254,97 @@ public class Inventory {
         return productsFound;
     }
 
+    /**
+     * Searches for parts whose ID or name contains the search string, regardless of capitalization
+     *
+     * @param searchString text entered in a part search field
+     * @return found parts, or the paged view of all parts when the search string is blank
+     */
+    public static ObservableList<Part> searchParts(String searchString) {
+        if (searchString.isEmpty()) {
+            return partsView;
+        }
+        try {
+            partSearchIndexBuild.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Part search index could not be built", e.getCause());
+        }
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        for (int id : partSearchIndex.search(searchString)) {
+            Part part = allParts.getById(id);
+            // a part deleted while its row was being indexed can leave its ID behind
+            if (part != null) {
+                partsFound.add(part);
+            }
+        }
+        return partsFound;
+    }
+
+    /**
+     * Searches for parts on the search thread, so typing in a search field never waits for a search
+     *
+     * IDs are passed to found on the search thread; look them up with {@link #lookupPart(int)} on the
+     * JavaFX thread, skipping IDs whose part has been deleted since.
+     *
+     * @param searchString text entered in a part search field; must not be blank
+     * @param cancelled checked while searching; the search stops once it returns true
+     * @param found called with the ID of each found part, in ascending order
+     * @param done called on the search thread when the search finishes or is cancelled
+     */
+    public static void searchPartsInBackground(String searchString, BooleanSupplier cancelled,
+                                               IntConsumer found, Runnable done) {
+        searchInBackground(partSearchIndex, searchString, cancelled, found, done);
+    }
+
+    /**
+     * Searches for products on the search thread, so typing in a search field never waits for a search
+     *
+     * IDs are passed to found on the search thread; look them up with {@link #lookupProduct(int)} on
+     * the JavaFX thread, skipping IDs whose product has been deleted since.
+     *
+     * @param searchString text entered in a product search field; must not be blank
+     * @param cancelled checked while searching; the search stops once it returns true
+     * @param found called with the ID of each found product, in ascending order
+     * @param done called on the search thread when the search finishes or is cancelled
+     */
+    public static void searchProductsInBackground(String searchString, BooleanSupplier cancelled,
+                                                  IntConsumer found, Runnable done) {
+        searchInBackground(productSearchIndex, searchString, cancelled, found, done);
+    }
+
+    private static void searchInBackground(SearchIndex<?> index, String searchString, BooleanSupplier cancelled,
+                                           IntConsumer found, Runnable done) {
+        searchExecutor.execute(() -> {
+            try {
+                index.search(searchString, cancelled, found);
+            }
+            finally {
+                done.run();
+            }
+        });
+    }
+
+    /**
+     * Searches for products whose ID or name contains the search string, regardless of capitalization
+     *
+     * @param searchString text entered in a product search field
+     * @return found products, or the paged view of all products when the search string is blank
+     */
+    public static ObservableList<Product> searchProducts(String searchString) {
+        if (searchString.isEmpty()) {
+            return productsView;
+        }
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        for (int id : productSearchIndex.search(searchString)) {
+            productsFound.add(allProducts.getById(id));
+        }
+        return productsFound;
+    }
+
     /**
      * replaces part in inventory
      *
@@ -111,7 +352,38 @@ public class Inventory {
      * @param selectedPart replacing part
      */
     public static void updatePart (int index, Part selectedPart){
-        allParts.set(index, selectedPart);
+        Part oldPart = allParts.set(index, selectedPart);
+        partSearchIndex.remove(oldPart.getId());
+        partSearchIndex.add(selectedPart);
+        if (oldPart.getId() != selectedPart.getId()) {
+            ungroupPart(oldPart);
+            unindexPartLevels(oldPart);
+        }
+        groupPart(selectedPart);
+        indexPartLevels(selectedPart);
+        for (InventoryListener listener : listeners) {
+            if (oldPart.getId() != selectedPart.getId()) {
+                listener.partRemoved(oldPart);
+                listener.partStored(selectedPart, null);
+            }
+            else {
+                listener.partStored(selectedPart, oldPart);
+            }
+        }
+    }
+
+    /**
+     * replaces the part that has the same ID, keeping its position in the list
+     *
+     * @param selectedPart replacing part
+     * @return boolean that indicates if a part was replaced
+     */
+    public static boolean updatePart (Part selectedPart){
+        if (lookupPart(selectedPart.getId()) == null) {
+            return false;
+        }
+        addPart(selectedPart);
+        return true;
     }
 
     /**
@@ -120,7 +392,38 @@ public class Inventory {
      * @param selectedProduct replacing product
      */
     public static void updateProduct (int index, Product selectedProduct){
-        allProducts.set(index, selectedProduct);
+        Product oldProduct = allProducts.set(index, selectedProduct);
+        unindexAssociations(oldProduct);
+        indexAssociations(selectedProduct);
+        productSearchIndex.remove(oldProduct.getId());
+        productSearchIndex.add(selectedProduct);
+        if (oldProduct.getId() != selectedProduct.getId()) {
+            unindexProductLevels(oldProduct);
+        }
+        indexProductLevels(selectedProduct);
+        for (InventoryListener listener : listeners) {
+            if (oldProduct.getId() != selectedProduct.getId()) {
+                listener.productRemoved(oldProduct);
+                listener.productStored(selectedProduct, null);
+            }
+            else {
+                listener.productStored(selectedProduct, oldProduct);
+            }
+        }
+    }
+
+    /**
+     * replaces the product that has the same ID, keeping its position in the list
+     *
+     * @param selectedProduct replacing product
+     * @return boolean that indicates if a product was replaced
+     */
+    public static boolean updateProduct (Product selectedProduct){
+        if (lookupProduct(selectedProduct.getId()) == null) {
+            return false;
+        }
+        addProduct(selectedProduct);
+        return true;
     }
 
     /**
@@ -130,8 +433,14 @@ public class Inventory {
      * @return boolean that indicates if delete was successful
      */
     public static boolean deletePart(Part selectedPart){
-        if (allParts.contains(selectedPart)){
-            allParts.remove(selectedPart);
+        // a replacement part with the same ID may already be stored, so only drop this exact part
+        if (allParts.delete(selectedPart)){
+            partSearchIndex.remove(selectedPart.getId());
+            ungroupPart(selectedPart);
+            unindexPartLevels(selectedPart);
+            for (InventoryListener listener : listeners) {
+                listener.partRemoved(selectedPart);
+            }
             return true;
         }
         else {
@@ -146,8 +455,13 @@ public class Inventory {
      * @return boolean that indicates if delete was successful
      */
     public static boolean deleteProduct(Product selectedProduct){
-        if (allProducts.contains(selectedProduct)){
-            allProducts.remove(selectedProduct);
+        if (allProducts.delete(selectedProduct)){
+            unindexAssociations(selectedProduct);
+            productSearchIndex.remove(selectedProduct.getId());
+            unindexProductLevels(selectedProduct);
+            for (InventoryListener listener : listeners) {
+                listener.productRemoved(selectedProduct);
+            }
             return true;
         }
         else {
@@ -155,6 +469,522 @@ public class Inventory {
         }
     }
 
+    /**
+     * Finds the products that have a part associated with them (where-used)
+     *
+     * @param partId ID of part
+     * @return products in inventory associated with the part
+     */
+    public static ObservableList<Product> lookupProductsUsingPart(int partId) {
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        IntIntMap users = productsUsingPart.get(partId);
+        if (users != null) {
+            users.forEach((productId, count) -> productsFound.add(allProducts.getById(productId)));
+        }
+        return productsFound;
+    }
+
+    /**
+     * Visits the IDs of the products that have a part associated with them
+     *
+     * @param partId ID of part
+     * @param action action run with each product ID
+     */
+    static void forEachProductUsingPart(int partId, IntConsumer action) {
+        IntIntMap users = productsUsingPart.get(partId);
+        if (users != null) {
+            users.forEach((productId, count) -> action.accept(productId));
+        }
+    }
+
+    /**
+     * Visits the IDs of the products that have a part associated with them, and of every product
+     * built from those at any level of components, once each
+     *
+     * @param partId ID of part
+     * @param action action run with each product ID
+     */
+    static void forEachProductBuiltFromPart(int partId, IntConsumer action) {
+        IntIntMap visited = new IntIntMap();
+        IntList pending = new IntList();
+        forEachProductUsingPart(partId, productId -> {
+            visited.put(productId, 0);
+            pending.add(productId);
+        });
+        visitAssemblies(visited, pending, action);
+    }
+
+    /**
+     * Visits a product's ID and the IDs of every product built from it at any level of components,
+     * once each
+     *
+     * @param productId ID of product
+     * @param action action run with each product ID
+     */
+    static void forEachProductBuiltFrom(int productId, IntConsumer action) {
+        IntIntMap visited = new IntIntMap();
+        IntList pending = new IntList();
+        visited.put(productId, 0);
+        pending.add(productId);
+        visitAssemblies(visited, pending, action);
+    }
+
+    /** Visits pending products breadth first, queueing the assemblies using each one not yet visited */
+    private static void visitAssemblies(IntIntMap visited, IntList pending, IntConsumer action) {
+        for (int next = 0; next < pending.size(); next++) {
+            int productId = pending.get(next);
+            action.accept(productId);
+            forEachAssemblyUsing(productId, assemblyId -> {
+                if (!visited.containsKey(assemblyId)) {
+                    visited.put(assemblyId, 0);
+                    pending.add(assemblyId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Checks if any product in inventory has a part associated with it
+     *
+     * @param partId ID of part
+     * @return true if the part is associated with at least one product
+     */
+    public static boolean isPartUsed(int partId) {return productsUsingPart.containsKey(partId);}
+
+    /**
+     * Finds the products that use a product as a component (where-used for sub-assemblies)
+     *
+     * @param productId ID of component product
+     * @return products in inventory that list the product as a component
+     */
+    public static ObservableList<Product> lookupAssembliesUsingProduct(int productId) {
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        IntIntMap users = assembliesUsingProduct.get(productId);
+        if (users != null) {
+            users.forEach((assemblyId, quantity) -> productsFound.add(allProducts.getById(assemblyId)));
+        }
+        return productsFound;
+    }
+
+    /**
+     * Visits the IDs of the products that use a product as a component
+     *
+     * @param productId ID of component product
+     * @param action action run with each assembly's product ID
+     */
+    static void forEachAssemblyUsing(int productId, IntConsumer action) {
+        IntIntMap users = assembliesUsingProduct.get(productId);
+        if (users != null) {
+            users.forEach((assemblyId, quantity) -> action.accept(assemblyId));
+        }
+    }
+
+    /**
+     * Finds the outsourced parts made by a company
+     *
+     * The first company or machine query indexes every part; later queries take time proportional to
+     * the number of parts found.
+     *
+     * @param companyName company name of parts
+     * @return outsourced parts in inventory with the company name
+     */
+    public static ObservableList<Part> lookupPartsByCompany(String companyName) {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        buildPartGroups();
+        int companyCode = companyCodes.find(companyName);
+        if (companyCode != StringDictionary.NULL_CODE) {
+            partsByCompany.forEach(companyCode, id -> partsFound.add(allParts.getById(id)));
+        }
+        return partsFound;
+    }
+
+    /**
+     * Finds the in-house parts made on a machine
+     *
+     * The first company or machine query indexes every part; later queries take time proportional to
+     * the number of parts found.
+     *
+     * @param machineId machine ID of parts
+     * @return in-house parts in inventory with the machine ID
+     */
+    public static ObservableList<Part> lookupPartsByMachine(int machineId) {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        buildPartGroups();
+        partsByMachine.forEach(machineId, id -> partsFound.add(allParts.getById(id)));
+        return partsFound;
+    }
+
+    /**
+     * Finds the parts priced within a range, cheapest first
+     *
+     * The first price or stock query indexes every part; later queries take O(log n) plus the number
+     * of parts found.
+     *
+     * @param low lowest price
+     * @param high highest price
+     * @return parts in inventory priced from low to high
+     */
+    public static ObservableList<Part> lookupPartsPricedBetween(double low, double high) {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        buildPartLevels().pricedBetween(low, high, id -> partsFound.add(allParts.getById(id)));
+        return partsFound;
+    }
+
+    /**
+     * Finds the parts with stock within a range, lowest stock first
+     *
+     * @param low lowest stock
+     * @param high highest stock
+     * @return parts in inventory with stock from low to high
+     */
+    public static ObservableList<Part> lookupPartsStockedBetween(int low, int high) {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        buildPartLevels().stockedBetween(low, high, id -> partsFound.add(allParts.getById(id)));
+        return partsFound;
+    }
+
+    /**
+     * Finds the parts with stock under their minimum, furthest under first
+     *
+     * @return parts in inventory to reorder
+     */
+    public static ObservableList<Part> lookupPartsUnderMin() {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        buildPartLevels().underMin(id -> partsFound.add(allParts.getById(id)));
+        return partsFound;
+    }
+
+    /**
+     * Finds the parts with the highest stock
+     *
+     * @param count number of parts to find
+     * @return up to count parts in inventory, highest stock first
+     */
+    public static ObservableList<Part> lookupTopPartsByStock(int count) {
+        ObservableList<Part> partsFound = FXCollections.observableArrayList();
+        if (count > 0) {
+            buildPartLevels().byStockDescending(
+                    id -> partsFound.add(allParts.getById(id)) && partsFound.size() < count);
+        }
+        return partsFound;
+    }
+
+    /**
+     * Finds the products priced within a range, cheapest first
+     *
+     * The first price or stock query indexes every product; later queries take O(log n) plus the
+     * number of products found.
+     *
+     * @param low lowest price
+     * @param high highest price
+     * @return products in inventory priced from low to high
+     */
+    public static ObservableList<Product> lookupProductsPricedBetween(double low, double high) {
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        buildProductLevels().pricedBetween(low, high, id -> productsFound.add(allProducts.getById(id)));
+        return productsFound;
+    }
+
+    /**
+     * Finds the products with stock under their minimum, furthest under first
+     *
+     * @return products in inventory to restock
+     */
+    public static ObservableList<Product> lookupProductsUnderMin() {
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        buildProductLevels().underMin(id -> productsFound.add(allProducts.getById(id)));
+        return productsFound;
+    }
+
+    /**
+     * Finds the products with the highest stock
+     *
+     * @param count number of products to find
+     * @return up to count products in inventory, highest stock first
+     */
+    public static ObservableList<Product> lookupTopProductsByStock(int count) {
+        ObservableList<Product> productsFound = FXCollections.observableArrayList();
+        if (count > 0) {
+            buildProductLevels().byStockDescending(
+                    id -> productsFound.add(allProducts.getById(id)) && productsFound.size() < count);
+        }
+        return productsFound;
+    }
+
+    /**
+     * Moves a stored part to its new place in the search, company, machine & level indexes and tells
+     * listeners; called by the part setters
+     *
+     * Only parts held by the inventory count, including views of stored rows such as those a table is
+     * shown, but not detached copies of parts still stored as rows.
+     *
+     * @param part part whose fields changed
+     */
+    static void partFieldsChanged(Part part) {
+        if (allParts.holds(part)) {
+            partSearchIndex.update(part);
+            groupPart(part);
+            indexPartLevels(part);
+            for (InventoryListener listener : listeners) {
+                listener.partChanged(part);
+            }
+        }
+    }
+
+    /**
+     * Moves a stored product to its new place in the search & level indexes and tells listeners;
+     * called by the product setters
+     *
+     * @param product product whose fields changed
+     */
+    static void productFieldsChanged(Product product) {
+        if (allProducts.holds(product)) {
+            productSearchIndex.update(product);
+            indexProductLevels(product);
+            for (InventoryListener listener : listeners) {
+                listener.productChanged(product);
+            }
+        }
+    }
+
+    /**
+     * Refuses to change the ID of a stored part, as the inventory and its indexes are keyed on it;
+     * called by the part ID setters
+     *
+     * Replace the part with {@link #updatePart(int, Part)} to give it a new ID.
+     *
+     * @param part part whose ID is about to change
+     * @throws IllegalStateException if the part is in the inventory
+     */
+    static void partIdChanging(Part part) {
+        if (allParts.holds(part)) {
+            throw new IllegalStateException("Part " + part.getId() + " is in the inventory, so its ID can't change");
+        }
+    }
+
+    /**
+     * Refuses to change the ID of a stored product, as the inventory and its indexes are keyed on it;
+     * called by the product ID setter
+     *
+     * Replace the product with {@link #updateProduct(int, Product)} to give it a new ID.
+     *
+     * @param product product whose ID is about to change
+     * @throws IllegalStateException if the product is in the inventory
+     */
+    static void productIdChanging(Product product) {
+        if (allProducts.holds(product)) {
+            throw new IllegalStateException("Product " + product.getId() + " is in the inventory, so its ID can't change");
+        }
+    }
+
+    private static StockLevelIndex buildPartLevels() {
+        if (partLevels == null) {
+            partLevels = new StockLevelIndex();
+            scanParts(Inventory::indexPartLevels);
+        }
+        return partLevels;
+    }
+
+    private static StockLevelIndex buildProductLevels() {
+        if (productLevels == null) {
+            productLevels = new StockLevelIndex();
+            for (Product product : allProducts) {
+                indexProductLevels(product);
+            }
+        }
+        return productLevels;
+    }
+
+    private static void indexPartLevels(Part part) {
+        if (partLevels != null) {
+            partLevels.put(part.getId(), part.getPrice(), part.getStock(), part.getMin());
+        }
+    }
+
+    private static void unindexPartLevels(Part part) {
+        if (partLevels != null) {
+            partLevels.remove(part.getId());
+        }
+    }
+
+    private static void indexProductLevels(Product product) {
+        if (productLevels != null) {
+            productLevels.put(product.getId(), product.getPrice(), product.getStock(), product.getMin());
+        }
+    }
+
+    private static void unindexProductLevels(Product product) {
+        if (productLevels != null) {
+            productLevels.remove(product.getId());
+        }
+    }
+
+    private static void buildPartGroups() {
+        if (partsByCompany == null) {
+            partsByCompany = new PartGroupIndex();
+            partsByMachine = new PartGroupIndex();
+            companyCodes = new StringDictionary();
+            scanParts(Inventory::groupPart);
+        }
+    }
+
+    private static void dropPartGroups() {
+        partsByCompany = null;
+        partsByMachine = null;
+        companyCodes = null;
+    }
+
+    /** Puts a stored part in the group of its company or machine, once the groups are built */
+    private static void groupPart(Part part) {
+        if (partsByCompany == null) {
+            return;
+        }
+        if (part instanceof Outsourced) {
+            partsByMachine.remove(part.getId());
+            partsByCompany.put(part.getId(), companyCodes.code(((Outsourced) part).getCompanyName()));
+            // codes are never reused, so renamed companies & typos are only dropped with the dictionary
+            if (companyCodes.size() > 2 * partsByCompany.groupCount() + SPARE_COMPANY_CODES) {
+                dropPartGroups();
+            }
+        }
+        else if (part instanceof InHouse) {
+            partsByCompany.remove(part.getId());
+            partsByMachine.put(part.getId(), ((InHouse) part).getMachineId());
+        }
+        else {
+            ungroupPart(part);
+        }
+    }
+
+    private static void ungroupPart(Part part) {
+        if (partsByCompany != null) {
+            partsByCompany.remove(part.getId());
+            partsByMachine.remove(part.getId());
+        }
+    }
+
+    /**
+     * Records a changed part quantity in the where-used index; called by Product
+     *
+     * @param product product whose associated part changed
+     * @param partId ID of associated part
+     * @param oldQuantity units used before, 0 if the part was added
+     * @param quantity units used now, 0 if the part was removed
+     */
+    static void associationChanged(Product product, int partId, int oldQuantity, int quantity) {
+        if (allProducts.holds(product)) {
+            addUsage(productsUsingPart, partId, product.getId(), quantity - oldQuantity);
+            for (InventoryListener listener : listeners) {
+                listener.associationChanged(product, partId, quantity);
+            }
+        }
+    }
+
+    /**
+     * Records a changed component quantity in the component index; called by Product
+     *
+     * @param assembly product whose component changed
+     * @param componentId ID of component product
+     * @param oldQuantity units used before, 0 if the component was added
+     * @param quantity units used now, 0 if the component was removed
+     */
+    static void componentChanged(Product assembly, int componentId, int oldQuantity, int quantity) {
+        if (allProducts.holds(assembly)) {
+            addUsage(assembliesUsingProduct, componentId, assembly.getId(), quantity - oldQuantity);
+            for (InventoryListener listener : listeners) {
+                listener.componentChanged(assembly, componentId, quantity);
+            }
+        }
+    }
+
+    private static void indexAssociations(Product product) {
+        product.forEachAssociatedPart((partId, quantity) ->
+                addUsage(productsUsingPart, partId, product.getId(), quantity));
+        product.forEachComponent((componentId, quantity) ->
+                addUsage(assembliesUsingProduct, componentId, product.getId(), quantity));
+    }
+
+    private static void unindexAssociations(Product product) {
+        product.forEachAssociatedPart((partId, quantity) ->
+                addUsage(productsUsingPart, partId, product.getId(), -quantity));
+        product.forEachComponent((componentId, quantity) ->
+                addUsage(assembliesUsingProduct, componentId, product.getId(), -quantity));
+    }
+
+    /** Adds to the count of a user in a reverse index, dropping users & keys whose count reaches 0 */
+    private static void addUsage(IntMap<IntIntMap> index, int usedId, int userId, int delta) {
+        IntIntMap users = index.get(usedId);
+        if (users == null) {
+            users = new IntIntMap(4);
+            index.put(usedId, users);
+        }
+        if (users.addTo(userId, delta) <= 0) {
+            users.remove(userId);
+            if (users.isEmpty()) {
+                index.remove(usedId);
+            }
+        }
+    }
+
+    /**
+     * Starts a transaction that sees the inventory as it is now and changes several parts & products as
+     * one change; may be called from any thread
+     *
+     * @return open transaction
+     */
+    public static InventoryTransaction beginTransaction() {return new InventoryTransaction();}
+
+    /**
+     * Commits a transaction and applies its changes at once, along with every change queued before it;
+     * must be called on the thread owning the inventory
+     *
+     * @param transaction transaction to commit
+     * @return true if committed, false if nothing was changed because a part or product the transaction
+     * read or changed was changed since it started
+     */
+    public static boolean commit(InventoryTransaction transaction) {
+        if (!transaction.commit()) {
+            return false;
+        }
+        ConcurrentInventory.flush();
+        return true;
+    }
+
+    /**
+     * Gets the version stamp of a part, which grows with every change to the part
+     *
+     * Record it when a part is read for editing and check it when saving, rather than keeping a
+     * transaction open meanwhile.
+     *
+     * @param partId ID of part
+     * @return stamp of the last change to the part, or of the last load of parts from stored rows if
+     * the part is one of them and unchanged since; 0 if there was neither
+     */
+    public static long getPartVersion(int partId) {return InventoryVersions.PARTS.stampOf(partId);}
+
+    /**
+     * Gets the version stamp of a product, which grows with every change to the product, including
+     * its associated parts & components
+     *
+     * @param productId ID of product
+     * @return stamp of the last change to the product, or 0 if it was never stored
+     */
+    public static long getProductVersion(int productId) {return InventoryVersions.PRODUCTS.stampOf(productId);}
+
+    /**
+     * Registers a listener to be told about inventory changes
+     *
+     * @param listener listener to add
+     */
+    public static void addListener(InventoryListener listener) {listeners.add(listener);}
+
+    /**
+     * Unregisters an inventory listener
+     *
+     * @param listener listener to remove
+     */
+    public static void removeListener(InventoryListener listener) {listeners.remove(listener);}
+
     /**
      * Gets a list of all parts
      * @return list of all parts
@@ -167,6 +997,18 @@ public class Inventory {
      */
     public static ObservableList<Product> getAllProducts(){return allProducts;}
 
+    /**
+     * Gets a read-only view of all parts for TableViews; only the rows being shown are kept in memory
+     * @return paged view of all parts
+     */
+    public static ObservableList<Part> getPartsView() {return partsView;}
+
+    /**
+     * Gets a read-only view of all products for TableViews; only the rows being shown are kept in memory
+     * @return paged view of all products
+     */
+    public static ObservableList<Product> getProductsView() {return productsView;}
+
 
 
 }
@@ -0,0 +1,228 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates large, realistic inventories for load tests and benchmarks
+ *
+ * Output depends only on the seed and settings (and on the IDs the inventory hands out, so start
+ * from the same inventory to get the same data). Part and product names combine words picked with a
+ * Zipf distribution, so a few names are common and most are rare, like a real catalogue; company
+ * names are picked the same way. Items are built and added in chunks, so only one chunk exists
+ * outside the inventory at a time, or parts can be written straight into a {@link PartColumns} store.
+ *
+ * @author Ella Upchurch
+ */
+public class InventoryGenerator {
+    private static final int CHUNK_SIZE = 10_000;
+
+    private static final String[] PART_WORDS = {
+            "Bolt", "Nut", "Washer", "Gear", "Bearing", "Spring", "Wheel", "Brake", "Seat", "Chain",
+            "Pedal", "Frame", "Fork", "Spoke", "Rim", "Tire", "Tube", "Valve", "Cable", "Lever",
+            "Bracket", "Hinge", "Clamp", "Sprocket", "Axle", "Shaft", "Pulley", "Belt", "Gasket", "Seal",
+            "Filter", "Hose", "Fitting", "Rivet", "Screw", "Pin", "Panel", "Housing", "Cover", "Mount"};
+    private static final String[] PRODUCT_WORDS = {
+            "Bike", "Tricycle", "Scooter", "Cart", "Wagon", "Skateboard", "Trailer", "Stroller",
+            "Unicycle", "Tandem", "Go-Kart", "Wheelbarrow"};
+    private static final String[] MODIFIERS = {
+            "Steel", "Aluminum", "Front", "Rear", "Rubber", "Carbon", "Heavy-Duty", "Compact", "Brass",
+            "Left", "Right", "Titanium", "Standard", "Mini", "Sport", "Touring", "Mountain", "Road",
+            "Folding", "Electric", "Classic", "Pro", "Junior", "Cargo"};
+    private static final String[] COMPANIES = {
+            "The Seat Company", "Acme Parts", "Northwind Supply", "Summit Components", "Riverside Metals",
+            "Pioneer Industrial", "Keystone Fasteners", "Atlas Manufacturing", "Harbor Rubber Works",
+            "Granite Tool & Die", "Evergreen Cycles", "Blue Ridge Castings", "Lakeside Springs",
+            "Ironclad Bearings", "Meridian Plastics", "Cascade Cable Co."};
+
+    private final long seed;
+    private int partCount = 1_000;
+    private int productCount = 100;
+    private double outsourcedShare = 0.3;
+    private int minFanOut = 1;
+    private int maxFanOut = 8;
+    private double nameSkew = 1.1;
+    private boolean columnar;
+
+    /**
+     * Creates a generator
+     *
+     * @param seed seed of the random numbers; the same seed and settings give the same inventory
+     */
+    public InventoryGenerator(long seed) {this.seed = seed;}
+
+    /** Sets the number of parts to generate
+     * @param partCount number of parts
+     * @return this generator
+     */
+    public InventoryGenerator setPartCount(int partCount) {
+        this.partCount = partCount;
+        return this;
+    }
+
+    /** Sets the number of products to generate
+     * @param productCount number of products
+     * @return this generator
+     */
+    public InventoryGenerator setProductCount(int productCount) {
+        this.productCount = productCount;
+        return this;
+    }
+
+    /** Sets the share of parts that are outsourced rather than in-house
+     * @param outsourcedShare share between 0 and 1
+     * @return this generator
+     */
+    public InventoryGenerator setOutsourcedShare(double outsourcedShare) {
+        this.outsourcedShare = outsourcedShare;
+        return this;
+    }
+
+    /** Sets how many parts are associated with each product, picked evenly between min and max
+     * @param minFanOut fewest associated parts
+     * @param maxFanOut most associated parts
+     * @return this generator
+     */
+    public InventoryGenerator setFanOut(int minFanOut, int maxFanOut) {
+        if (minFanOut < 0 || maxFanOut < minFanOut) {
+            throw new IllegalArgumentException("Invalid fan-out " + minFanOut + ".." + maxFanOut);
+        }
+        this.minFanOut = minFanOut;
+        this.maxFanOut = maxFanOut;
+        return this;
+    }
+
+    /** Sets how skewed name & company picks are; 0 picks evenly, higher values favor the first words more
+     * @param nameSkew Zipf exponent
+     * @return this generator
+     */
+    public InventoryGenerator setNameSkew(double nameSkew) {
+        this.nameSkew = nameSkew;
+        return this;
+    }
+
+    /** Sets whether parts are generated into a {@link PartColumns} store loaded with
+     * {@link Inventory#loadParts(RowSource)}, instead of being added as Part objects; the inventory must
+     * have no parts then
+     * @param columnar true to store parts in columns
+     * @return this generator
+     */
+    public InventoryGenerator setColumnar(boolean columnar) {
+        this.columnar = columnar;
+        return this;
+    }
+
+    /**
+     * Generates the parts, then the products, adding them to the inventory; must be called on the
+     * thread owning the inventory
+     *
+     * Products are associated with random generated parts, so parts must be generated when
+     * products are.
+     */
+    public void generate() {
+        SplittableRandom random = new SplittableRandom(seed);
+        int firstPartId = Inventory.getNewPartId();
+        generateParts(random.split(), firstPartId);
+        generateProducts(random.split(), firstPartId);
+    }
+
+    private void generateParts(SplittableRandom random, int firstPartId) {
+        ZipfPicker modifiers = new ZipfPicker(MODIFIERS.length, nameSkew);
+        ZipfPicker words = new ZipfPicker(PART_WORDS.length, nameSkew);
+        ZipfPicker companies = new ZipfPicker(COMPANIES.length, nameSkew);
+        PartColumns columns = columnar ? new PartColumns(partCount) : null;
+        List<Part> chunk = new ArrayList<>(columnar ? 0 : Math.min(CHUNK_SIZE, partCount));
+        for (int i = 0; i < partCount; i++) {
+            // the first ID was reserved by generate, later ones are handed out here
+            int id = i == 0 ? firstPartId : Inventory.getNewPartId();
+            String name = MODIFIERS[modifiers.pick(random)] + " " + PART_WORDS[words.pick(random)];
+            double price = Math.round(Math.exp(2.5 + random.nextGaussian()) * 100) / 100.0;
+            int min = 1 + random.nextInt(10);
+            int max = min + 10 + random.nextInt(490);
+            int stock = random.nextInt(min, max + 1);
+            if (random.nextDouble() < outsourcedShare) {
+                String companyName = COMPANIES[companies.pick(random)];
+                if (columnar) {
+                    columns.addOutsourced(id, name, price, stock, min, max, companyName);
+                }
+                else {
+                    chunk.add(new Outsourced(id, name, price, stock, min, max, companyName));
+                }
+            }
+            else {
+                int machineId = 100 + random.nextInt(900);
+                if (columnar) {
+                    columns.addInHouse(id, name, price, stock, min, max, machineId);
+                }
+                else {
+                    chunk.add(new InHouse(id, name, price, stock, min, max, machineId));
+                }
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                Inventory.addParts(chunk);
+                chunk.clear();
+            }
+        }
+        if (columnar) {
+            Inventory.loadParts(columns);
+        }
+        else {
+            Inventory.addParts(chunk);
+        }
+    }
+
+    private void generateProducts(SplittableRandom random, int firstPartId) {
+        ZipfPicker modifiers = new ZipfPicker(MODIFIERS.length, nameSkew);
+        ZipfPicker words = new ZipfPicker(PRODUCT_WORDS.length, nameSkew);
+        List<Product> chunk = new ArrayList<>(Math.min(CHUNK_SIZE, productCount));
+        for (int i = 0; i < productCount; i++) {
+            String name = MODIFIERS[modifiers.pick(random)] + " " + PRODUCT_WORDS[words.pick(random)];
+            int min = 1 + random.nextInt(5);
+            int max = min + 5 + random.nextInt(195);
+            Product product = new Product(Inventory.getNewProductId(), name, 0, random.nextInt(min, max + 1), min, max);
+
+            // associate before adding, so the product is stored & journaled once with its parts
+            double partsPrice = 0;
+            int fanOut = partCount == 0 ? 0 : random.nextInt(minFanOut, maxFanOut + 1);
+            for (int j = 0; j < fanOut; j++) {
+                Part part = Inventory.lookupPart(firstPartId + random.nextInt(partCount));
+                if (part != null) {
+                    product.addAssociatedPart(part);
+                    partsPrice += part.getPrice();
+                }
+            }
+            product.setPrice(Math.round(Math.max(partsPrice * 1.3, 9.99) * 100) / 100.0);
+
+            chunk.add(product);
+            if (chunk.size() == CHUNK_SIZE) {
+                Inventory.addProducts(chunk);
+                chunk.clear();
+            }
+        }
+        Inventory.addProducts(chunk);
+    }
+
+    /** Picks indexes 0..n-1 with Zipf weights 1/(k+1)^skew */
+    private static class ZipfPicker {
+        private final double[] cumulative;
+
+        ZipfPicker(int n, double skew) {
+            cumulative = new double[n];
+            double total = 0;
+            for (int k = 0; k < n; k++) {
+                total += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = total;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= total;
+            }
+        }
+
+        int pick(SplittableRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package model;
+
+/**
+ * This interface is notified when the contents of the inventory change
+ *
+ * Listeners are registered with {@link Inventory#addListener(InventoryListener)} and are called on
+ * the thread that changed the inventory, after the change has been applied. Every method has an
+ * empty default so a listener only implements the events it needs.
+ *
+ * @author Ella Upchurch
+ */
+public interface InventoryListener {
+
+    /**
+     * Called when a part is added or replaces a part with the same ID
+     *
+     * @param newPart part now in inventory
+     * @param oldPart replaced part, or null if the part was added
+     */
+    default void partStored(Part newPart, Part oldPart) {}
+
+    /**
+     * Called when a stored part's name, price, stock, min, max, machine ID or company name is
+     * changed through its setter
+     *
+     * @param part changed part
+     */
+    default void partChanged(Part part) {}
+
+    /**
+     * Called when parts are loaded from stored rows by {@link Inventory#loadParts(RowSource)}; the
+     * loaded parts are not passed to partStored
+     *
+     * @param rows loaded parts
+     */
+    default void partsLoaded(RowSource<Part> rows) {}
+
+    /**
+     * Called when a part is deleted
+     *
+     * @param oldPart deleted part
+     */
+    default void partRemoved(Part oldPart) {}
+
+    /**
+     * Called when a product is added or replaces a product with the same ID
+     *
+     * @param newProduct product now in inventory
+     * @param oldProduct replaced product, or null if the product was added
+     */
+    default void productStored(Product newProduct, Product oldProduct) {}
+
+    /**
+     * Called when a stored product's name, price, stock, min or max is changed through its setter
+     *
+     * @param product changed product
+     */
+    default void productChanged(Product product) {}
+
+    /**
+     * Called when a product is deleted
+     *
+     * @param oldProduct deleted product
+     */
+    default void productRemoved(Product oldProduct) {}
+
+    /**
+     * Called when a product in inventory starts or stops using a part, or uses a different number of
+     * units of it
+     *
+     * @param product product whose associated part changed
+     * @param partId ID of associated part
+     * @param quantity units now used per unit of the product, 0 if the part was removed
+     */
+    default void associationChanged(Product product, int partId, int quantity) {}
+
+    /**
+     * Called when a product in inventory starts or stops using another product as a component, or
+     * uses a different number of units of it
+     *
+     * @param assembly product whose component changed
+     * @param componentId ID of component product
+     * @param quantity units now used per unit of the assembly, 0 if the component was removed
+     */
+    default void componentChanged(Product assembly, int componentId, int quantity) {}
+}
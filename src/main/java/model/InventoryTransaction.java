@@ -0,0 +1,316 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class creates a transaction that reads and changes several parts & products as one change
+ *
+ * A transaction is started by {@link Inventory#beginTransaction()} on any thread and sees the inventory
+ * as it was at that moment: lookups return the transaction's own copies of parts & products as of its
+ * start, plus its own changes, whatever is committed meanwhile. Changes are kept in the transaction
+ * until commit, which checks that no part or product it read or changed was changed by anyone else
+ * since it started. If none was, its changes all get one version stamp and are applied to
+ * {@link Inventory} together, in one task on the thread owning the inventory; otherwise nothing is
+ * changed and commit returns false, so the caller can start over with fresh data.
+ *
+ * Checking at commit takes no global lock, so transactions on different items never wait on each
+ * other, and a transaction that only reads sees one consistent snapshot; its commit tells whether it
+ * could be given one. A transaction must end with commit or rollback, as older versions are kept for it
+ * while it is open, and must only be used by one thread at a time.
+ *
+ * @author Ella Upchurch
+ */
+public final class InventoryTransaction implements AutoCloseable {
+    /** stamp of the last change visible to this transaction */
+    private final long stamp;
+    private boolean open = true;
+    /** true once an item couldn't be read as of the stamp, so the transaction can't commit */
+    private boolean stale;
+
+    /** IDs of the items read, for the check at commit */
+    private final IntIntMap partsRead = new IntIntMap();
+    private final IntIntMap productsRead = new IntIntMap();
+    /** copies of the items read, handed out by the lookups */
+    private final IntMap<Part> partCopies = new IntMap<>();
+    private final IntMap<Product> productCopies = new IntMap<>();
+    /** items to store, by ID, and IDs of items to delete */
+    private final IntMap<Part> partsStored = new IntMap<>();
+    private final IntIntMap partsDeleted = new IntIntMap();
+    private final IntMap<Product> productsStored = new IntMap<>();
+    private final IntIntMap productsDeleted = new IntIntMap();
+
+    InventoryTransaction() {stamp = InventoryVersions.open();}
+
+    /**
+     * Searches for parts by ID, as of the start of the transaction
+     *
+     * @param partId ID of part
+     * @return the transaction's copy of the part, or the part it stores; null if there is none
+     */
+    public Part lookupPart(int partId) {
+        checkOpen();
+        Part stored = partsStored.get(partId);
+        if (stored != null || partsDeleted.containsKey(partId)) {
+            return stored;
+        }
+        Part copy = partCopies.get(partId);
+        return copy != null ? copy : read(InventoryVersions.PARTS, partId, partsRead, partCopies);
+    }
+
+    /**
+     * Searches for products by ID, as of the start of the transaction
+     *
+     * @param productId ID of product
+     * @return the transaction's copy of the product, or the product it stores; null if there is none
+     */
+    public Product lookupProduct(int productId) {
+        checkOpen();
+        Product stored = productsStored.get(productId);
+        if (stored != null || productsDeleted.containsKey(productId)) {
+            return stored;
+        }
+        Product copy = productCopies.get(productId);
+        return copy != null ? copy : read(InventoryVersions.PRODUCTS, productId, productsRead, productCopies);
+    }
+
+    /** Adds a part on commit, replacing any part with the same ID
+     * @param newPart part to add
+     */
+    public void addPart(Part newPart) {
+        checkOpen();
+        partsDeleted.remove(newPart.getId());
+        partsStored.put(newPart.getId(), newPart);
+    }
+
+    /**
+     * replaces the part that has the same ID on commit
+     *
+     * @param selectedPart replacing part
+     * @return boolean that indicates if there is a part to replace
+     */
+    public boolean updatePart(Part selectedPart) {
+        if (lookupPart(selectedPart.getId()) == null) {
+            return false;
+        }
+        addPart(selectedPart);
+        return true;
+    }
+
+    /**
+     * removes the part with an ID on commit
+     *
+     * @param partId ID of part to delete
+     * @return boolean that indicates if there is a part to delete
+     */
+    public boolean deletePart(int partId) {
+        if (lookupPart(partId) == null) {
+            return false;
+        }
+        partsStored.remove(partId);
+        partsDeleted.put(partId, 0);
+        return true;
+    }
+
+    /** Adds a product on commit, replacing any product with the same ID
+     * @param newProduct product to add
+     */
+    public void addProduct(Product newProduct) {
+        checkOpen();
+        productsDeleted.remove(newProduct.getId());
+        productsStored.put(newProduct.getId(), newProduct);
+    }
+
+    /**
+     * replaces the product that has the same ID on commit
+     *
+     * @param selectedProduct replacing product
+     * @return boolean that indicates if there is a product to replace
+     */
+    public boolean updateProduct(Product selectedProduct) {
+        if (lookupProduct(selectedProduct.getId()) == null) {
+            return false;
+        }
+        addProduct(selectedProduct);
+        return true;
+    }
+
+    /**
+     * removes the product with an ID on commit
+     *
+     * @param productId ID of product to delete
+     * @return boolean that indicates if there is a product to delete
+     */
+    public boolean deleteProduct(int productId) {
+        if (lookupProduct(productId) == null) {
+            return false;
+        }
+        productsStored.remove(productId);
+        productsDeleted.put(productId, 0);
+        return true;
+    }
+
+    /**
+     * Commits the transaction if nothing it read or changed was changed since it started, and ends it
+     *
+     * May be called from any thread; the changes reach {@link Inventory} through
+     * {@link ConcurrentInventory}'s queue. On the thread owning the inventory,
+     * {@link Inventory#commit(InventoryTransaction)} applies them at once.
+     *
+     * @return true if committed, false if nothing was changed because of a conflicting change
+     */
+    public boolean commit() {
+        checkOpen();
+        open = false;
+        try {
+            return !stale && validateAndInstall();
+        }
+        finally {
+            InventoryVersions.close(stamp);
+        }
+    }
+
+    /** Ends the transaction without changing anything */
+    public void rollback() {
+        if (open) {
+            open = false;
+            InventoryVersions.close(stamp);
+        }
+    }
+
+    /** Rolls the transaction back unless it was committed */
+    @Override
+    public void close() {rollback();}
+
+    /**
+     * Checks if the transaction is still open
+     *
+     * @return true until the transaction is committed or rolled back
+     */
+    public boolean isOpen() {return open;}
+
+    private void checkOpen() {
+        if (!open) {
+            throw new IllegalStateException("Transaction is already committed or rolled back");
+        }
+    }
+
+    /** Reads an item as of the stamp, marking the transaction stale if that state was not kept */
+    private <T> T read(InventoryVersions.Store<T> store, int id, IntIntMap read, IntMap<T> copies) {
+        read.put(id, 0);
+        Object state = store.stateAt(id, stamp);
+        if (state == InventoryVersions.NOT_KEPT) {
+            stale = true;
+            state = store.stateAt(id, Long.MAX_VALUE);
+        }
+        if (state == null) {
+            return null;
+        }
+        T copy = store.copy(state);
+        copies.put(id, copy);
+        return copy;
+    }
+
+    /** Checks and installs the changes under the locks of every item involved */
+    private boolean validateAndInstall() {
+        IntList lockIndexes = new IntList();
+        partsRead.forEach((id, unused) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PARTS, id)));
+        partsStored.forEach((id, part) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PARTS, id)));
+        partsDeleted.forEach((id, unused) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PARTS, id)));
+        productsRead.forEach((id, unused) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PRODUCTS, id)));
+        productsStored.forEach((id, product) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PRODUCTS, id)));
+        productsDeleted.forEach((id, unused) -> lockIndexes.add(InventoryVersions.lockOf(InventoryVersions.PRODUCTS, id)));
+        lockIndexes.sortDistinct();
+        int[] locks = lockIndexes.toArray();
+
+        InventoryVersions.lock(locks);
+        try {
+            boolean[] changed = new boolean[1];
+            IntIntMap.EntryConsumer checkPart = (id, unused) -> changed[0] |= InventoryVersions.PARTS.stampOf(id) > stamp;
+            IntIntMap.EntryConsumer checkProduct = (id, unused) -> changed[0] |= InventoryVersions.PRODUCTS.stampOf(id) > stamp;
+            partsRead.forEach(checkPart);
+            partsDeleted.forEach(checkPart);
+            partsStored.forEach((id, part) -> checkPart.accept(id, 0));
+            productsRead.forEach(checkProduct);
+            productsDeleted.forEach(checkProduct);
+            productsStored.forEach((id, product) -> checkProduct.accept(id, 0));
+            if (changed[0]) {
+                return false;
+            }
+            if (partsStored.isEmpty() && partsDeleted.isEmpty() && productsStored.isEmpty() && productsDeleted.isEmpty()) {
+                return true;
+            }
+
+            List<InventoryVersions.Pending<Part>> partVersions = new ArrayList<>();
+            List<InventoryVersions.Pending<Product>> productVersions = new ArrayList<>();
+            partsStored.forEach((id, part) -> partVersions.add(InventoryVersions.PARTS.prepare(id, part)));
+            partsDeleted.forEach((id, unused) -> partVersions.add(InventoryVersions.PARTS.prepare(id, null)));
+            productsStored.forEach((id, product) -> productVersions.add(InventoryVersions.PRODUCTS.prepare(id, product)));
+            productsDeleted.forEach((id, unused) -> productVersions.add(InventoryVersions.PRODUCTS.prepare(id, null)));
+            List<InventoryVersions.Version<?>> installed = new ArrayList<>(partVersions.size() + productVersions.size());
+            long commitStamp = InventoryVersions.nextStamp();
+            try {
+                for (InventoryVersions.Pending<Part> version : partVersions) {
+                    installed.add(InventoryVersions.PARTS.install(version, commitStamp));
+                }
+                for (InventoryVersions.Pending<Product> version : productVersions) {
+                    installed.add(InventoryVersions.PRODUCTS.install(version, commitStamp));
+                }
+            }
+            finally {
+                InventoryVersions.publish(commitStamp);
+            }
+            for (InventoryVersions.Pending<Part> version : partVersions) {
+                InventoryVersions.PARTS.prune(version.id);
+            }
+            for (InventoryVersions.Pending<Product> version : productVersions) {
+                InventoryVersions.PRODUCTS.prune(version.id);
+            }
+            // queued under the locks, so commits of the same items reach the inventory in stamp order
+            List<Part> newParts = new ArrayList<>(partsStored.size());
+            List<Product> newProducts = new ArrayList<>(productsStored.size());
+            partsStored.forEachValue(newParts::add);
+            productsStored.forEachValue(newProducts::add);
+            int[] oldPartIds = idsOf(partsDeleted);
+            int[] oldProductIds = idsOf(productsDeleted);
+            Runnable changes = changes(newParts, oldPartIds, newProducts, oldProductIds);
+            ConcurrentInventory.publish(newParts, oldPartIds, newProducts, oldProductIds,
+                    () -> InventoryVersions.apply(installed, changes));
+            return true;
+        }
+        finally {
+            InventoryVersions.unlock(locks);
+        }
+    }
+
+    /** Builds the task applying the changes to the inventory; parts are stored before the products using them */
+    private static Runnable changes(List<Part> newParts, int[] oldPartIds, List<Product> newProducts,
+                                    int[] oldProductIds) {
+        return () -> {
+            if (!newParts.isEmpty()) {
+                Inventory.addParts(newParts);
+            }
+            if (!newProducts.isEmpty()) {
+                Inventory.addProducts(newProducts);
+            }
+            for (int id : oldProductIds) {
+                Product oldProduct = Inventory.lookupProduct(id);
+                if (oldProduct != null) {
+                    Inventory.deleteProduct(oldProduct);
+                }
+            }
+            for (int id : oldPartIds) {
+                Part oldPart = Inventory.lookupPart(id);
+                if (oldPart != null) {
+                    Inventory.deletePart(oldPart);
+                }
+            }
+        };
+    }
+
+    private static int[] idsOf(IntIntMap map) {
+        IntList ids = new IntList(map.size());
+        map.forEach((id, unused) -> ids.add(id));
+        return ids.toArray();
+    }
+}
@@ -0,0 +1,513 @@
+package model;
+
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class keeps version stamps and recent versions of parts & products for {@link InventoryTransaction}s
+ *
+ * Every change to a part or product, whether committed by a transaction or made directly through
+ * {@link Inventory}, gets the next stamp of one clock, and each item keeps the stamp of its last change,
+ * so commits can tell whether an item changed since a transaction started. Copies of items are only
+ * kept while transactions are open: a transaction reading an item unchanged since it started gets a
+ * copy made on the inventory thread, and while any transaction is open, changes keep the state they
+ * replace, newest first, so a transaction reading as of the stamp it started at sees the inventory as
+ * it was then. Older versions are dropped once no open transaction started before the next one, and
+ * every copy is dropped once the last transaction ends, leaving only the stamps.
+ *
+ * Changes to one item are ordered by lock stripes instead of one lock: a commit locks the stripes of the
+ * items it read or wrote, in a fixed order, checks their stamps and installs its versions. The clock
+ * only moves past a stamp once every earlier stamp's versions are installed, so a transaction starting
+ * at the clock sees each commit whole or not at all; whichever change finishes a run of stamps moves
+ * the clock past it, so no change waits for another.
+ *
+ * An item without a stamp was never stored, or is a part loaded from stored rows since; those parts are
+ * read from their rows. A change made in place keeps no copy of the item's earlier state, so
+ * transactions that started before the change and hadn't read the item can't see its earlier state;
+ * they are told so, and fail to commit. A read racing a setter on a loaded part may see the change a
+ * moment before its stamp is given out.
+ *
+ * @author Ella Upchurch
+ */
+final class InventoryVersions {
+    private static final int STRIPES = 64;
+
+    static final Store<Part> PARTS =
+            new Store<>(0, ConcurrentInventory::lookupLoadedPart, Inventory::lookupPart, InventoryVersions::copyOf);
+    /** products are never loaded from rows, so a product without a stamp was never stored */
+    static final Store<Product> PRODUCTS =
+            new Store<>(STRIPES, productId -> null, Inventory::lookupProduct, Product::copy);
+
+    /** state of a version whose copy was not kept, or was dropped */
+    static final Object NOT_KEPT = new Object();
+
+    /** part stripes followed by product stripes; always locked in index order */
+    private static final ReentrantLock[] locks = new ReentrantLock[2 * STRIPES];
+    /** last stamp given out */
+    private static final AtomicLong lastStamp = new AtomicLong();
+    /** last stamp whose versions, and those of every earlier stamp, are installed */
+    private static final AtomicLong clock = new AtomicLong();
+    /** stamps given out whose versions are installed, but not yet passed by the clock */
+    private static final ConcurrentSkipListSet<Long> finishedStamps = new ConcurrentSkipListSet<>();
+    /** stamps open transactions started at, with the number of transactions open at each */
+    private static final ConcurrentSkipListMap<Long, Integer> openStamps = new ConcurrentSkipListMap<>();
+    /** versions holding copies, dropped once no transaction is open */
+    private static final ConcurrentLinkedQueue<Version<?>> keptVersions = new ConcurrentLinkedQueue<>();
+    /** thread the inventory was last changed on, when a publisher replaces the JavaFX thread */
+    private static volatile Thread inventoryThread;
+
+    static {
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private InventoryVersions() {}
+
+    /**
+     * Starts stamping inventory changes; called once by Inventory as it is initialized, so every item
+     * gets its first stamp on the inventory thread as it is stored
+     */
+    static void startStamping() {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {PARTS.stored(newPart.getId(), newPart, oldPart);}
+
+            @Override
+            public void partChanged(Part part) {PARTS.changed(part.getId());}
+
+            @Override
+            public void partsLoaded(RowSource<Part> rows) {PARTS.reload();}
+
+            @Override
+            public void partRemoved(Part oldPart) {PARTS.removed(oldPart.getId(), oldPart);}
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {
+                PRODUCTS.stored(newProduct.getId(), newProduct, oldProduct);
+            }
+
+            @Override
+            public void productChanged(Product product) {PRODUCTS.changed(product.getId());}
+
+            @Override
+            public void productRemoved(Product oldProduct) {PRODUCTS.removed(oldProduct.getId(), oldProduct);}
+
+            @Override
+            public void associationChanged(Product product, int partId, int quantity) {
+                PRODUCTS.changed(product.getId());
+            }
+
+            @Override
+            public void componentChanged(Product assembly, int componentId, int quantity) {
+                PRODUCTS.changed(assembly.getId());
+            }
+        });
+    }
+
+    /**
+     * Opens a transaction at the current stamp, holding back the versions it may read
+     *
+     * @return stamp to read as of
+     */
+    static long open() {
+        while (true) {
+            long stamp = clock.get();
+            openStamps.merge(stamp, 1, Integer::sum);
+            // a commit that moved the clock meanwhile may have dropped versions before it saw this stamp
+            if (clock.get() == stamp) {
+                return stamp;
+            }
+            close(stamp);
+        }
+    }
+
+    /**
+     * Closes a transaction opened at a stamp, dropping every copy once no transaction is open
+     *
+     * @param stamp stamp returned by open
+     */
+    static void close(long stamp) {
+        openStamps.computeIfPresent(stamp, (open, count) -> count == 1 ? null : count - 1);
+        if (openStamps.isEmpty()) {
+            dropCopies();
+        }
+    }
+
+    /** Gets the index of the lock stripe guarding the changes to an item
+     * @param store store of the item
+     * @param id ID of the item
+     * @return lock index
+     */
+    static int lockOf(Store<?> store, int id) {return store.lockBase + ((id * 0x9E3779B9) >>> 26);}
+
+    /**
+     * Locks stripes in index order
+     *
+     * @param lockIndexes lock indexes, ascending and distinct
+     */
+    static void lock(int[] lockIndexes) {
+        for (int lockIndex : lockIndexes) {
+            locks[lockIndex].lock();
+        }
+    }
+
+    /**
+     * Unlocks stripes locked by lock
+     *
+     * @param lockIndexes lock indexes
+     */
+    static void unlock(int[] lockIndexes) {
+        for (int i = lockIndexes.length - 1; i >= 0; i--) {
+            locks[lockIndexes[i]].unlock();
+        }
+    }
+
+    /** Gives out the next stamp; it must be passed to publish once its versions are installed
+     * @return new stamp
+     */
+    static long nextStamp() {return lastStamp.incrementAndGet();}
+
+    /**
+     * Marks a stamp's versions installed, moving the clock past every stamp whose earlier stamps are
+     * all installed; never waits for changes holding earlier stamps
+     *
+     * @param stamp stamp whose versions are installed
+     */
+    static void publish(long stamp) {
+        finishedStamps.add(stamp);
+        while (true) {
+            long current = clock.get();
+            // only the caller taking the next stamp out of the set moves the clock to it
+            if (!finishedStamps.remove(current + 1)) {
+                return;
+            }
+            clock.set(current + 1);
+        }
+    }
+
+    /**
+     * Applies a commit's changes to the inventory; must be called on the thread owning the inventory
+     *
+     * Until a commit is applied, changes to its items arriving from the inventory are not versioned:
+     * they are its own changes, or changes made directly to items it is about to replace, which the
+     * inventory loses when it is applied as well.
+     *
+     * @param versions versions installed by the commit
+     * @param changes task changing the inventory
+     */
+    static void apply(List<Version<?>> versions, Runnable changes) {
+        try {
+            changes.run();
+        }
+        finally {
+            for (Version<?> version : versions) {
+                version.pending = false;
+            }
+            if (openStamps.isEmpty()) {
+                dropCopies();
+            }
+        }
+    }
+
+    /** Drops the copies kept for transactions, except those of commits not yet applied */
+    private static void dropCopies() {
+        List<Version<?>> pending = new ArrayList<>();
+        Version<?> version;
+        while ((version = keptVersions.poll()) != null) {
+            if (version.pending) {
+                pending.add(version);
+            }
+            else {
+                version.state = NOT_KEPT;
+                version.older = null;
+            }
+        }
+        keptVersions.addAll(pending);
+    }
+
+    /** Checks if the calling thread owns the inventory, so copies of live items can be made on it */
+    private static boolean onInventoryThread() {
+        return ConcurrentInventory.publishesToJavaFx()
+                ? Platform.isFxApplicationThread() : Thread.currentThread() == inventoryThread;
+    }
+
+    private static long oldestOpenStamp() {
+        Map.Entry<Long, Integer> oldest = openStamps.firstEntry();
+        return oldest != null ? oldest.getKey() : Long.MAX_VALUE;
+    }
+
+    private static Part copyOf(Part part) {
+        if (part instanceof Outsourced) {
+            return new Outsourced(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+                    part.getMax(), ((Outsourced) part).getCompanyName());
+        }
+        int machineId = part instanceof InHouse ? ((InHouse) part).getMachineId() : 0;
+        return new InHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+                part.getMax(), machineId);
+    }
+
+    /** One item as of a stamp */
+    static final class Version<T> {
+        final long stamp;
+        /** copy of the item, null if there was no item with the ID, or NOT_KEPT */
+        volatile Object state;
+        /** true from a commit until the commit is applied to the inventory */
+        volatile boolean pending;
+        volatile Version<T> older;
+
+        Version(long stamp, Object state, boolean pending, Version<T> older) {
+            this.stamp = stamp;
+            this.state = state;
+            this.pending = pending;
+            this.older = older;
+            if (state != NOT_KEPT) {
+                keptVersions.add(this);
+            }
+        }
+    }
+
+    /** Versions of one kind of item, by ID */
+    static final class Store<T> {
+        private final int lockBase;
+        /** gets an item without a stamp, as of the base stamp: a loaded row, or null */
+        private final IntFunction<T> base;
+        /** gets the item stored in the inventory; only called on the inventory thread */
+        private final IntFunction<T> current;
+        private final UnaryOperator<T> copier;
+        /** newest version of each item stored or changed since the base stamp */
+        private final StripedIntMap<Version<T>> heads = new StripedIntMap<>(STRIPES);
+        /** stamp of the items that have no versions: 0, or the stamp parts were last loaded from rows at */
+        private volatile long baseStamp;
+
+        private Store(int lockBase, IntFunction<T> base, IntFunction<T> current, UnaryOperator<T> copier) {
+            this.lockBase = lockBase;
+            this.base = base;
+            this.current = current;
+            this.copier = copier;
+        }
+
+        /**
+         * Copies an item read from its versions
+         *
+         * @param state state read by stateAt, other than null or NOT_KEPT
+         * @return unstored copy
+         */
+        @SuppressWarnings("unchecked")
+        T copy(Object state) {return copier.apply((T) state);}
+
+        /**
+         * Gets the stamp of the last change to an item
+         *
+         * @param id ID of the item
+         * @return stamp
+         */
+        long stampOf(int id) {
+            Version<T> head = heads.get(id);
+            return head != null ? head.stamp : baseStamp;
+        }
+
+        /**
+         * Gets an item as of a stamp, copying it on the inventory thread if it hasn't changed since;
+         * the caller's transaction must be open
+         *
+         * @param id ID of the item
+         * @param stamp stamp to read as of
+         * @return copy of the item, null if there was none, or NOT_KEPT if the item's state as of the
+         * stamp was not kept
+         */
+        Object stateAt(int id, long stamp) {
+            while (true) {
+                Version<T> head = heads.get(id);
+                if (head == null) {
+                    if (baseStamp > stamp) {
+                        return NOT_KEPT;
+                    }
+                    T item = base.apply(id);
+                    T copy = item != null ? copier.apply(item) : null;
+                    // retry if the first stamp arrived while copying
+                    if (heads.get(id) == null) {
+                        return copy;
+                    }
+                    continue;
+                }
+                Version<T> version = head;
+                while (version != null && version.stamp > stamp) {
+                    version = version.older;
+                }
+                if (version == null) {
+                    return NOT_KEPT;
+                }
+                Object state = version.state;
+                if (state != NOT_KEPT || version != head) {
+                    return state;
+                }
+                keepCurrent(id, head);
+            }
+        }
+
+        /**
+         * Copies an item for a commit, along with the version it replaces if the item has none yet;
+         * the item's lock must be held
+         *
+         * @param id ID of the item
+         * @param item item to store, or null to delete
+         * @return pending version, installed by install
+         */
+        Pending<T> prepare(int id, T item) {
+            Version<T> older = heads.get(id);
+            if (older == null) {
+                T current = base.apply(id);
+                older = new Version<>(baseStamp, current != null ? copier.apply(current) : null, false, null);
+            }
+            return new Pending<>(id, item != null ? copier.apply(item) : null, older);
+        }
+
+        /**
+         * Installs a prepared version; the item's lock must be held
+         *
+         * @param pending version from prepare
+         * @param stamp stamp of the commit, not yet published
+         * @return installed version, pending until the commit is applied
+         */
+        Version<T> install(Pending<T> pending, long stamp) {
+            Version<T> version = new Version<>(stamp, pending.copy, true, pending.older);
+            heads.put(pending.id, version);
+            return version;
+        }
+
+        /**
+         * Drops the versions of an item that no open transaction can read; the item's lock must be held
+         *
+         * @param id ID of the item
+         */
+        void prune(int id) {
+            long oldest = oldestOpenStamp();
+            for (Version<T> version = heads.get(id); version != null; version = version.older) {
+                if (version.stamp <= oldest) {
+                    version.older = null;
+                    return;
+                }
+            }
+        }
+
+        /** Copies the stored item into its newest version on the inventory thread, unless it changed meanwhile */
+        private void keepCurrent(int id, Version<T> head) {
+            Runnable keep = () -> {
+                ReentrantLock lock = locks[lockOf(this, id)];
+                lock.lock();
+                try {
+                    if (heads.get(id) == head && head.state == NOT_KEPT) {
+                        T item = current.apply(id);
+                        head.state = item != null ? copier.apply(item) : null;
+                        keptVersions.add(head);
+                    }
+                }
+                finally {
+                    lock.unlock();
+                }
+            };
+            if (onInventoryThread()) {
+                keep.run();
+            }
+            else {
+                CompletableFuture.runAsync(keep, ConcurrentInventory::publish).join();
+            }
+        }
+
+        /** Stamps an item added to the inventory or replacing one */
+        private void stored(int id, T item, T oldItem) {record(id, oldItem, true);}
+
+        /** Stamps an item changed in place; its earlier state is unknown unless a copy of it was kept */
+        private void changed(int id) {record(id, null, false);}
+
+        /** Stamps an item deleted from the inventory */
+        private void removed(int id, T oldItem) {record(id, oldItem, true);}
+
+        /**
+         * Gives an item's change the next stamp, keeping the state it replaces while transactions are
+         * open; changes applying a commit are not stamped again
+         *
+         * @param oldItem item replaced or deleted, or null if there was none or it was changed in place
+         * @param oldKnown true if oldItem is the item's state before the change
+         */
+        private void record(int id, T oldItem, boolean oldKnown) {
+            inventoryThread = Thread.currentThread();
+            ReentrantLock lock = locks[lockOf(this, id)];
+            lock.lock();
+            try {
+                Version<T> head = heads.get(id);
+                if (head != null && head.pending) {
+                    return;
+                }
+                Version<T> older = null;
+                if (!openStamps.isEmpty()) {
+                    older = head;
+                    if (oldKnown && (head == null || head.state == NOT_KEPT)) {
+                        long oldStamp = head != null ? head.stamp : baseStamp;
+                        older = new Version<>(oldStamp, oldItem != null ? copier.apply(oldItem) : null, false,
+                                head != null ? head.older : null);
+                    }
+                }
+                long stamp = nextStamp();
+                try {
+                    heads.put(id, new Version<>(stamp, NOT_KEPT, false, older));
+                }
+                finally {
+                    publish(stamp);
+                }
+                prune(id);
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+
+        /** Starts every item over at a new stamp, after they were replaced by loaded rows */
+        private void reload() {
+            inventoryThread = Thread.currentThread();
+            int[] lockIndexes = new int[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                lockIndexes[i] = lockBase + i;
+            }
+            lock(lockIndexes);
+            try {
+                long stamp = nextStamp();
+                try {
+                    heads.clear();
+                    baseStamp = stamp;
+                }
+                finally {
+                    publish(stamp);
+                }
+            }
+            finally {
+                unlock(lockIndexes);
+            }
+        }
+    }
+
+    /** Version of an item prepared by a commit before its stamp is given out */
+    static final class Pending<T> {
+        final int id;
+        final T copy;
+        final Version<T> older;
+
+        Pending(int id, T copy, Version<T> older) {
+            this.id = id;
+            this.copy = copy;
+            this.older = older;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package model;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * This class creates an ordered index of IDs by a double key, kept in an AVL tree
+ *
+ * Entries are ordered by key, then by ID, so equal keys are allowed. The tree lives in parallel
+ * primitive arrays instead of node objects, about 25 bytes per entry plus the ID map, and freed
+ * nodes are reused. Adding, moving and removing an ID take O(log n); visiting a key range or the
+ * top entries takes O(log n) plus the number of entries visited.
+ *
+ * @author Ella Upchurch
+ */
+final class OrderedIndex {
+    private static final int NIL = -1;
+    /** deeper than any AVL tree that fits in an int-indexed array */
+    private static final int MAX_HEIGHT = 64;
+
+    private double[] keys;
+    private int[] ids;
+    private int[] lefts;
+    private int[] rights;
+    private byte[] heights;
+    private int root = NIL;
+    /** nodes ever allocated; freed ones are chained through lefts from freeNode */
+    private int nodeCount;
+    private int freeNode = NIL;
+    private final IntIntMap nodeById = new IntIntMap();
+
+    OrderedIndex() {
+        keys = new double[16];
+        ids = new int[16];
+        lefts = new int[16];
+        rights = new int[16];
+        heights = new byte[16];
+    }
+
+    /** Gets the number of IDs indexed
+     * @return ID count
+     */
+    int size() {return nodeById.size();}
+
+    /**
+     * Indexes an ID under a key, moving it if it is indexed under another key
+     *
+     * @param id ID to index
+     * @param key key of the ID
+     */
+    void put(int id, double key) {
+        int node = nodeById.get(id);
+        if (node != IntIntMap.NO_VALUE) {
+            if (Double.compare(keys[node], key) == 0) {
+                return;
+            }
+            root = delete(root, keys[node], id);
+            freeNode(node);
+        }
+        node = newNode(id, key);
+        nodeById.put(id, node);
+        root = insert(root, node);
+    }
+
+    /**
+     * Removes an ID
+     *
+     * @param id ID to remove
+     */
+    void remove(int id) {
+        int node = nodeById.remove(id);
+        if (node != IntIntMap.NO_VALUE) {
+            root = delete(root, keys[node], id);
+            freeNode(node);
+        }
+    }
+
+    /**
+     * Visits the IDs with keys in a range, lowest key first
+     *
+     * @param low lowest key visited
+     * @param high highest key visited
+     * @param action called with each ID; returning false stops the visit
+     */
+    void forRange(double low, double high, IntPredicate action) {
+        int[] stack = new int[MAX_HEIGHT];
+        int depth = 0;
+        for (int node = root; node != NIL; ) {
+            if (Double.compare(keys[node], low) >= 0) {
+                stack[depth++] = node;
+                node = lefts[node];
+            }
+            else {
+                node = rights[node];
+            }
+        }
+        while (depth > 0) {
+            int node = stack[--depth];
+            if (Double.compare(keys[node], high) > 0 || !action.test(ids[node])) {
+                return;
+            }
+            for (node = rights[node]; node != NIL; node = lefts[node]) {
+                stack[depth++] = node;
+            }
+        }
+    }
+
+    /**
+     * Visits every ID, highest key first
+     *
+     * @param action called with each ID; returning false stops the visit
+     */
+    void forEachDescending(IntPredicate action) {
+        int[] stack = new int[MAX_HEIGHT];
+        int depth = 0;
+        for (int node = root; node != NIL; node = rights[node]) {
+            stack[depth++] = node;
+        }
+        while (depth > 0) {
+            int node = stack[--depth];
+            if (!action.test(ids[node])) {
+                return;
+            }
+            for (node = lefts[node]; node != NIL; node = rights[node]) {
+                stack[depth++] = node;
+            }
+        }
+    }
+
+    private int newNode(int id, double key) {
+        int node;
+        if (freeNode != NIL) {
+            node = freeNode;
+            freeNode = lefts[node];
+        }
+        else {
+            if (nodeCount == keys.length) {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                lefts = Arrays.copyOf(lefts, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+            }
+            node = nodeCount++;
+        }
+        keys[node] = key;
+        ids[node] = id;
+        lefts[node] = NIL;
+        rights[node] = NIL;
+        heights[node] = 1;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        lefts[node] = freeNode;
+        freeNode = node;
+    }
+
+    /** Orders an entry against a node, by key then by ID */
+    private int compare(double key, int id, int node) {
+        int byKey = Double.compare(key, keys[node]);
+        return byKey != 0 ? byKey : Integer.compare(id, ids[node]);
+    }
+
+    /** Inserts a new node below a subtree's root, returning the new root */
+    private int insert(int subtree, int node) {
+        if (subtree == NIL) {
+            return node;
+        }
+        if (compare(keys[node], ids[node], subtree) < 0) {
+            lefts[subtree] = insert(lefts[subtree], node);
+        }
+        else {
+            rights[subtree] = insert(rights[subtree], node);
+        }
+        return balance(subtree);
+    }
+
+    /** Unlinks the node holding an entry from a subtree, returning the new root; the node is not freed */
+    private int delete(int subtree, double key, int id) {
+        int order = compare(key, id, subtree);
+        if (order < 0) {
+            lefts[subtree] = delete(lefts[subtree], key, id);
+        }
+        else if (order > 0) {
+            rights[subtree] = delete(rights[subtree], key, id);
+        }
+        else {
+            if (lefts[subtree] == NIL) {
+                return rights[subtree];
+            }
+            if (rights[subtree] == NIL) {
+                return lefts[subtree];
+            }
+            // put the next node in the deleted node's place
+            int next = rights[subtree];
+            while (lefts[next] != NIL) {
+                next = lefts[next];
+            }
+            rights[next] = deleteFirst(rights[subtree]);
+            lefts[next] = lefts[subtree];
+            subtree = next;
+        }
+        return balance(subtree);
+    }
+
+    /** Unlinks the lowest node of a subtree, returning the new root */
+    private int deleteFirst(int subtree) {
+        if (lefts[subtree] == NIL) {
+            return rights[subtree];
+        }
+        lefts[subtree] = deleteFirst(lefts[subtree]);
+        return balance(subtree);
+    }
+
+    private int height(int node) {return node == NIL ? 0 : heights[node];}
+
+    private void updateHeight(int node) {
+        heights[node] = (byte) (1 + Math.max(height(lefts[node]), height(rights[node])));
+    }
+
+    /** Restores the AVL balance of a subtree whose children differ in height by at most 2 */
+    private int balance(int node) {
+        updateHeight(node);
+        int skew = height(lefts[node]) - height(rights[node]);
+        if (skew > 1) {
+            if (height(lefts[lefts[node]]) < height(rights[lefts[node]])) {
+                lefts[node] = rotateLeft(lefts[node]);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(rights[rights[node]]) < height(lefts[rights[node]])) {
+                rights[node] = rotateRight(rights[node]);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int top = lefts[node];
+        lefts[node] = rights[top];
+        rights[top] = node;
+        updateHeight(node);
+        updateHeight(top);
+        return top;
+    }
+
+    private int rotateLeft(int node) {
+        int top = rights[node];
+        rights[node] = lefts[top];
+        lefts[top] = node;
+        updateHeight(node);
+        updateHeight(top);
+        return top;
+    }
+}
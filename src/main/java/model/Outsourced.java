@@ -3,6 +3,9 @@ package model;
 /**
  * This class creates a part type, outsourced
  *
+ * The company name is interned through {@link StringInterner#COMPANY_NAMES}, so parts from the same
+ * company share one String.
+ *
  * @author Ella Upchurch
  */
 
@@ -23,7 +26,7 @@ public class Outsourced extends Part{
      */
     public Outsourced(int id,String name, double price, int stock, int min, int max, String companyName){
         super(id, name, price, stock, min, max);
-        this.companyName = companyName;
+        this.companyName = StringInterner.COMPANY_NAMES.intern(companyName);
     }
 
     /**The getter for part company name
@@ -34,6 +37,9 @@ public class Outsourced extends Part{
     /** The setter for part company name
      * @param companyName of part
      */
-    public void setCompanyName(String companyName){this.companyName = companyName;}
+    public void setCompanyName(String companyName){
+        this.companyName = StringInterner.COMPANY_NAMES.intern(companyName);
+        Inventory.partFieldsChanged(this);
+    }
 }
 
@@ -0,0 +1,107 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+import javafx.collections.WeakListChangeListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class creates a read-only, paged view of a {@link SlotList} for TableViews
+ *
+ * A TableView only asks for the rows it draws, so this view reads them a page at a time and keeps the
+ * most recently used pages in a small LRU cache. Items that are still only rows in the source are built
+ * for the page without being kept by the source, so scrolling through millions of stored parts holds
+ * just the cached pages in memory. Source changes are passed on to the table and drop the cache.
+ *
+ * @param <T> type of item shown
+ *
+ * @author Ella Upchurch
+ */
+public class PagedList<T> extends ObservableListBase<T> {
+    private static final int PAGE_SIZE = 256;
+
+    private final SlotList<T> source;
+    /** cached pages by page number, least recently used first */
+    private final Map<Integer, Object[]> pages;
+    /** kept here so the weak listener registered on the source lives as long as this view */
+    private final ListChangeListener<T> sourceListener = this::sourceChanged;
+
+    /**
+     * Creates a paged view
+     *
+     * @param source list to show
+     * @param maxPages most pages kept in memory
+     */
+    public PagedList(SlotList<T> source, int maxPages) {
+        this.source = source;
+        pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+                return size() > maxPages;
+            }
+        };
+        source.addListener(new WeakListChangeListener<>(sourceListener));
+    }
+
+    @Override
+    public int size() {return source.size();}
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= source.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + source.size());
+        }
+        int pageNumber = index / PAGE_SIZE;
+        Object[] page = pages.get(pageNumber);
+        if (page == null) {
+            int start = pageNumber * PAGE_SIZE;
+            page = new Object[Math.min(PAGE_SIZE, source.size() - start)];
+            for (int i = 0; i < page.length; i++) {
+                page[i] = source.peekAt(start + i);
+            }
+            pages.put(pageNumber, page);
+        }
+        return (T) page[index % PAGE_SIZE];
+    }
+
+    @Override
+    public boolean contains(Object o) {return source.contains(o);}
+
+    @Override
+    public int indexOf(Object o) {return source.indexOf(o);}
+
+    @Override
+    public int lastIndexOf(Object o) {return source.lastIndexOf(o);}
+
+    /** Drops cached pages and passes a source change on to the view's listeners */
+    private void sourceChanged(ListChangeListener.Change<? extends T> change) {
+        pages.clear();
+        beginChange();
+        while (change.next()) {
+            if (change.wasPermutated()) {
+                int[] permutation = new int[change.getTo() - change.getFrom()];
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    permutation[i - change.getFrom()] = change.getPermutation(i);
+                }
+                nextPermutation(change.getFrom(), change.getTo(), permutation);
+            }
+            else if (change.wasUpdated()) {
+                for (int i = change.getFrom(); i < change.getTo(); i++) {
+                    nextUpdate(i);
+                }
+            }
+            else {
+                if (change.wasRemoved()) {
+                    nextRemove(change.getFrom(), change.getRemoved());
+                }
+                if (change.wasAdded()) {
+                    nextAdd(change.getFrom(), change.getTo());
+                }
+            }
+        }
+        endChange();
+    }
+}
@@ -17,7 +17,7 @@ public abstract class Part {
     private int max;
     public Part(int id, String name, double price, int stock, int min, int max) {
         this.id = id;
-        this.name = name;
+        this.name = StringInterner.PART_NAMES.intern(name);
         this.price = price;
         this.stock = stock;
         this.min = min;
@@ -33,8 +33,12 @@ public abstract class Part {
 
     /**
      * @param id the id to set
+     * @throws IllegalStateException if the part is in the inventory, which keys it on its ID
      */
     public void setId(int id) {
+        if (id != this.id) {
+            Inventory.partIdChanging(this);
+        }
         this.id = id;
     }
 
@@ -46,10 +50,11 @@ public abstract class Part {
     }
 
     /**
-     * @param name the name to set
+     * @param name the name to set; names that recur share one String from {@link StringInterner#PART_NAMES}
      */
     public void setName(String name) {
-        this.name = name;
+        this.name = StringInterner.PART_NAMES.intern(name);
+        Inventory.partFieldsChanged(this);
     }
 
     /**
@@ -64,6 +69,7 @@ public abstract class Part {
      */
     public void setPrice(double price) {
         this.price = price;
+        Inventory.partFieldsChanged(this);
     }
 
     /**
@@ -78,6 +84,7 @@ public abstract class Part {
      */
     public void setStock(int stock) {
         this.stock = stock;
+        Inventory.partFieldsChanged(this);
     }
 
     /**
@@ -92,6 +99,7 @@ public abstract class Part {
      */
     public void setMin(int min) {
         this.min = min;
+        Inventory.partFieldsChanged(this);
     }
 
     /**
@@ -106,6 +114,7 @@ public abstract class Part {
      */
     public void setMax(int max) {
         this.max = max;
+        Inventory.partFieldsChanged(this);
     }
 
 }
\ No newline at end of file
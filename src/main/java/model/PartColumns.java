@@ -0,0 +1,327 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class creates a columnar part store, holding each part field in a primitive array
+ *
+ * A Part object costs about 60 bytes plus its own name String. Here a part is one slot in each of
+ * the int and double columns, about 33 bytes. Names and company names are stored as their codes in
+ * dictionaries of the store's own, dropped along with the store. Parts are read through flyweight views:
+ * {@link #materialize(int)} returns an {@link InHouse} or {@link Outsourced} whose getters & setters
+ * read & write the columns, so a view can be built, changed and dropped without copying the row.
+ *
+ * Load a filled store with {@link Inventory#loadParts(RowSource)}; the inventory then only builds
+ * views for parts it is asked for. A store is filled and changed on one thread.
+ *
+ * @author Ella Upchurch
+ */
+public final class PartColumns implements RowSource<Part> {
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private int rowCount;
+    private byte[] types;
+    private int[] ids;
+    private int[] nameCodes;
+    private int[] stocks;
+    private int[] mins;
+    private int[] maxes;
+    /** machine ID of in-house parts, company code of outsourced parts */
+    private int[] extras;
+    private double[] prices;
+    /** distinct names of the parts stored here */
+    private final StringDictionary names = new StringDictionary();
+    /** distinct company names of the outsourced parts stored here */
+    private final StringDictionary companies = new StringDictionary();
+
+    /** Creates an empty store */
+    public PartColumns() {this(16);}
+
+    /**
+     * Creates an empty store with room for a number of parts
+     *
+     * @param capacity parts held before the columns grow
+     */
+    public PartColumns(int capacity) {
+        capacity = Math.max(1, capacity);
+        types = new byte[capacity];
+        ids = new int[capacity];
+        nameCodes = new int[capacity];
+        stocks = new int[capacity];
+        mins = new int[capacity];
+        maxes = new int[capacity];
+        extras = new int[capacity];
+        prices = new double[capacity];
+    }
+
+    /**
+     * Adds an in-house part
+     *
+     * @return row of the part
+     */
+    public int addInHouse(int id, String name, double price, int stock, int min, int max, int machineId) {
+        return addRow(IN_HOUSE, id, name, price, stock, min, max, machineId);
+    }
+
+    /**
+     * Adds an outsourced part
+     *
+     * @return row of the part
+     */
+    public int addOutsourced(int id, String name, double price, int stock, int min, int max, String companyName) {
+        return addRow(OUTSOURCED, id, name, price, stock, min, max, companies.code(companyName));
+    }
+
+    /**
+     * Adds a copy of a part
+     *
+     * @param part part to copy
+     * @return row of the part
+     */
+    public int add(Part part) {
+        if (part instanceof Outsourced) {
+            return addOutsourced(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+                    part.getMax(), ((Outsourced) part).getCompanyName());
+        }
+        int machineId = part instanceof InHouse ? ((InHouse) part).getMachineId() : 0;
+        return addInHouse(part.getId(), part.getName(), part.getPrice(), part.getStock(), part.getMin(),
+                part.getMax(), machineId);
+    }
+
+    private int addRow(byte type, int id, String name, double price, int stock, int min, int max, int extra) {
+        if (rowCount == ids.length) {
+            grow();
+        }
+        int row = rowCount++;
+        types[row] = type;
+        ids[row] = id;
+        nameCodes[row] = names.code(name);
+        prices[row] = price;
+        stocks[row] = stock;
+        mins[row] = min;
+        maxes[row] = max;
+        extras[row] = extra;
+        return row;
+    }
+
+    private void grow() {
+        int capacity = ids.length + (ids.length >> 1) + 1;
+        types = Arrays.copyOf(types, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+        stocks = Arrays.copyOf(stocks, capacity);
+        mins = Arrays.copyOf(mins, capacity);
+        maxes = Arrays.copyOf(maxes, capacity);
+        extras = Arrays.copyOf(extras, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+    }
+
+    /** Shrinks the columns to the number of parts stored */
+    public void trimToSize() {
+        if (rowCount < ids.length) {
+            int capacity = Math.max(1, rowCount);
+            types = Arrays.copyOf(types, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            nameCodes = Arrays.copyOf(nameCodes, capacity);
+            stocks = Arrays.copyOf(stocks, capacity);
+            mins = Arrays.copyOf(mins, capacity);
+            maxes = Arrays.copyOf(maxes, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+        }
+    }
+
+    @Override
+    public int rowCount() {return rowCount;}
+
+    @Override
+    public int idAt(int row) {return ids[check(row)];}
+
+    @Override
+    public String nameAt(int row) {return names.valueOf(nameCodes[check(row)]);}
+
+    /**
+     * Gets a flyweight view of a row; views of the same row share its data
+     *
+     * @param row row number
+     * @return in-house or outsourced part reading & writing the row
+     */
+    @Override
+    public Part materialize(int row) {
+        check(row);
+        return types[row] == OUTSOURCED ? new OutsourcedRow(row) : new InHouseRow(row);
+    }
+
+    @Override
+    public int rowOf(Part item) {
+        if (item instanceof InHouseRow && ((InHouseRow) item).columns() == this) {
+            return ((InHouseRow) item).row;
+        }
+        if (item instanceof OutsourcedRow && ((OutsourcedRow) item).columns() == this) {
+            return ((OutsourcedRow) item).row;
+        }
+        return -1;
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of bounds for " + rowCount + " rows");
+        }
+        return row;
+    }
+
+    /** In-house part stored in a row; the inherited fields are unused */
+    private final class InHouseRow extends InHouse {
+        private final int row;
+
+        InHouseRow(int row) {
+            super(0, null, 0, 0, 0, 0, 0);
+            this.row = row;
+        }
+
+        PartColumns columns() {return PartColumns.this;}
+
+        @Override
+        public int getId() {return ids[row];}
+
+        @Override
+        public void setId(int id) {
+            if (id != ids[row]) {
+                Inventory.partIdChanging(this);
+            }
+            ids[row] = id;
+        }
+
+        @Override
+        public String getName() {return names.valueOf(nameCodes[row]);}
+
+        @Override
+        public void setName(String name) {
+            nameCodes[row] = names.code(name);
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public double getPrice() {return prices[row];}
+
+        @Override
+        public void setPrice(double price) {
+            prices[row] = price;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getStock() {return stocks[row];}
+
+        @Override
+        public void setStock(int stock) {
+            stocks[row] = stock;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getMin() {return mins[row];}
+
+        @Override
+        public void setMin(int min) {
+            mins[row] = min;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getMax() {return maxes[row];}
+
+        @Override
+        public void setMax(int max) {
+            maxes[row] = max;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getMachineId() {return extras[row];}
+
+        @Override
+        public void setMachineId(int machineId) {
+            extras[row] = machineId;
+            Inventory.partFieldsChanged(this);
+        }
+    }
+
+    /** Outsourced part stored in a row; the inherited fields are unused */
+    private final class OutsourcedRow extends Outsourced {
+        private final int row;
+
+        OutsourcedRow(int row) {
+            super(0, null, 0, 0, 0, 0, null);
+            this.row = row;
+        }
+
+        PartColumns columns() {return PartColumns.this;}
+
+        @Override
+        public int getId() {return ids[row];}
+
+        @Override
+        public void setId(int id) {
+            if (id != ids[row]) {
+                Inventory.partIdChanging(this);
+            }
+            ids[row] = id;
+        }
+
+        @Override
+        public String getName() {return names.valueOf(nameCodes[row]);}
+
+        @Override
+        public void setName(String name) {
+            nameCodes[row] = names.code(name);
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public double getPrice() {return prices[row];}
+
+        @Override
+        public void setPrice(double price) {
+            prices[row] = price;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getStock() {return stocks[row];}
+
+        @Override
+        public void setStock(int stock) {
+            stocks[row] = stock;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getMin() {return mins[row];}
+
+        @Override
+        public void setMin(int min) {
+            mins[row] = min;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public int getMax() {return maxes[row];}
+
+        @Override
+        public void setMax(int max) {
+            maxes[row] = max;
+            Inventory.partFieldsChanged(this);
+        }
+
+        @Override
+        public String getCompanyName() {return companies.valueOf(extras[row]);}
+
+        @Override
+        public void setCompanyName(String companyName) {
+            extras[row] = companies.code(companyName);
+            Inventory.partFieldsChanged(this);
+        }
+    }
+}
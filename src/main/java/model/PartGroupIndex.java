@@ -0,0 +1,90 @@
+package model;
+
+import java.util.function.IntConsumer;
+
+/**
+ * This class creates an index grouping part IDs by an int key, such as company code or machine ID
+ *
+ * Each part has at most one key. The index keeps the key of every indexed part, so moving or removing
+ * a part touches only its own group, and listing a group takes time proportional to its size.
+ *
+ * @author Ella Upchurch
+ */
+final class PartGroupIndex {
+    /** part IDs of each key, as a set of IDs mapped to 1 */
+    private final IntMap<IntIntMap> idsByKey = new IntMap<>();
+    private final IntIntMap keyById = new IntIntMap();
+
+    /**
+     * Puts a part in a group, moving it out of any other group
+     *
+     * @param id ID of part
+     * @param key key of the group
+     */
+    void put(int id, int key) {
+        if (keyById.containsKey(id)) {
+            int oldKey = keyById.get(id);
+            if (oldKey == key) {
+                return;
+            }
+            removeFromGroup(id, oldKey);
+        }
+        keyById.put(id, key);
+        IntIntMap ids = idsByKey.get(key);
+        if (ids == null) {
+            ids = new IntIntMap(4);
+            idsByKey.put(key, ids);
+        }
+        ids.put(id, 1);
+    }
+
+    /**
+     * Takes a part out of its group
+     *
+     * @param id ID of part
+     */
+    void remove(int id) {
+        if (keyById.containsKey(id)) {
+            removeFromGroup(id, keyById.remove(id));
+        }
+    }
+
+    /**
+     * Visits the IDs of the parts in a group
+     *
+     * @param key key of the group
+     * @param action action run with each ID
+     */
+    void forEach(int key, IntConsumer action) {
+        IntIntMap ids = idsByKey.get(key);
+        if (ids != null) {
+            ids.forEach((id, one) -> action.accept(id));
+        }
+    }
+
+    /**
+     * Counts the parts in a group
+     *
+     * @param key key of the group
+     * @return number of parts
+     */
+    int count(int key) {
+        IntIntMap ids = idsByKey.get(key);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Counts the groups holding at least one part
+     *
+     * @return number of groups
+     */
+    int groupCount() {return idsByKey.size();}
+
+    private void removeFromGroup(int id, int key) {
+        IntIntMap ids = idsByKey.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByKey.remove(key);
+        }
+    }
+}
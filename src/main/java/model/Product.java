@@ -3,8 +3,11 @@ package model;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /** This class creates the model 'Product'.
- * Products can contain associated Parts.
+ * Products can contain associated Parts and other products as components (sub-assemblies), each with a quantity.
  *
  * @author Ella Upchurch
  */
@@ -15,7 +18,11 @@ public class Product {
     private int stock;
     private int min;
     private int max;
-    private ObservableList<Part> associatedParts = FXCollections.observableArrayList();
+    /** units of each associated part per unit of this product, by part ID; created with the first associated
+     * part, as most products in a large catalogue have none */
+    private IntIntMap partQuantities;
+    /** units of each component product per unit of this product, by product ID; created with the first component */
+    private IntIntMap components;
 
     /** Constructs a new instance of a product
      *
@@ -42,8 +49,14 @@ public class Product {
 
     /** The setter for product ID
      * @param id of product
+     * @throws IllegalStateException if the product is in the inventory, which keys it on its ID
      */
-    public void setId(int id) {this.id = id;}
+    public void setId(int id) {
+        if (id != this.id) {
+            Inventory.productIdChanging(this);
+        }
+        this.id = id;
+    }
 
     /** The getter for product name
      * @return name of product
@@ -53,7 +66,10 @@ public class Product {
     /** The setter for product name
      * @param name
      */
-    public void setName(String name) {this.name = name;}
+    public void setName(String name) {
+        this.name = name;
+        Inventory.productFieldsChanged(this);
+    }
 
     /** The getter for product price
      * @return price of product
@@ -63,7 +79,10 @@ public class Product {
     /** The setter for product price
      * @param price
      */
-    public void setPrice(double price) {this.price = price;}
+    public void setPrice(double price) {
+        this.price = price;
+        Inventory.productFieldsChanged(this);
+    }
 
     /** The getter for product stock
      * @return stock of product
@@ -73,7 +92,10 @@ public class Product {
     /** The setter for product stock
      * @param stock
      */
-    public void setStock(int stock) {this.stock = stock;}
+    public void setStock(int stock) {
+        this.stock = stock;
+        Inventory.productFieldsChanged(this);
+    }
 
     /** The getter for product min
      * @return min of product
@@ -83,7 +105,10 @@ public class Product {
     /** The setter for product min
      * @param min
      */
-    public void setMin(int min) {this.min = min;}
+    public void setMin(int min) {
+        this.min = min;
+        Inventory.productFieldsChanged(this);
+    }
 
     /** The getter for product max
      * @return max of product
@@ -93,30 +118,215 @@ public class Product {
     /** The setter for product max
      * @param max
      */
-    public void setMax(int max) {this.max = max;}
+    public void setMax(int max) {
+        this.max = max;
+        Inventory.productFieldsChanged(this);
+    }
 
-    /** Creates an observable list of associated parts
+    /** Associates one more unit of a part with the product
      * @param part
      */
-    public void  addAssociatedPart(Part part) {associatedParts.add(part);}
+    public void  addAssociatedPart(Part part) {addAssociatedPart(part, 1);}
+
+    /** Associates more units of a part with the product, on top of any already used
+     * @param part associated part
+     * @param quantity units to add
+     * @throws IllegalArgumentException if the quantity is negative
+     */
+    public void addAssociatedPart(Part part, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative quantity " + quantity + " of part " + part.getId());
+        }
+        setAssociatedPartQuantity(part, Math.addExact(getAssociatedPartQuantity(part.getId()), quantity));
+    }
+
+    /** Sets how many units of a part go into one unit of the product
+     *
+     * Parts are kept by ID and resolve to the inventory's part with that ID.
+     *
+     * @param part associated part
+     * @param quantity units per unit of this product; 0 removes the part
+     * @throws IllegalArgumentException if the quantity is negative
+     */
+    public void setAssociatedPartQuantity(Part part, int quantity) {setAssociatedPartQuantity(part.getId(), quantity);}
 
-    /** Removes associated part from parts list of product
+    /** Sets how many units of a part go into one unit of the product
      *
-     * @param selectAssociatedPart
+     * @param partId ID of associated part
+     * @param quantity units per unit of this product; 0 removes the part
+     * @throws IllegalArgumentException if the quantity is negative
+     */
+    public void setAssociatedPartQuantity(int partId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative quantity " + quantity + " of part " + partId);
+        }
+        int oldQuantity = getAssociatedPartQuantity(partId);
+        if (quantity == oldQuantity) {
+            return;
+        }
+        if (quantity == 0) {
+            partQuantities.remove(partId);
+        }
+        else {
+            if (partQuantities == null) {
+                partQuantities = new IntIntMap(4);
+            }
+            partQuantities.put(partId, quantity);
+        }
+        Inventory.associationChanged(this, partId, oldQuantity, quantity);
+    }
+
+    /** Removes one unit of an associated part from the product
+     *
+     * @param selectAssociatedPart part to remove, matched by ID
      * @return boolean that indicates if part was deleted successfully
      */
     public boolean deleteAssociatedPart(Part selectAssociatedPart) {
-        if (associatedParts.contains(selectAssociatedPart)) {
-            associatedParts.remove(selectAssociatedPart);
-            return true;
+        int quantity = getAssociatedPartQuantity(selectAssociatedPart.getId());
+        if (quantity == 0) {
+            return false;
+        }
+        setAssociatedPartQuantity(selectAssociatedPart.getId(), quantity - 1);
+        return true;
+    }
+
+    /** Gets how many units of a part go into one unit of the product
+     * @param partId ID of part
+     * @return units per unit of this product, or 0 if the part is not associated
+     */
+    public int getAssociatedPartQuantity(int partId) {
+        return partQuantities == null || !partQuantities.containsKey(partId) ? 0 : partQuantities.get(partId);
+    }
+
+    /** Gets the number of distinct associated parts
+     * @return associated part count
+     */
+    public int getAssociatedPartCount() {return partQuantities == null ? 0 : partQuantities.size();}
+
+    /** Gets list of parts associated with product, each listed once whatever its quantity
+     *
+     * The list is built from the inventory's parts when called, in order of part ID, and doesn't show
+     * later changes. Associated parts no longer in the inventory are left out.
+     *
+     * @return read-only list of associated parts
+     */
+    public ObservableList<Part> getAllAssociatedParts() {
+        if (partQuantities == null || partQuantities.isEmpty()) {
+            return FXCollections.emptyObservableList();
+        }
+        IntList partIds = new IntList(partQuantities.size());
+        partQuantities.forEach((partId, quantity) -> partIds.add(partId));
+        partIds.sortDistinct();
+        List<Part> parts = new ArrayList<>(partIds.size());
+        for (int i = 0; i < partIds.size(); i++) {
+            Part part = Inventory.lookupPart(partIds.get(i));
+            if (part != null) {
+                parts.add(part);
+            }
+        }
+        return FXCollections.unmodifiableObservableList(FXCollections.observableList(parts));
+    }
+
+    /** Runs an action for every associated part, in no particular order
+     * @param action action run with each part's ID and quantity
+     */
+    public void forEachAssociatedPart(IntIntMap.EntryConsumer action) {
+        if (partQuantities != null) {
+            partQuantities.forEach(action);
+        }
+    }
+
+    /** Sets how many units of another product go into one unit of this product
+     *
+     * Components are kept by ID and resolve to the inventory's product with that ID. Cycles are rejected
+     * for products in the inventory; a product stored later can still close one, which
+     * {@link BomExplosion} reports when it explodes the product.
+     *
+     * @param componentId ID of component product
+     * @param quantity units per unit of this product; 0 removes the component
+     * @throws IllegalArgumentException if the quantity is negative, or this product is in the inventory and the
+     * component is this product or contains it
+     */
+    public void setComponentQuantity(int componentId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Negative quantity " + quantity + " of product " + componentId);
+        }
+        if (quantity > 0 && Inventory.lookupProduct(id) == this && BomExplosion.contains(componentId, id)) {
+            throw new IllegalArgumentException("Product " + componentId + " contains product " + id
+                    + ", so it can't be a component of it");
+        }
+        int oldQuantity = getComponentQuantity(componentId);
+        if (quantity == oldQuantity) {
+            return;
+        }
+        if (quantity == 0) {
+            components.remove(componentId);
+        }
+        else {
+            if (components == null) {
+                components = new IntIntMap(4);
+            }
+            components.put(componentId, quantity);
         }
-        else
+        Inventory.componentChanged(this, componentId, oldQuantity, quantity);
+    }
+
+    /** Adds units of a component product, on top of any already used
+     * @param component component product
+     * @param quantity units per unit of this product
+     */
+    public void addComponent(Product component, int quantity) {
+        setComponentQuantity(component.getId(), Math.addExact(getComponentQuantity(component.getId()), quantity));
+    }
+
+    /** Removes a component product
+     * @param component component product
+     * @return boolean that indicates if the component was removed
+     */
+    public boolean removeComponent(Product component) {
+        if (getComponentQuantity(component.getId()) == 0) {
             return false;
+        }
+        setComponentQuantity(component.getId(), 0);
+        return true;
+    }
+
+    /** Gets how many units of a component product go into one unit of this product
+     * @param componentId ID of component product
+     * @return units per unit of this product, or 0 if it is not a component
+     */
+    public int getComponentQuantity(int componentId) {
+        return components == null || !components.containsKey(componentId) ? 0 : components.get(componentId);
     }
 
-    /** Gets list of parts associated with product
-     * @return list of associated parts
+    /** Gets the number of component products
+     * @return component count
      */
-    public ObservableList<Part> getAllAssociatedParts() {return associatedParts;}
+    public int getComponentCount() {return components == null ? 0 : components.size();}
+
+    /** Runs an action for every component product, in no particular order
+     * @param action action run with each component's ID and quantity
+     */
+    public void forEachComponent(IntIntMap.EntryConsumer action) {
+        if (components != null) {
+            components.forEach(action);
+        }
+    }
+
+    /** Copies the product with its associated parts & components, without telling the inventory
+     * @return unstored copy
+     */
+    Product copy() {
+        Product copy = new Product(id, name, price, stock, min, max);
+        if (partQuantities != null && !partQuantities.isEmpty()) {
+            copy.partQuantities = new IntIntMap(partQuantities.size());
+            partQuantities.forEach(copy.partQuantities::put);
+        }
+        if (components != null && !components.isEmpty()) {
+            copy.components = new IntIntMap(components.size());
+            components.forEach(copy.components::put);
+        }
+        return copy;
+    }
 
 }
@@ -0,0 +1,101 @@
+package model;
+
+import java.util.Objects;
+
+/**
+ * This class creates a read-only alert for a part or product whose stock is outside its min & max
+ *
+ * An alert holds the item's levels when it was raised or last updated; a new alert replaces it when
+ * the levels change.
+ *
+ * @author Ella Upchurch
+ */
+public final class ReorderAlert {
+
+    /** Which bound the stock crossed */
+    public enum Level {
+        UNDER_MIN("Under min"),
+        OVER_MAX("Over max");
+
+        private final String text;
+
+        Level(String text) {this.text = text;}
+
+        @Override
+        public String toString() {return text;}
+    }
+
+    private final boolean product;
+    private final int id;
+    private final String name;
+    private final int stock;
+    private final int min;
+    private final int max;
+
+    /**
+     * Creates an alert
+     *
+     * @param product true for a product, false for a part
+     * @param id ID of item
+     * @param name name of item
+     * @param stock inventory level of item
+     * @param min minimum of item
+     * @param max maximum of item
+     */
+    ReorderAlert(boolean product, int id, String name, int stock, int min, int max) {
+        this.product = product;
+        this.id = id;
+        this.name = name;
+        this.stock = stock;
+        this.min = min;
+        this.max = max;
+    }
+
+    /** Checks if the alert is for a product
+     * @return true for a product, false for a part
+     */
+    public boolean isProduct() {return product;}
+
+    /** The getter for the item type shown in the alerts panel
+     * @return "Product" or "Part"
+     */
+    public String getItemType() {return product ? "Product" : "Part";}
+
+    /** The getter for item ID
+     * @return id of item
+     */
+    public int getId() {return id;}
+
+    /** The getter for item name
+     * @return name of item
+     */
+    public String getName() {return name;}
+
+    /** The getter for item stock
+     * @return stock of item
+     */
+    public int getStock() {return stock;}
+
+    /** The getter for item min
+     * @return min of item
+     */
+    public int getMin() {return min;}
+
+    /** The getter for item max
+     * @return max of item
+     */
+    public int getMax() {return max;}
+
+    /** The getter for the bound crossed
+     * @return UNDER_MIN or OVER_MAX
+     */
+    public Level getLevel() {return stock < min ? Level.UNDER_MIN : Level.OVER_MAX;}
+
+    /** Key unique across parts & products: the part ID, or minus the product ID */
+    int getKey() {return product ? -id : id;}
+
+    /** Checks if another alert shows the same levels */
+    boolean sameAs(ReorderAlert other) {
+        return stock == other.stock && min == other.min && max == other.max && Objects.equals(name, other.name);
+    }
+}
@@ -0,0 +1,178 @@
+package model;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class tracks the parts & products whose stock is below their min or above their max
+ *
+ * Once started, it scans the inventory once, then follows inventory events: each stored, changed or
+ * deleted item is checked on its own, so keeping the at-risk set current costs O(1) per change. The
+ * set is an observable list for the main screen's alerts panel, and {@link ReorderListener}s are told
+ * about each alert raised, updated or cleared right after the change, on the same thread. Alerts found
+ * by a scan, at start or when parts are loaded from stored rows, are added to the list in one change.
+ *
+ * @author Ella Upchurch
+ */
+public final class ReorderAlerts {
+    /** current alerts, keyed by part ID or minus product ID */
+    private static final SlotList<ReorderAlert> alerts = new SlotList<>(ReorderAlert.class, ReorderAlert::getKey);
+    private static final ObservableList<ReorderAlert> alertsView = FXCollections.unmodifiableObservableList(alerts);
+    private static final List<ReorderListener> listeners = new CopyOnWriteArrayList<>();
+    private static boolean started;
+    /** alerts found by the scan under way, added together when it ends; null when not scanning */
+    private static List<ReorderAlert> scanned;
+
+    private ReorderAlerts() {}
+
+    /**
+     * Starts tracking the inventory, scanning it once; must be called on the thread owning the
+     * inventory. Later calls do nothing.
+     */
+    public static void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {checkPart(newPart);}
+
+            @Override
+            public void partChanged(Part part) {checkPart(part);}
+
+            @Override
+            public void partRemoved(Part oldPart) {clear(oldPart.getId());}
+
+            @Override
+            public void partsLoaded(RowSource<Part> rows) {
+                scan(() -> {
+                    for (int row = 0; row < rows.rowCount(); row++) {
+                        checkPart(rows.materialize(row));
+                    }
+                });
+            }
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {checkProduct(newProduct);}
+
+            @Override
+            public void productChanged(Product product) {checkProduct(product);}
+
+            @Override
+            public void productRemoved(Product oldProduct) {clear(-oldProduct.getId());}
+        });
+        scan(() -> {
+            Inventory.scanParts(ReorderAlerts::checkPart);
+            for (Product product : Inventory.getAllProducts()) {
+                checkProduct(product);
+            }
+        });
+    }
+
+    /**
+     * Gets the current alerts, in the order they were raised
+     *
+     * @return read-only list of alerts, updated as the inventory changes
+     */
+    public static ObservableList<ReorderAlert> getAlerts() {return alertsView;}
+
+    /**
+     * Gets the current alert of a part
+     *
+     * @param partId ID of part
+     * @return alert, or null if the part's stock is within its bounds
+     */
+    public static ReorderAlert getPartAlert(int partId) {return alerts.getById(partId);}
+
+    /**
+     * Gets the current alert of a product
+     *
+     * @param productId ID of product
+     * @return alert, or null if the product's stock is within its bounds
+     */
+    public static ReorderAlert getProductAlert(int productId) {return alerts.getById(-productId);}
+
+    /**
+     * Registers a listener to be told about alerts
+     *
+     * @param listener listener to add
+     */
+    public static void addListener(ReorderListener listener) {listeners.add(listener);}
+
+    /**
+     * Unregisters a listener
+     *
+     * @param listener listener to remove
+     */
+    public static void removeListener(ReorderListener listener) {listeners.remove(listener);}
+
+    /** Runs a scan, then adds the alerts it found with one list change */
+    private static void scan(Runnable scan) {
+        scanned = new ArrayList<>();
+        try {
+            scan.run();
+        }
+        finally {
+            List<ReorderAlert> found = scanned;
+            scanned = null;
+            alerts.putAll(found, ReorderAlerts::alertStored);
+        }
+    }
+
+    private static void checkPart(Part part) {
+        check(false, part.getId(), part.getName(), part.getStock(), part.getMin(), part.getMax());
+    }
+
+    private static void checkProduct(Product product) {
+        check(true, product.getId(), product.getName(), product.getStock(), product.getMin(), product.getMax());
+    }
+
+    /** Raises, updates or clears the alert of one item */
+    private static void check(boolean product, int id, String name, int stock, int min, int max) {
+        if (stock >= min && stock <= max) {
+            clear(product ? -id : id);
+            return;
+        }
+        ReorderAlert alert = new ReorderAlert(product, id, name, stock, min, max);
+        ReorderAlert oldAlert = alerts.getById(alert.getKey());
+        if (oldAlert != null && oldAlert.sameAs(alert)) {
+            return;
+        }
+        if (scanned != null) {
+            scanned.add(alert);
+            return;
+        }
+        alerts.put(alert);
+        alertStored(alert, oldAlert);
+    }
+
+    /** Tells listeners about an alert raised or replacing an older one */
+    private static void alertStored(ReorderAlert alert, ReorderAlert oldAlert) {
+        for (ReorderListener listener : listeners) {
+            if (oldAlert == null) {
+                listener.alertRaised(alert);
+            }
+            else if (oldAlert.getLevel() != alert.getLevel()) {
+                listener.alertCleared(oldAlert);
+                listener.alertRaised(alert);
+            }
+            else {
+                listener.alertUpdated(oldAlert, alert);
+            }
+        }
+    }
+
+    private static void clear(int key) {
+        ReorderAlert oldAlert = alerts.removeById(key);
+        if (oldAlert != null) {
+            for (ReorderListener listener : listeners) {
+                listener.alertCleared(oldAlert);
+            }
+        }
+    }
+}
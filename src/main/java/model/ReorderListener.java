@@ -0,0 +1,35 @@
+package model;
+
+/**
+ * This interface is notified when reorder alerts are raised, updated or cleared
+ *
+ * Listeners are registered with {@link ReorderAlerts#addListener(ReorderListener)} and are called on
+ * the thread that changed the inventory, right after the change. Every method has an empty default
+ * so a listener only implements the events it needs.
+ *
+ * @author Ella Upchurch
+ */
+public interface ReorderListener {
+
+    /**
+     * Called when an item's stock crosses below its min or above its max
+     *
+     * @param alert new alert
+     */
+    default void alertRaised(ReorderAlert alert) {}
+
+    /**
+     * Called when an item with an alert changes but stays on the same side of its bounds
+     *
+     * @param oldAlert replaced alert
+     * @param newAlert alert with the item's new levels
+     */
+    default void alertUpdated(ReorderAlert oldAlert, ReorderAlert newAlert) {}
+
+    /**
+     * Called when an item's stock is back within its min & max, or the item is deleted
+     *
+     * @param alert cleared alert
+     */
+    default void alertCleared(ReorderAlert alert) {}
+}
@@ -0,0 +1,52 @@
+package model;
+
+/**
+ * This interface provides rows of stored data that are turned into objects only when needed
+ *
+ * A {@link SlotList} loaded from a row source keeps just the row number for each item until the item
+ * is first read, so a large inventory can be shown without building every object up front.
+ *
+ * @param <T> type of object a row becomes
+ *
+ * @author Ella Upchurch
+ */
+public interface RowSource<T> {
+
+    /** Gets the number of rows
+     * @return row count
+     */
+    int rowCount();
+
+    /**
+     * Gets the ID stored in a row without building its object
+     *
+     * @param row row number
+     * @return ID in row
+     */
+    int idAt(int row);
+
+    /**
+     * Gets the name stored in a row without building its object
+     *
+     * @param row row number
+     * @return name in row
+     */
+    String nameAt(int row);
+
+    /**
+     * Builds the object stored in a row
+     *
+     * @param row row number
+     * @return new object holding the row's data
+     */
+    T materialize(int row);
+
+    /**
+     * Finds the row an object built by {@link #materialize(int)} reads & writes, if changes made to the
+     * object change the row itself
+     *
+     * @param item object to check
+     * @return row number, or -1 if the object is a detached copy or was not built by this source
+     */
+    default int rowOf(T item) {return -1;}
+}
@@ -0,0 +1,311 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class creates a trigram inverted index used to search parts or products by ID or name
+ *
+ * Each item is indexed under the lowercase text "id\nname", computed when the item is added and again
+ * only when an update finds its name changed.
+ * A search looks up the trigrams of the search string, takes the shortest posting list and
+ * checks each candidate against its cached text, so no per-row strings are built while searching.
+ * Removed items leave stale postings behind that are skipped during search and dropped when
+ * the index is rebuilt.
+ *
+ * The index is guarded by a read-write lock so a background thread can search or fill it while the
+ * JavaFX thread keeps it up to date. A streaming search copies its candidate IDs under the lock and
+ * checks them in chunks, so a long search never holds up changes for more than a moment.
+ *
+ * @param <T> type of item indexed
+ *
+ * @author Ella Upchurch
+ */
+public class SearchIndex<T> {
+    private static final int GRAM_LENGTH = 3;
+    /** candidates checked per read lock by a streaming search */
+    private static final int SEARCH_CHUNK = 4096;
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> nameOf;
+
+    /** lowercase search text of each live item, keyed by ID */
+    private final IntMap<String> textById = new IntMap<>();
+    /** IDs of items containing each trigram; may hold stale or repeated IDs */
+    private IntMap<IntList> postings = new IntMap<>();
+    private long postingCount;
+    private long stalePostingCount;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Creates an empty index
+     *
+     * @param idOf gets the ID of an item
+     * @param nameOf gets the name of an item
+     */
+    public SearchIndex(ToIntFunction<T> idOf, Function<T, String> nameOf) {
+        this.idOf = idOf;
+        this.nameOf = nameOf;
+    }
+
+    /**
+     * Adds an item to the index, replacing any item indexed under the same ID
+     *
+     * @param item item to add
+     */
+    public void add(T item) {add(idOf.applyAsInt(item), nameOf.apply(item));}
+
+    /**
+     * Adds an item by ID and name, replacing any item indexed under the same ID
+     *
+     * @param id ID of item
+     * @param name name of item
+     */
+    public void add(int id, String name) {put(id, id + "\n" + name.toLowerCase(Locale.ROOT));}
+
+    /**
+     * Re-indexes an item whose fields changed, if its name is not the one indexed
+     *
+     * @param item changed item
+     */
+    public void update(T item) {
+        int id = idOf.applyAsInt(item);
+        String text = id + "\n" + nameOf.apply(item).toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (text.equals(textById.get(id))) {
+                return;
+            }
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        put(id, text);
+    }
+
+    private void put(int id, String text) {
+        lock.writeLock().lock();
+        try {
+            String oldText = textById.put(id, text);
+            addPostings(id, text);
+            if (oldText != null) {
+                dropPostings(oldText);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds an item by ID and name unless an item is already indexed under the ID; used to fill the
+     * index in the background without undoing changes indexed meanwhile
+     *
+     * @param id ID of item
+     * @param name name of item
+     */
+    public void addIfAbsent(int id, String name) {
+        String text = id + "\n" + name.toLowerCase(Locale.ROOT);
+        lock.writeLock().lock();
+        try {
+            if (!textById.containsKey(id)) {
+                textById.put(id, text);
+                addPostings(id, text);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the item indexed under an ID
+     *
+     * @param id ID of item to remove
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            String oldText = textById.remove(id);
+            if (oldText != null) {
+                dropPostings(oldText);
+            }
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Makes room for more items before a bulk load
+     *
+     * @param additionalItems number of items about to be added
+     */
+    public void ensureCapacity(int additionalItems) {
+        lock.writeLock().lock();
+        try {
+            textById.ensureCapacity(textById.size() + additionalItems);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Removes all items */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            textById.clear();
+            postings = new IntMap<>();
+            postingCount = 0;
+            stalePostingCount = 0;
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds IDs of items whose ID or name contains the search string, ignoring case
+     *
+     * @param searchString text to search for
+     * @return matching IDs in ascending order
+     */
+    public int[] search(String searchString) {
+        lock.readLock().lock();
+        try {
+            return searchLocked(searchString.toLowerCase(Locale.ROOT));
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds IDs of items whose ID or name contains the search string, ignoring case, passing them on
+     * as they are found; meant for a background thread
+     *
+     * @param searchString text to search for
+     * @param cancelled checked between chunks; the search stops once it returns true
+     * @param found called with each matching ID, in ascending order
+     */
+    public void search(String searchString, BooleanSupplier cancelled, IntConsumer found) {
+        String query = searchString.toLowerCase(Locale.ROOT);
+        int[] candidates;
+        lock.readLock().lock();
+        try {
+            candidates = candidates(query);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+        // sorting puts repeated postings next to each other and returns results in ID order
+        Arrays.sort(candidates);
+        int previous = 0;
+        for (int start = 0; start < candidates.length; start += SEARCH_CHUNK) {
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            int end = Math.min(candidates.length, start + SEARCH_CHUNK);
+            IntList matches = new IntList(end - start);
+            lock.readLock().lock();
+            try {
+                for (int i = start; i < end; i++) {
+                    int id = candidates[i];
+                    if (i > 0 && id == previous) {
+                        continue;
+                    }
+                    previous = id;
+                    String text = textById.get(id);
+                    if (text != null && text.contains(query)) {
+                        matches.add(id);
+                    }
+                }
+            }
+            finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < matches.size(); i++) {
+                found.accept(matches.get(i));
+            }
+        }
+    }
+
+    /** Copies the IDs a query has to be checked against: every ID for short queries, else the shortest posting list */
+    private int[] candidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            IntList ids = new IntList(textById.size());
+            textById.forEach((id, text) -> ids.add(id));
+            return ids.toArray();
+        }
+        IntList shortest = null;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            IntList ids = postings.get(gram(query, i));
+            if (ids == null) {
+                return new int[0];
+            }
+            if (shortest == null || ids.size() < shortest.size()) {
+                shortest = ids;
+            }
+        }
+        return shortest.toArray();
+    }
+
+    /** Checks the candidates of a query against their cached text, the same way a streaming search does */
+    private int[] searchLocked(String query) {
+        int[] candidates = candidates(query);
+        IntList found = new IntList(candidates.length);
+        for (int id : candidates) {
+            String text = textById.get(id);
+            if (text != null && text.contains(query)) {
+                found.add(id);
+            }
+        }
+        found.sortDistinct();
+        return found.toArray();
+    }
+
+    /** Counts the postings of replaced text as stale, rebuilding once they outnumber live postings */
+    private void dropPostings(String oldText) {
+        stalePostingCount += gramCount(oldText);
+        if (stalePostingCount > postingCount / 2) {
+            rebuild();
+        }
+    }
+
+    /** Rebuilds the posting lists from the live items, dropping stale postings */
+    private void rebuild() {
+        postings = new IntMap<>(postings.size());
+        postingCount = 0;
+        stalePostingCount = 0;
+        textById.forEach(this::addPostings);
+    }
+
+    /** Adds an ID to the posting list of every trigram in its text */
+    private void addPostings(int id, String text) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            int gram = gram(text, i);
+            IntList ids = postings.get(gram);
+            if (ids == null) {
+                ids = new IntList(4);
+                postings.put(gram, ids);
+            }
+            ids.add(id);
+            postingCount++;
+        }
+    }
+
+    private static int gramCount(String text) {return Math.max(0, text.length() - GRAM_LENGTH + 1);}
+
+    /** Packs three chars into an int; chars above 10 bits may collide, which only adds candidates */
+    private static int gram(String text, int start) {
+        return (text.charAt(start) & 0x3FF) << 20
+                | (text.charAt(start + 1) & 0x3FF) << 10
+                | (text.charAt(start + 2) & 0x3FF);
+    }
+}
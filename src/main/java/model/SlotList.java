@@ -0,0 +1,527 @@
+package model;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * This class creates the storage behind the inventory's part & product lists
+ *
+ * Items live in an array of slots with an ID to slot index, so finding, replacing and deleting an
+ * item by ID never scans the list. A delete leaves an empty slot (tombstone) instead of shifting
+ * the array; once tombstones pile up the slots are compacted in one pass. While tombstones exist a
+ * Fenwick tree of live slots maps between list positions and slots in O(log n).
+ *
+ * The list can also be loaded from a {@link RowSource}, such as a mapped snapshot file. Loaded slots
+ * only hold a row number until the item is first read by position or ID, at which point it is built
+ * and kept. Iterating builds unbuilt rows as temporary copies instead, so a loop over the list never
+ * keeps the whole source in memory.
+ *
+ * The class is an ObservableList so TableViews can show it directly. The list is read-only
+ * through the List interface; changes go through {@link #put}, {@link #putAll}, {@link #set},
+ * {@link #removeById} and {@link #delete}.
+ *
+ * @param <T> type of item stored
+ *
+ * @author Ella Upchurch
+ */
+public class SlotList<T> extends ObservableListBase<T> {
+    private static final int MIN_COMPACT_TOMBSTONES = 16;
+    /** marks a slot whose item is still only a row in the row source */
+    private static final Object UNLOADED = new Object();
+
+    private final Class<T> type;
+    private final ToIntFunction<T> idOf;
+    private final IntIntMap slotById = new IntIntMap();
+
+    /** items by slot; null marks a tombstone */
+    private Object[] slots = new Object[16];
+    private int slotCount;
+    private int size;
+    private int tombstones;
+    /** Fenwick tree counting live slots, only kept while tombstones exist */
+    private int[] liveTree;
+
+    /** rows loaded slots come from, and the row of each slot; -1 once the slot's item is replaced */
+    private RowSource<T> rows;
+    private int[] rowBySlot;
+
+    /**
+     * Creates an empty list
+     *
+     * @param type class of item stored
+     * @param idOf gets the ID of an item
+     */
+    public SlotList(Class<T> type, ToIntFunction<T> idOf) {
+        this.type = type;
+        this.idOf = idOf;
+    }
+
+    @Override
+    public int size() {return size;}
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return load(slotAt(index));
+    }
+
+    /**
+     * Gets the item at a list position without keeping it if it is still only a row
+     *
+     * Used by views that only need the item for a moment, such as a table page; repeated calls for an
+     * unbuilt row return separate copies.
+     *
+     * @param index position of item
+     * @return item
+     */
+    public T peekAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return peek(slotAt(index));
+    }
+
+    /**
+     * Gets the item with an ID
+     *
+     * @param id ID of item
+     * @return item, or null if no item has the ID
+     */
+    @SuppressWarnings("unchecked")
+    public T getById(int id) {
+        int slot = slotById.get(id);
+        return slot == IntIntMap.NO_VALUE ? null : load(slot);
+    }
+
+    /**
+     * Checks if this exact item is stored; unlike contains, a detached copy built from an unbuilt row
+     * doesn't count, but a view writing through to the row does
+     *
+     * @param item item to look for
+     * @return true if the item itself, or a view of its row, is in the list
+     */
+    public boolean holds(T item) {
+        int slot = slotById.get(idOf.applyAsInt(item));
+        if (slot == IntIntMap.NO_VALUE) {
+            return false;
+        }
+        return slots[slot] == item || (isRow(slot) && rows.rowOf(item) == rowBySlot[slot]);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!type.isInstance(o)) {
+            return false;
+        }
+        int slot = slotById.get(idOf.applyAsInt(type.cast(o)));
+        // an item still as loaded from a row stands for any copy built from the row, see peekAt
+        return slot != IntIntMap.NO_VALUE && (slots[slot] == o || isRow(slot));
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return contains(o) ? indexOfSlot(slotById.get(idOf.applyAsInt(type.cast(o)))) : -1;
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {return indexOf(o);}
+
+    /**
+     * Adds an item to the end of the list, or replaces in place the item with the same ID
+     *
+     * @param item item to store
+     * @return replaced item, or null if the item was added
+     */
+    @SuppressWarnings("unchecked")
+    public T put(T item) {
+        int id = idOf.applyAsInt(item);
+        int slot = slotById.get(id);
+        beginChange();
+        try {
+            if (slot != IntIntMap.NO_VALUE) {
+                T oldItem = peek(slot);
+                replaceSlot(slot, item);
+                nextSet(indexOfSlot(slot), oldItem);
+                return oldItem;
+            }
+            append(id, item);
+            nextAdd(size - 1, size);
+            return null;
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Adds or replaces many items, firing a single list change for the whole batch
+     *
+     * @param items items to store, in order
+     * @param stored called for each item with the item it replaced, or null if it was added
+     */
+    @SuppressWarnings("unchecked")
+    public void putAll(Collection<? extends T> items, BiConsumer<T, T> stored) {
+        int firstAdded = size;
+        if (slotCount + items.size() > slots.length) {
+            slots = Arrays.copyOf(slots, Integer.highestOneBit(slotCount + items.size()) << 1);
+            if (rowBySlot != null) {
+                rowBySlot = Arrays.copyOf(rowBySlot, slots.length);
+            }
+            if (liveTree != null) {
+                buildLiveTree();
+            }
+        }
+        slotById.ensureCapacity(slotById.size() + items.size());
+        beginChange();
+        try {
+            for (T item : items) {
+                int id = idOf.applyAsInt(item);
+                int slot = slotById.get(id);
+                T oldItem = null;
+                if (slot != IntIntMap.NO_VALUE) {
+                    oldItem = peek(slot);
+                    replaceSlot(slot, item);
+                    int index = indexOfSlot(slot);
+                    // items added earlier in this batch are already covered by the add change
+                    if (index < firstAdded) {
+                        nextSet(index, oldItem);
+                    }
+                }
+                else {
+                    append(id, item);
+                }
+                stored.accept(item, oldItem);
+            }
+            if (size > firstAdded) {
+                nextAdd(firstAdded, size);
+            }
+        }
+        finally {
+            endChange();
+        }
+    }
+
+    /**
+     * Replaces the item at a list position
+     *
+     * @param index position of item to replace
+     * @param item replacing item
+     * @return replaced item
+     * @throws IllegalArgumentException if the replacing item's ID belongs to another item in the list
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T set(int index, T item) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        int slot = slotAt(index);
+        T oldItem = peek(slot);
+        int oldId = idOf.applyAsInt(oldItem);
+        int newId = idOf.applyAsInt(item);
+        if (newId != oldId) {
+            if (slotById.containsKey(newId)) {
+                throw new IllegalArgumentException("ID " + newId + " is already in the list");
+            }
+            slotById.remove(oldId);
+            slotById.put(newId, slot);
+        }
+        replaceSlot(slot, item);
+        beginChange();
+        nextSet(index, oldItem);
+        endChange();
+        return oldItem;
+    }
+
+    /**
+     * Removes the item with an ID
+     *
+     * @param id ID of item to remove
+     * @return removed item, or null if no item has the ID
+     */
+    @SuppressWarnings("unchecked")
+    public T removeById(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntMap.NO_VALUE) {
+            return null;
+        }
+        T oldItem = peek(slot);
+        int index = indexOfSlot(slot);
+        clearSlot(slot);
+        beginChange();
+        nextRemove(index, oldItem);
+        endChange();
+        return oldItem;
+    }
+
+    /**
+     * Removes an item if it is in the list
+     *
+     * @param item item to remove (compared by identity; an item still as loaded from a row matches any item with its ID)
+     * @return true if the item was removed
+     */
+    public boolean delete(T item) {
+        if (!contains(item)) {
+            return false;
+        }
+        removeById(idOf.applyAsInt(item));
+        return true;
+    }
+
+    /** Iterates in list order; unbuilt rows are passed as temporary copies, as by {@link #peekAt(int)} */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int slot = nextLive(0);
+
+            @Override
+            public boolean hasNext() {return slot < slotCount;}
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (slot >= slotCount) {
+                    throw new NoSuchElementException();
+                }
+                T item = peek(slot);
+                slot = nextLive(slot + 1);
+                return item;
+            }
+        };
+    }
+
+    /**
+     * Fills an empty list with the rows of a row source; items are built as they are first read
+     *
+     * @param source rows to load
+     * @throws IllegalStateException if the list is not empty
+     */
+    public void loadRows(RowSource<T> source) {
+        if (size != 0) {
+            throw new IllegalStateException("Rows can only be loaded into an empty list");
+        }
+        // every slot left is a tombstone
+        tombstones = 0;
+        liveTree = null;
+        int count = source.rowCount();
+        rows = source;
+        slots = new Object[Math.max(16, count)];
+        rowBySlot = new int[slots.length];
+        slotById.ensureCapacity(count);
+        for (int row = 0; row < count; row++) {
+            slots[row] = UNLOADED;
+            rowBySlot[row] = row;
+            slotById.put(source.idAt(row), row);
+        }
+        slotCount = count;
+        size = count;
+        if (count > 0) {
+            beginChange();
+            nextAdd(0, count);
+            endChange();
+        }
+    }
+
+    /**
+     * Visits every item in list order without building items that are still only rows
+     *
+     * @param visitor called with each built item, or with null and the row number of an unbuilt item
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachRow(RowVisitor<T> visitor) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            Object item = slots[slot];
+            if (item == UNLOADED) {
+                visitor.visit(null, rowBySlot[slot]);
+            }
+            else if (item != null) {
+                visitor.visit((T) item, -1);
+            }
+        }
+    }
+
+    /**
+     * Visitor for {@link #forEachRow(RowVisitor)}
+     *
+     * @param <T> type of item
+     */
+    @FunctionalInterface
+    public interface RowVisitor<T> {
+        /**
+         * Visits one item
+         *
+         * @param item built item, or null if the item is still only a row
+         * @param row row number of an unbuilt item, or -1
+         */
+        void visit(T item, int row);
+    }
+
+    /** Gets the item in a live slot, building and keeping it if it is still only a row */
+    @SuppressWarnings("unchecked")
+    private T load(int slot) {
+        Object item = slots[slot];
+        if (item == UNLOADED) {
+            item = rows.materialize(rowBySlot[slot]);
+            slots[slot] = item;
+        }
+        return (T) item;
+    }
+
+    /** Gets the item in a live slot without keeping it if it had to be built */
+    @SuppressWarnings("unchecked")
+    private T peek(int slot) {
+        Object item = slots[slot];
+        return item == UNLOADED ? rows.materialize(rowBySlot[slot]) : (T) item;
+    }
+
+    /** Stores an item in a new slot at the end */
+    private void append(int id, T item) {
+        if (slotCount == slots.length) {
+            slots = Arrays.copyOf(slots, slotCount * 2);
+            if (rowBySlot != null) {
+                rowBySlot = Arrays.copyOf(rowBySlot, slots.length);
+            }
+            if (liveTree != null) {
+                buildLiveTree();
+            }
+        }
+        slots[slotCount] = item;
+        if (rowBySlot != null) {
+            rowBySlot[slotCount] = -1;
+        }
+        slotById.put(id, slotCount);
+        if (liveTree != null) {
+            updateLiveTree(slotCount, 1);
+        }
+        slotCount++;
+        size++;
+    }
+
+    /** Stores an item in a live slot in place of the one there */
+    private void replaceSlot(int slot, T item) {
+        slots[slot] = item;
+        if (rowBySlot != null) {
+            rowBySlot[slot] = -1;
+        }
+    }
+
+    /** Checks if a live slot still holds the item of its row, built or not */
+    private boolean isRow(int slot) {return rowBySlot != null && rowBySlot[slot] >= 0;}
+
+    /** Turns a slot into a tombstone, compacting the slots once tombstones pile up */
+    private void clearSlot(int slot) {
+        slots[slot] = null;
+        size--;
+        if (slot == slotCount - 1) {
+            // the last slot can simply be dropped
+            slotCount--;
+            if (liveTree != null) {
+                updateLiveTree(slot, -1);
+            }
+            return;
+        }
+        if (liveTree == null) {
+            buildLiveTree();
+        }
+        else {
+            updateLiveTree(slot, -1);
+        }
+        tombstones++;
+        if (tombstones >= MIN_COMPACT_TOMBSTONES && tombstones >= slotCount / 4) {
+            compact();
+        }
+    }
+
+    /** Moves live items to the front of the slot array; list order is unchanged */
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (slots[slot] != null) {
+                if (live != slot) {
+                    slots[live] = slots[slot];
+                    if (rowBySlot != null) {
+                        rowBySlot[live] = rowBySlot[slot];
+                    }
+                    slotById.put(idOfSlot(live), live);
+                }
+                live++;
+            }
+        }
+        Arrays.fill(slots, live, slotCount, null);
+        slotCount = live;
+        tombstones = 0;
+        liveTree = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int idOfSlot(int slot) {
+        Object item = slots[slot];
+        return item == UNLOADED ? rows.idAt(rowBySlot[slot]) : idOf.applyAsInt((T) item);
+    }
+
+    private int nextLive(int slot) {
+        while (slot < slotCount && slots[slot] == null) {
+            slot++;
+        }
+        return slot;
+    }
+
+    /** Finds the slot holding the item at a list position */
+    private int slotAt(int index) {
+        if (liveTree == null) {
+            return index;
+        }
+        // descend the Fenwick tree to the slot with exactly index live slots before it
+        int slot = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(liveTree.length - 1); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next < liveTree.length && liveTree[next] <= remaining) {
+                slot = next;
+                remaining -= liveTree[next];
+            }
+        }
+        return slot;
+    }
+
+    /** Finds the list position of a live slot */
+    private int indexOfSlot(int slot) {
+        if (liveTree == null) {
+            return slot;
+        }
+        int count = 0;
+        for (int i = slot; i > 0; i -= i & -i) {
+            count += liveTree[i];
+        }
+        return count;
+    }
+
+    private void buildLiveTree() {
+        liveTree = new int[slots.length + 1];
+        for (int i = 1; i < liveTree.length; i++) {
+            if (i <= slotCount && slots[i - 1] != null) {
+                liveTree[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent < liveTree.length) {
+                liveTree[parent] += liveTree[i];
+            }
+        }
+    }
+
+    private void updateLiveTree(int slot, int delta) {
+        for (int i = slot + 1; i < liveTree.length; i += i & -i) {
+            liveTree[i] += delta;
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class creates a thread-safe ledger of part stock reserved for builds
+ *
+ * Build stations on any thread reserve the parts for a number of units of a product, then either
+ * consume the reservation once the units are built or release it. Each part has an on-hand count and a
+ * reserved count, and the available count is on-hand minus reserved. Both counts of a part live in a
+ * single atomic long, so reserving, consuming and releasing are compare-and-set loops that never lock
+ * and never let a part's reservations exceed its stock on hand.
+ *
+ * A product is reserved all or nothing: its parts are reserved in order of part ID, and when a part
+ * falls short the parts already reserved are released again. Because every reservation takes parts in
+ * the same order, two reservations competing for the last units of a part don't both end up holding
+ * other parts; the loser stops at the first part it can't get. While a failing reservation is rolling
+ * back, a competing reservation for the same parts can see them briefly held and fail too. The parts
+ * each product needs are copied on the inventory thread as products are stored and their parts change,
+ * so build stations never read a Product that thread may be changing.
+ *
+ * Counts start from a part's stock the first time the part is reserved. Consuming a reservation takes
+ * the units off the on-hand counts at once and queues the stock change for the parts in
+ * {@link Inventory} through {@link ConcurrentInventory}. Stock edited in the inventory, for example on
+ * the Modify Part screen, adjusts the on-hand count by the difference and leaves reservations held; if
+ * the stock is cut below what is reserved, nothing more can be reserved until stock is added back.
+ *
+ * @author Ella Upchurch
+ */
+public final class StockLedger {
+    private static final int STRIPES = 64;
+
+    /** counts of each part reserved so far, by part ID; kept after a part is deleted, for its reservations */
+    private static final StripedIntMap<PartCount> counts = new StripedIntMap<>(STRIPES);
+    private static final AtomicLong failedReservations = new AtomicLong();
+
+    /** parts each stored product needs per unit, by product ID; replaced, never changed, on the inventory thread */
+    private static final StripedIntMap<Requirements> requirements = new StripedIntMap<>(STRIPES);
+
+    private StockLedger() {}
+
+    /**
+     * Starts following inventory changes; called once by Inventory as it is initialized, so the parts
+     * each product needs are recorded from the first product stored
+     */
+    static void startTracking() {
+        Inventory.addListener(new InventoryListener() {
+            @Override
+            public void partStored(Part newPart, Part oldPart) {stockEdited(newPart);}
+
+            @Override
+            public void partChanged(Part part) {stockEdited(part);}
+
+            @Override
+            public void productStored(Product newProduct, Product oldProduct) {
+                if (oldProduct != null && oldProduct.getId() != newProduct.getId()) {
+                    requirements.remove(oldProduct.getId());
+                }
+                requirements.put(newProduct.getId(), Requirements.of(newProduct));
+            }
+
+            @Override
+            public void productRemoved(Product oldProduct) {requirements.remove(oldProduct.getId());}
+
+            @Override
+            public void associationChanged(Product product, int partId, int quantity) {
+                requirements.compute(product.getId(), current -> (current != null ? current : Requirements.NONE)
+                        .with(partId, quantity));
+            }
+        });
+    }
+
+    /**
+     * Reserves the associated parts of units of a product, all or nothing; may be called from any thread
+     *
+     * The parts are taken from what the inventory last recorded for the product on its own thread, so
+     * the reservation keeps the quantities it was made with and never reads the product itself.
+     *
+     * @param product product to build
+     * @param units units to build
+     * @return reservation, or null if the product or one of its parts is not in the inventory, or some part
+     *         doesn't have enough stock available
+     * @throws IllegalArgumentException if units is not positive
+     * @throws ArithmeticException if a quantity overflows an int
+     */
+    public static Reservation reserve(Product product, int units) {
+        if (units <= 0) {
+            throw new IllegalArgumentException("Units must be positive: " + units);
+        }
+        Requirements needed = requirements.get(product.getId());
+        if (needed == null) {
+            failedReservations.incrementAndGet();
+            return null;
+        }
+        int[] ids = needed.partIds;
+        int[] quantities = new int[ids.length];
+        PartCount[] partCounts = new PartCount[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            quantities[i] = Math.multiplyExact(needed.quantities[i], units);
+            partCounts[i] = countOf(ids[i]);
+            if (partCounts[i] == null) {
+                failedReservations.incrementAndGet();
+                return null;
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            if (!partCounts[i].tryReserve(quantities[i])) {
+                for (int j = i - 1; j >= 0; j--) {
+                    partCounts[j].unreserve(quantities[j]);
+                }
+                failedReservations.incrementAndGet();
+                return null;
+            }
+        }
+        return new Reservation(product.getId(), units, ids, quantities, partCounts);
+    }
+
+    /**
+     * Takes a reservation's units off the stock on hand, as the units have been built; may be called
+     * from any thread
+     *
+     * The parts' stock in the inventory is updated on the JavaFX thread.
+     *
+     * @param reservation reservation to consume
+     * @return true if consumed, false if the reservation was already consumed or released
+     */
+    public static boolean consume(Reservation reservation) {
+        if (!reservation.state.compareAndSet(Reservation.HELD, Reservation.CONSUMED)) {
+            return false;
+        }
+        for (int i = 0; i < reservation.partCounts.length; i++) {
+            reservation.partCounts[i].consume(reservation.quantities[i]);
+        }
+        ConcurrentInventory.publish(() -> {
+            for (int i = 0; i < reservation.partCounts.length; i++) {
+                reservation.partCounts[i].writeBack(reservation.quantities[i]);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Returns a reservation's units to the available stock; may be called from any thread
+     *
+     * @param reservation reservation to release
+     * @return true if released, false if the reservation was already consumed or released
+     */
+    public static boolean release(Reservation reservation) {
+        if (!reservation.state.compareAndSet(Reservation.HELD, Reservation.RELEASED)) {
+            return false;
+        }
+        for (int i = 0; i < reservation.partCounts.length; i++) {
+            reservation.partCounts[i].unreserve(reservation.quantities[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Gets the stock on hand of a part, including units consumed but not yet shown in the inventory
+     *
+     * @param partId ID of part
+     * @return units on hand, or 0 if the part is not in the inventory
+     */
+    public static int getOnHand(int partId) {
+        PartCount count = counts.get(partId);
+        if (count == null) {
+            Part part = ConcurrentInventory.lookupPart(partId);
+            return part != null ? part.getStock() : 0;
+        }
+        return onHandOf(count.levels.get());
+    }
+
+    /**
+     * Gets the units of a part held by reservations
+     *
+     * @param partId ID of part
+     * @return units reserved
+     */
+    public static int getReserved(int partId) {
+        PartCount count = counts.get(partId);
+        return count != null ? reservedOf(count.levels.get()) : 0;
+    }
+
+    /**
+     * Gets the units of a part that can still be reserved
+     *
+     * @param partId ID of part
+     * @return units on hand minus units reserved, or 0 if the part is not in the inventory
+     */
+    public static int getAvailable(int partId) {
+        PartCount count = counts.get(partId);
+        if (count == null) {
+            return getOnHand(partId);
+        }
+        long levels = count.levels.get();
+        return onHandOf(levels) - reservedOf(levels);
+    }
+
+    /** Gets the number of reservations refused so far, to watch contention for scarce parts
+     * @return failed reservation count
+     */
+    public static long getFailedReservations() {return failedReservations.get();}
+
+    /** Gets the counts of a part, starting them from its stock the first time; null if the part is unknown */
+    private static PartCount countOf(int partId) {
+        PartCount count = counts.get(partId);
+        if (count == null) {
+            // publish the count before reading the stock, so a stock edit made meanwhile finds it
+            count = counts.putIfAbsent(partId, new PartCount(partId));
+        }
+        if (!count.isStarted()) {
+            Part part = ConcurrentInventory.lookupPart(partId);
+            if (part == null) {
+                return null;
+            }
+            count.start(part.getStock());
+        }
+        return count;
+    }
+
+    /** Applies a stock edit made in the inventory to the part's on-hand count; runs on the inventory thread */
+    private static void stockEdited(Part part) {
+        PartCount count = counts.get(part.getId());
+        if (count != null) {
+            count.stockEdited(part.getStock());
+        }
+    }
+
+    private static long levels(int onHand, int reserved) {return ((long) onHand << 32) | (reserved & 0xFFFFFFFFL);}
+
+    private static int onHandOf(long levels) {return (int) (levels >> 32);}
+
+    private static int reservedOf(long levels) {return (int) levels;}
+
+    /** On-hand & reserved counts of one part */
+    private static final class PartCount {
+        final int partId;
+        /** on hand in the high 32 bits, reserved in the low 32 bits */
+        final AtomicLong levels = new AtomicLong();
+        /** stock the inventory's part shows, behind the on-hand count by units consumed but not yet written back */
+        private int partStock;
+        private volatile boolean started;
+
+        PartCount(int partId) {this.partId = partId;}
+
+        boolean isStarted() {return started;}
+
+        /** Starts the counts from the part's stock, unless they were already started */
+        synchronized void start(int stock) {
+            if (!started) {
+                partStock = stock;
+                levels.set(levels(stock, 0));
+                started = true;
+            }
+        }
+
+        /** Moves the on-hand count by the change in the part's stock, or starts the counts from it */
+        synchronized void stockEdited(int stock) {
+            if (!started) {
+                start(stock);
+                return;
+            }
+            int change = stock - partStock;
+            partStock = stock;
+            if (change != 0) {
+                long current;
+                do {
+                    current = levels.get();
+                }
+                while (!levels.compareAndSet(current, levels(Math.addExact(onHandOf(current), change), reservedOf(current))));
+            }
+        }
+
+        /** Writes consumed units back to the inventory's part; runs on the inventory thread */
+        synchronized void writeBack(int quantity) {
+            // moved first, so the stock edit below reaches stockEdited as no change
+            partStock -= quantity;
+            Part part = Inventory.lookupPart(partId);
+            if (part != null) {
+                part.setStock(part.getStock() - quantity);
+            }
+        }
+
+        boolean tryReserve(int quantity) {
+            while (true) {
+                long current = levels.get();
+                int reserved = reservedOf(current);
+                if ((long) onHandOf(current) - reserved < quantity) {
+                    return false;
+                }
+                if (levels.compareAndSet(current, levels(onHandOf(current), reserved + quantity))) {
+                    return true;
+                }
+            }
+        }
+
+        void unreserve(int quantity) {
+            long current;
+            do {
+                current = levels.get();
+            }
+            while (!levels.compareAndSet(current, levels(onHandOf(current), reservedOf(current) - quantity)));
+        }
+
+        void consume(int quantity) {
+            long current;
+            do {
+                current = levels.get();
+            }
+            while (!levels.compareAndSet(current, levels(onHandOf(current) - quantity, reservedOf(current) - quantity)));
+        }
+    }
+
+    /** Parts one unit of a product needs, sorted by part ID; never changed once built */
+    private static final class Requirements {
+        static final Requirements NONE = new Requirements(new int[0], new int[0]);
+
+        final int[] partIds;
+        final int[] quantities;
+
+        private Requirements(int[] partIds, int[] quantities) {
+            this.partIds = partIds;
+            this.quantities = quantities;
+        }
+
+        /** Reads a product's associated parts; runs on the inventory thread */
+        static Requirements of(Product product) {
+            // part ID in the high half, quantity in the low half, so sorting orders by part ID
+            long[] sorted = new long[product.getAssociatedPartCount()];
+            int[] next = {0};
+            product.forEachAssociatedPart((partId, quantity) -> sorted[next[0]++] = (long) partId << 32 | quantity);
+            Arrays.sort(sorted);
+            int[] partIds = new int[sorted.length];
+            int[] quantities = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                partIds[i] = (int) (sorted[i] >> 32);
+                quantities[i] = (int) sorted[i];
+            }
+            return new Requirements(partIds, quantities);
+        }
+
+        /** Copies these requirements with a part's quantity set; 0 drops the part */
+        Requirements with(int partId, int quantity) {
+            int i = Arrays.binarySearch(partIds, partId);
+            if (i >= 0 && quantity > 0) {
+                int[] newQuantities = quantities.clone();
+                newQuantities[i] = quantity;
+                return new Requirements(partIds, newQuantities);
+            }
+            if (i >= 0) {
+                return new Requirements(remove(partIds, i), remove(quantities, i));
+            }
+            if (quantity > 0) {
+                return new Requirements(insert(partIds, -i - 1, partId), insert(quantities, -i - 1, quantity));
+            }
+            return this;
+        }
+
+        private static int[] insert(int[] values, int index, int value) {
+            int[] copy = new int[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, index);
+            copy[index] = value;
+            System.arraycopy(values, index, copy, index + 1, values.length - index);
+            return copy;
+        }
+
+        private static int[] remove(int[] values, int index) {
+            int[] copy = new int[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, index);
+            System.arraycopy(values, index + 1, copy, index, copy.length - index);
+            return copy;
+        }
+    }
+
+    /**
+     * This class creates a hold on the parts for units of a product, made by {@link StockLedger#reserve}
+     *
+     * A reservation is held until it is either consumed or released, once.
+     */
+    public static final class Reservation {
+        private static final int HELD = 0;
+        private static final int CONSUMED = 1;
+        private static final int RELEASED = 2;
+
+        private final int productId;
+        private final int units;
+        /** IDs of the parts held, in ascending order */
+        private final int[] partIds;
+        private final int[] quantities;
+        private final PartCount[] partCounts;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+
+        private Reservation(int productId, int units, int[] partIds, int[] quantities, PartCount[] partCounts) {
+            this.productId = productId;
+            this.units = units;
+            this.partIds = partIds;
+            this.quantities = quantities;
+            this.partCounts = partCounts;
+        }
+
+        /**
+         * @return the ID of the product reserved for
+         */
+        public int getProductId() {return productId;}
+
+        /**
+         * @return the units of the product reserved for
+         */
+        public int getUnits() {return units;}
+
+        /**
+         * Gets the units of a part held by this reservation
+         *
+         * @param partId ID of part
+         * @return units reserved, or 0 if the part is not part of the reservation
+         */
+        public int getQuantity(int partId) {
+            int i = Arrays.binarySearch(partIds, partId);
+            return i >= 0 ? quantities[i] : 0;
+        }
+
+        /**
+         * @return true if the reservation was neither consumed nor released yet
+         */
+        public boolean isHeld() {return state.get() == HELD;}
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.util.function.IntPredicate;
+
+/**
+ * This class creates ordered indexes of item IDs by price, by stock and by stock minus minimum
+ *
+ * Backs the range & top-N queries of reordering dashboards, such as parts priced between two
+ * prices or parts under their minimum stock, without scanning every item.
+ *
+ * @author Ella Upchurch
+ */
+final class StockLevelIndex {
+    private final OrderedIndex byPrice = new OrderedIndex();
+    private final OrderedIndex byStock = new OrderedIndex();
+    /** stock minus min, negative when an item is under its minimum */
+    private final OrderedIndex bySurplus = new OrderedIndex();
+
+    /**
+     * Indexes an item's current levels, replacing its earlier ones
+     *
+     * @param id ID of item
+     * @param price price of item
+     * @param stock inventory level of item
+     * @param min minimum of item
+     */
+    void put(int id, double price, int stock, int min) {
+        byPrice.put(id, price);
+        byStock.put(id, stock);
+        bySurplus.put(id, (double) stock - min);
+    }
+
+    /**
+     * Removes an item
+     *
+     * @param id ID of item
+     */
+    void remove(int id) {
+        byPrice.remove(id);
+        byStock.remove(id);
+        bySurplus.remove(id);
+    }
+
+    /** Visits items priced from low to high, cheapest first; returning false stops the visit */
+    void pricedBetween(double low, double high, IntPredicate action) {byPrice.forRange(low, high, action);}
+
+    /** Visits items stocked from low to high, lowest stock first; returning false stops the visit */
+    void stockedBetween(int low, int high, IntPredicate action) {byStock.forRange(low, high, action);}
+
+    /** Visits items with stock under their minimum, furthest under first; returning false stops the visit */
+    void underMin(IntPredicate action) {bySurplus.forRange(Double.NEGATIVE_INFINITY, -1, action);}
+
+    /** Visits every item, highest stock first; returning false stops the visit */
+    void byStockDescending(IntPredicate action) {byStock.forEachDescending(action);}
+}
@@ -0,0 +1,97 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class creates a dictionary giving each distinct string one shared instance and an int code
+ *
+ * Repeated strings, such as the few hundred company names used by millions of outsourced parts, are
+ * stored once; code the string and keep the int, or intern it and keep the shared String. Codes start
+ * at 0 and are never reused, so equal strings always have equal codes and grouping or comparing by code
+ * gives the same answer as by string. Strings are only dropped with the dictionary, so a dictionary is
+ * owned by the store or index holding its codes, like {@link PartColumns}, and goes with it; parts
+ * outside such a store share strings through a {@link StringInterner} instead.
+ *
+ * Lookups don't lock, so a dictionary can be used from any thread.
+ *
+ * @author Ella Upchurch
+ */
+public final class StringDictionary {
+    /** code of null, which is not stored */
+    public static final int NULL_CODE = -1;
+
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    /** strings by code; replaced, never changed below size, when it grows */
+    private volatile String[] values = new String[16];
+    private int size;
+
+    /** Creates an empty dictionary; its strings are dropped once it is no longer used */
+    public StringDictionary() {}
+
+    /**
+     * Gets the code of a string, adding the string if it is new
+     *
+     * @param value string to code, or null
+     * @return code of the string, or NULL_CODE for null
+     */
+    public int code(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Gets the code of a string without adding it
+     *
+     * @param value string to look up, or null
+     * @return code of the string, or NULL_CODE if it is null or not in the dictionary
+     */
+    public int find(String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : NULL_CODE;
+    }
+
+    /**
+     * Gets the string with a code
+     *
+     * @param code code from this dictionary, or NULL_CODE
+     * @return string with the code, or null for NULL_CODE
+     */
+    public String valueOf(int code) {return code == NULL_CODE ? null : values[code];}
+
+    /**
+     * Gets the shared instance of a string, adding the string if it is new
+     *
+     * @param value string to intern, or null
+     * @return equal string stored in the dictionary, or null
+     */
+    public String intern(String value) {return valueOf(code(value));}
+
+    /** Gets the number of distinct strings
+     * @return string count
+     */
+    public int size() {return codes.size();}
+
+    /** Stores a new string; the string is written before its code is published in the map */
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = value;
+        values = current;
+        codes.put(value, size);
+        return size++;
+    }
+}
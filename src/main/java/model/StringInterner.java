@@ -0,0 +1,54 @@
+package model;
+
+/**
+ * This class creates a bounded interner, giving equal strings that recur one shared instance
+ *
+ * The interner is a fixed table of recently interned strings, indexed by hash. Interning a string
+ * equal to the one in its slot returns that one; any other string takes over the slot. Repeated
+ * strings, such as the company names shared by many outsourced parts or a part name used across a
+ * catalog, are kept once in the parts, while a typo or a one-off name only holds its slot until another
+ * string replaces it. The table never grows, so an interner holds at most its capacity in strings.
+ *
+ * Lookups don't lock: a slot written by one thread may be missed by another, which then keeps its own
+ * equal string, so interning only ever costs sharing, never correctness.
+ *
+ * @author Ella Upchurch
+ */
+public final class StringInterner {
+    /** part names */
+    public static final StringInterner PART_NAMES = new StringInterner(1 << 14);
+    /** company names of outsourced parts */
+    public static final StringInterner COMPANY_NAMES = new StringInterner(1 << 10);
+
+    private final String[] slots;
+
+    /**
+     * Creates an empty interner
+     *
+     * @param capacity most strings held, rounded up to a power of two
+     */
+    public StringInterner(int capacity) {
+        slots = new String[Integer.highestOneBit(Math.max(2, capacity) - 1) << 1];
+    }
+
+    /**
+     * Gets the shared instance of a string, making this one shared if no equal string is held
+     *
+     * @param value string to intern, or null
+     * @return equal string held by the interner, value itself, or null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        int hash = value.hashCode();
+        // mix in the high bits, which the mask would drop
+        int slot = (hash ^ hash >>> 16) & (slots.length - 1);
+        String held = slots[slot];
+        if (value.equals(held)) {
+            return held;
+        }
+        slots[slot] = value;
+        return value;
+    }
+}
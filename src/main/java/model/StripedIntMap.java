@@ -0,0 +1,256 @@
+package model;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class creates a thread-safe int-keyed map split into independently locked stripes
+ *
+ * Each stripe is an {@link IntMap} guarded by its own read/write lock, so threads working on
+ * different keys rarely wait on each other and concurrent readers of one stripe never block.
+ *
+ * @param <V> type of value stored
+ *
+ * @author Ella Upchurch
+ */
+public class StripedIntMap<V> {
+    private final IntMap<V>[] stripes;
+    private final ReentrantReadWriteLock[] locks;
+    private final int shift;
+
+    /**
+     * Creates an empty map
+     *
+     * @param stripeCount number of stripes, rounded up to a power of two
+     */
+    public StripedIntMap(int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(2, stripeCount) - 1) << 1;
+        @SuppressWarnings("unchecked")
+        IntMap<V>[] newStripes = (IntMap<V>[]) new IntMap<?>[count];
+        stripes = newStripes;
+        locks = new ReentrantReadWriteLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new IntMap<>();
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        shift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    /**
+     * Gets the value stored for a key
+     *
+     * @param key key to look up
+     * @return value for key, or null if key is not present
+     */
+    public V get(int key) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.ReadLock lock = locks[stripe].readLock();
+        lock.lock();
+        try {
+            return stripes[stripe].get(key);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a value for a key, replacing any previous value
+     *
+     * @param key key to store
+     * @param value value to store, must not be null
+     * @return previous value for key, or null if there was none
+     */
+    public V put(int key, V value) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+        lock.lock();
+        try {
+            return stripes[stripe].put(key, value);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores a value for a key unless the key already has one
+     *
+     * @param key key to store
+     * @param value value to store, must not be null
+     * @return value now stored for key: the existing value, or the given one if there was none
+     */
+    public V putIfAbsent(int key, V value) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+        lock.lock();
+        try {
+            V existing = stripes[stripe].get(key);
+            if (existing != null) {
+                return existing;
+            }
+            stripes[stripe].put(key, value);
+            return value;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the value stored for a key
+     *
+     * @param key key to remove
+     * @return removed value, or null if key was not present
+     */
+    public V remove(int key) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+        lock.lock();
+        try {
+            return stripes[stripe].remove(key);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entry for a key only if it currently maps to the given value
+     *
+     * @param key key to remove
+     * @param value value the key must map to (compared by identity)
+     * @return true if the entry was removed
+     */
+    public boolean remove(int key, V value) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+        lock.lock();
+        try {
+            return stripes[stripe].remove(key, value);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the value stored for a key with a function of it, as one step
+     *
+     * @param key key to update
+     * @param remapping gets the value for key, or null, and returns the value to store, or null to
+     *                  remove the key; runs under the key's stripe lock, so it must be quick
+     * @return value now stored for key, or null
+     */
+    public V compute(int key, UnaryOperator<V> remapping) {
+        int stripe = stripeOf(key);
+        ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+        lock.lock();
+        try {
+            V value = remapping.apply(stripes[stripe].get(key));
+            if (value == null) {
+                stripes[stripe].remove(key);
+            }
+            else {
+                stripes[stripe].put(key, value);
+            }
+            return value;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the entries whose values match a filter; not atomic across stripes
+     *
+     * @param filter returns true for values to remove
+     */
+    public void removeIf(Predicate<? super V> filter) {
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+            lock.lock();
+            try {
+                IntList keys = new IntList();
+                stripes[stripe].forEach((key, value) -> {
+                    if (filter.test(value)) {
+                        keys.add(key);
+                    }
+                });
+                for (int i = 0; i < keys.size(); i++) {
+                    stripes[stripe].remove(keys.get(i));
+                }
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Locks the stripes of several keys for writing, in stripe order, so the caller can change those
+     * keys along with other work as one step; the map's methods can still be called by the caller meanwhile
+     *
+     * @param keys keys to lock
+     * @return stripes locked, to pass to {@link #unlockKeys(int[])}
+     */
+    public int[] lockKeys(int[] keys) {
+        IntList stripeList = new IntList(keys.length);
+        for (int key : keys) {
+            stripeList.add(stripeOf(key));
+        }
+        stripeList.sortDistinct();
+        int[] lockedStripes = stripeList.toArray();
+        for (int stripe : lockedStripes) {
+            locks[stripe].writeLock().lock();
+        }
+        return lockedStripes;
+    }
+
+    /**
+     * Unlocks stripes locked by {@link #lockKeys(int[])}
+     *
+     * @param lockedStripes stripes returned by lockKeys
+     */
+    public void unlockKeys(int[] lockedStripes) {
+        for (int i = lockedStripes.length - 1; i >= 0; i--) {
+            locks[lockedStripes[i]].writeLock().unlock();
+        }
+    }
+
+    /** Removes all entries; not atomic across stripes */
+    public void clear() {
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            ReentrantReadWriteLock.WriteLock lock = locks[stripe].writeLock();
+            lock.lock();
+            try {
+                stripes[stripe].clear();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** Gets the total number of entries; not atomic across stripes
+     * @return number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            ReentrantReadWriteLock.ReadLock lock = locks[stripe].readLock();
+            lock.lock();
+            try {
+                size += stripes[stripe].size();
+            }
+            finally {
+                lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    /** Uses the high bits of the key hash so stripes don't correlate with IntMap's probe slots */
+    private int stripeOf(int key) {return (key * 0x9E3779B9) >>> shift;}
+}
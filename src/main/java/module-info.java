@@ -8,5 +8,6 @@ module c482.c482_t1 {
     exports c482.main;
     exports controller;
     exports model;
+    exports persistence;
     opens controller to javafx.fxml;
 }
\ No newline at end of file
@@ -0,0 +1,454 @@
+package persistence;
+
+import model.Inventory;
+import model.InventoryListener;
+import model.Part;
+import model.Product;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * This class creates an append-only journal (write-ahead log) of inventory changes
+ *
+ * Every part & product change, association change and component change is encoded on the JavaFX thread and handed to a
+ * writer thread. A part or product changed in place through its setters, such as stock consumed by a
+ * build, is recorded as a store of its current state. The writer takes everything queued since its
+ * last write, appends it in one write and syncs the file once for the whole group, so a burst of
+ * edits costs one disk sync instead of one per edit. Each record is framed with its length and a
+ * CRC32; on startup the journal is replayed into
+ * {@link Inventory} and a torn record left by a crash is cut off.
+ *
+ * A checkpoint queued with {@link #checkpoint} is handled by the writer thread in order with the
+ * records: it writes the snapshot, then switches to a new, empty journal file and deletes the files
+ * the snapshot replaces.
+ *
+ * @author Ella Upchurch
+ */
+public class InventoryJournal implements InventoryListener, AutoCloseable {
+    private static final byte PART_STORED = 1;
+    private static final byte PART_REMOVED = 2;
+    private static final byte PRODUCT_STORED = 3;
+    private static final byte PRODUCT_REMOVED = 4;
+    private static final byte PART_QUANTITY_SET = 5;
+    private static final byte COMPONENT_SET = 6;
+
+    /** length + CRC in front of every record */
+    private static final int FRAME_HEADER = 8;
+    /** queue entry telling the writer thread to stop */
+    private static final Object CLOSE = new Object();
+
+    private volatile Path file;
+    private volatile FileChannel channel;
+    /** queued records (byte[]), checkpoints and the close marker, in order */
+    private final BlockingQueue<Object> pendingRecords = new LinkedBlockingQueue<>();
+    private final AtomicLong bytesSinceCheckpoint;
+    private final AtomicInteger pendingCheckpoints = new AtomicInteger();
+    private final AtomicLong syncs = new AtomicLong();
+    private final Thread writer;
+    private volatile IOException writeFailure;
+
+    private InventoryJournal(Path file, FileChannel channel, long length) {
+        this.file = file;
+        this.channel = channel;
+        bytesSinceCheckpoint = new AtomicLong(length);
+        writer = new Thread(this::writeLoop, "inventory-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Replays a journal into the inventory, then opens it to record further changes
+     *
+     * The returned journal is registered as an inventory listener and closed by a shutdown hook,
+     * so pending records are synced when the application exits.
+     *
+     * @param file journal file; created if missing
+     * @return open journal
+     * @throws IOException if the journal can't be read or opened
+     */
+    public static InventoryJournal open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        long validLength = Files.exists(file) ? replay(file) : 0;
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // drop a torn record left by a crash so new records follow the last good one
+        channel.truncate(validLength);
+        channel.position(validLength);
+
+        InventoryJournal journal = new InventoryJournal(file, channel, validLength);
+        Inventory.addListener(journal);
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "inventory-journal-close"));
+        return journal;
+    }
+
+    /**
+     * Applies every intact record in a journal to the inventory
+     *
+     * @param file journal file
+     * @return length of the intact part of the file
+     * @throws IOException if the file can't be read
+     */
+    static long replay(Path file) throws IOException {
+        long validLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0) {
+                        break;
+                    }
+                    record = in.readNBytes(length);
+                    if (record.length < length) {
+                        break;
+                    }
+                    crc.reset();
+                    crc.update(record);
+                    if ((int) crc.getValue() != checksum) {
+                        break;
+                    }
+                }
+                catch (EOFException e) {
+                    break;
+                }
+                apply(new DataInputStream(new ByteArrayInputStream(record)));
+                validLength += FRAME_HEADER + record.length;
+            }
+        }
+        return validLength;
+    }
+
+    /** Applies one decoded record to the inventory */
+    private static void apply(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case PART_STORED:
+                Inventory.addPart(RecordCodec.readPart(in));
+                break;
+            case PART_REMOVED:
+                Inventory.deletePart(Inventory.lookupPart(in.readInt()));
+                break;
+            case PRODUCT_STORED: {
+                Product product = RecordCodec.readProduct(in);
+                RecordCodec.readComponents(in, product);
+                Inventory.addProduct(product);
+                break;
+            }
+            case PRODUCT_REMOVED:
+                Inventory.deleteProduct(Inventory.lookupProduct(in.readInt()));
+                break;
+            case PART_QUANTITY_SET: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int partId = in.readInt();
+                int quantity = in.readInt();
+                if (product != null) {
+                    product.setAssociatedPartQuantity(partId, quantity);
+                }
+                break;
+            }
+            case COMPONENT_SET: {
+                Product product = Inventory.lookupProduct(in.readInt());
+                int componentId = in.readInt();
+                int quantity = in.readInt();
+                if (product != null) {
+                    product.setComponentQuantity(componentId, quantity);
+                }
+                break;
+            }
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+
+    /** The getter for the journal file
+     * @return path of journal file
+     */
+    public Path getFile() {return file;}
+
+    /** Gets the number of bytes in the current journal file, i.e. written since the last checkpoint
+     * @return journal length in bytes
+     */
+    public long getBytesSinceCheckpoint() {return bytesSinceCheckpoint.get();}
+
+    /** Gets the number of disk syncs so far, to check that records are synced in groups
+     * @return sync count
+     */
+    long getSyncCount() {return syncs.get();}
+
+    /** Gets the number of checkpoints queued but not yet written
+     * @return pending checkpoint count
+     */
+    public int getPendingCheckpoints() {return pendingCheckpoints.get();}
+
+    /**
+     * Queues a checkpoint after every record queued so far
+     *
+     * The writer thread writes the snapshot, starts recording into nextFile and deletes the current
+     * journal and the obsolete files. If the snapshot can't be written, recording carries on in the
+     * current journal.
+     *
+     * @param snapshot inventory captured after the last queued record
+     * @param snapshotFile file to write the snapshot to
+     * @param nextFile journal file to record later changes in
+     * @param obsoleteFiles files replaced by the snapshot, such as the previous snapshot
+     */
+    public void checkpoint(InventorySnapshot snapshot, Path snapshotFile, Path nextFile, Path... obsoleteFiles) {
+        if (writeFailure == null) {
+            pendingCheckpoints.incrementAndGet();
+            pendingRecords.add(new Checkpoint(snapshot, snapshotFile, nextFile, obsoleteFiles));
+        }
+    }
+
+    @Override
+    public void partStored(Part newPart, Part oldPart) {
+        append(out -> {
+            out.writeByte(PART_STORED);
+            RecordCodec.writePart(out, newPart);
+        });
+    }
+
+    /** Records a part changed in place by its setters as a store of its current state */
+    @Override
+    public void partChanged(Part part) {
+        partStored(part, part);
+    }
+
+    @Override
+    public void partRemoved(Part oldPart) {
+        append(out -> {
+            out.writeByte(PART_REMOVED);
+            out.writeInt(oldPart.getId());
+        });
+    }
+
+    @Override
+    public void productStored(Product newProduct, Product oldProduct) {
+        append(out -> {
+            out.writeByte(PRODUCT_STORED);
+            RecordCodec.writeProduct(out, newProduct);
+            RecordCodec.writeComponents(out, newProduct);
+        });
+    }
+
+    /** Records a product changed in place by its setters as a store of its current state */
+    @Override
+    public void productChanged(Product product) {
+        productStored(product, product);
+    }
+
+    @Override
+    public void productRemoved(Product oldProduct) {
+        append(out -> {
+            out.writeByte(PRODUCT_REMOVED);
+            out.writeInt(oldProduct.getId());
+        });
+    }
+
+    @Override
+    public void associationChanged(Product product, int partId, int quantity) {
+        append(out -> {
+            out.writeByte(PART_QUANTITY_SET);
+            out.writeInt(product.getId());
+            out.writeInt(partId);
+            out.writeInt(quantity);
+        });
+    }
+
+    @Override
+    public void componentChanged(Product assembly, int componentId, int quantity) {
+        append(out -> {
+            out.writeByte(COMPONENT_SET);
+            out.writeInt(assembly.getId());
+            out.writeInt(componentId);
+            out.writeInt(quantity);
+        });
+    }
+
+    /**
+     * Stops recording, writes & syncs every pending record and closes the file
+     */
+    @Override
+    public void close() {
+        Inventory.removeListener(this);
+        if (writer.isAlive()) {
+            pendingRecords.add(CLOSE);
+            try {
+                writer.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            channel.close();
+        }
+        catch (IOException e) {
+            System.err.println("Could not close inventory journal: " + e.getMessage());
+        }
+    }
+
+    /** Encodes a record with its frame and queues it for the writer thread */
+    private void append(RecordWriter body) {
+        if (writeFailure != null) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(0); // frame header, filled in below
+            body.write(out);
+            byte[] record = bytes.toByteArray();
+
+            CRC32 crc = new CRC32();
+            crc.update(record, FRAME_HEADER, record.length - FRAME_HEADER);
+            ByteBuffer.wrap(record).putInt(record.length - FRAME_HEADER).putInt((int) crc.getValue());
+            pendingRecords.add(record);
+        }
+        catch (IOException e) {
+            // writing to a byte array doesn't fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Writes queued records in groups, syncing the file once per group */
+    private void writeLoop() {
+        List<Object> queued = new ArrayList<>();
+        List<byte[]> group = new ArrayList<>();
+        boolean closing = false;
+        while (!closing) {
+            try {
+                queued.add(pendingRecords.take());
+            }
+            catch (InterruptedException e) {
+                closing = true;
+            }
+            pendingRecords.drainTo(queued);
+            try {
+                for (Object entry : queued) {
+                    if (entry instanceof byte[]) {
+                        group.add((byte[]) entry);
+                        continue;
+                    }
+                    // records queued before a checkpoint or close go to the current file first
+                    writeGroup(group);
+                    group.clear();
+                    if (entry == CLOSE) {
+                        closing = true;
+                    }
+                    else {
+                        try {
+                            rotate((Checkpoint) entry);
+                        }
+                        finally {
+                            pendingCheckpoints.decrementAndGet();
+                        }
+                    }
+                }
+                writeGroup(group);
+            }
+            catch (IOException e) {
+                writeFailure = e;
+                System.err.println("Inventory journal write failed, changes are no longer saved: " + e.getMessage());
+                return;
+            }
+            group.clear();
+            queued.clear();
+        }
+    }
+
+    private void writeGroup(List<byte[]> group) throws IOException {
+        int total = 0;
+        for (byte[] record : group) {
+            total += record.length;
+        }
+        if (total == 0) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (byte[] record : group) {
+            buffer.put(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        syncs.incrementAndGet();
+        bytesSinceCheckpoint.addAndGet(total);
+    }
+
+    /** Writes a checkpoint's snapshot and switches to its journal file */
+    private void rotate(Checkpoint checkpoint) throws IOException {
+        try {
+            checkpoint.snapshot.write(checkpoint.snapshotFile);
+        }
+        catch (IOException e) {
+            // the current journal still holds everything, so keep recording there
+            System.err.println("Could not write inventory snapshot: " + e.getMessage());
+            return;
+        }
+        FileChannel nextChannel = FileChannel.open(checkpoint.nextFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        FileChannel oldChannel = channel;
+        Path oldFile = file;
+        channel = nextChannel;
+        file = checkpoint.nextFile;
+        bytesSinceCheckpoint.set(0);
+        oldChannel.close();
+        deleteQuietly(oldFile);
+        for (Path obsolete : checkpoint.obsoleteFiles) {
+            deleteQuietly(obsolete);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException e) {
+            System.err.println("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    /** Snapshot to write and files to switch to, queued in order with the records */
+    private static class Checkpoint {
+        final InventorySnapshot snapshot;
+        final Path snapshotFile;
+        final Path nextFile;
+        final Path[] obsoleteFiles;
+
+        Checkpoint(InventorySnapshot snapshot, Path snapshotFile, Path nextFile, Path[] obsoleteFiles) {
+            this.snapshot = snapshot;
+            this.snapshotFile = snapshotFile;
+            this.nextFile = nextFile;
+            this.obsoleteFiles = obsoleteFiles;
+        }
+    }
+
+    /** Writes the body of one record */
+    @FunctionalInterface
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
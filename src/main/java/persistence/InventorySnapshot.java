@@ -0,0 +1,332 @@
+package persistence;
+
+import model.InHouse;
+import model.Inventory;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import model.RowSource;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class creates a columnar binary snapshot of the inventory
+ *
+ * Parts are stored column by column: type, ID, name, stock, min, max, machine ID or company name, and
+ * price each sit in a primitive array, with names and company names stored once in a string table.
+ * Products follow in the journal's record format, each with its components. A snapshot is read by
+ * memory-mapping the file, and parts are served to {@link Inventory#loadParts(RowSource)} straight from
+ * the mapped columns, so startup does not build every part object.
+ *
+ * File layout (big-endian, sections padded to 8 bytes):
+ * header, types (byte), IDs, name refs, stock, min, max, machine ID / company ref (int), prices
+ * (double), string offsets (int), string bytes (UTF-8), products.
+ *
+ * @author Ella Upchurch
+ */
+public class InventorySnapshot {
+    private static final int MAGIC = 0x494E5653; // "INVS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private final int partCount;
+    private final byte[] types;
+    private final int[] ids;
+    private final int[] nameRefs;
+    private final int[] stocks;
+    private final int[] mins;
+    private final int[] maxes;
+    private final int[] extras;
+    private final double[] prices;
+    private final List<String> strings;
+    private final byte[] products;
+    private final int productCount;
+
+    private InventorySnapshot(int partCount, List<String> strings, byte[] products, int productCount) {
+        this.partCount = partCount;
+        types = new byte[partCount];
+        ids = new int[partCount];
+        nameRefs = new int[partCount];
+        stocks = new int[partCount];
+        mins = new int[partCount];
+        maxes = new int[partCount];
+        extras = new int[partCount];
+        prices = new double[partCount];
+        this.strings = strings;
+        this.products = products;
+        this.productCount = productCount;
+    }
+
+    /**
+     * Copies the current inventory into columns; must be called on the thread owning the inventory
+     *
+     * Parts still stored only as snapshot rows are read without being kept in memory.
+     *
+     * @return captured snapshot, ready to be written from any thread
+     */
+    public static InventorySnapshot capture() {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringRefs = new HashMap<>();
+
+        ByteArrayOutputStream productBytes = new ByteArrayOutputStream();
+        DataOutputStream productOut = new DataOutputStream(productBytes);
+        try {
+            for (Product product : Inventory.getAllProducts()) {
+                RecordCodec.writeProduct(productOut, product);
+                RecordCodec.writeComponents(productOut, product);
+            }
+        }
+        catch (IOException e) {
+            // writing to a byte array doesn't fail
+            throw new IllegalStateException(e);
+        }
+
+        InventorySnapshot snapshot = new InventorySnapshot(Inventory.getAllParts().size(), strings,
+                productBytes.toByteArray(), Inventory.getAllProducts().size());
+        int[] row = {0};
+        Inventory.scanParts(part -> {
+            int r = row[0]++;
+            snapshot.ids[r] = part.getId();
+            snapshot.nameRefs[r] = stringRef(part.getName(), strings, stringRefs);
+            snapshot.prices[r] = part.getPrice();
+            snapshot.stocks[r] = part.getStock();
+            snapshot.mins[r] = part.getMin();
+            snapshot.maxes[r] = part.getMax();
+            if (part instanceof Outsourced) {
+                snapshot.types[r] = OUTSOURCED;
+                snapshot.extras[r] = stringRef(((Outsourced) part).getCompanyName(), strings, stringRefs);
+            }
+            else {
+                snapshot.types[r] = IN_HOUSE;
+                snapshot.extras[r] = ((InHouse) part).getMachineId();
+            }
+        });
+        return snapshot;
+    }
+
+    private static int stringRef(String value, List<String> strings, Map<String, Integer> stringRefs) {
+        return stringRefs.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size() - 1;
+        });
+    }
+
+    /**
+     * Writes the snapshot to a temporary file, syncs it and moves it into place
+     *
+     * @param file snapshot file
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream stream = Channels.newOutputStream(channel);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+
+            byte[][] encoded = new byte[strings.size()][];
+            int stringBytes = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                stringBytes += encoded[i].length;
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(partCount);
+            out.writeInt(strings.size());
+            out.writeInt(stringBytes);
+            out.writeInt(products.length);
+            out.writeInt(productCount);
+            out.writeInt(0);
+
+            out.write(types);
+            pad(out, partCount);
+            for (int[] column : new int[][] {ids, nameRefs, stocks, mins, maxes, extras}) {
+                for (int value : column) {
+                    out.writeInt(value);
+                }
+            }
+            pad(out, 6L * 4 * partCount);
+            for (double price : prices) {
+                out.writeDouble(price);
+            }
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] string : encoded) {
+                offset += string.length;
+                out.writeInt(offset);
+            }
+            for (byte[] string : encoded) {
+                out.write(string);
+            }
+            pad(out, 4L * (encoded.length + 1) + stringBytes);
+            out.write(products);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void pad(DataOutputStream out, long written) throws IOException {
+        for (long i = written; i % 8 != 0; i++) {
+            out.writeByte(0);
+        }
+    }
+
+    private static long padded(long length) {return (length + 7) & ~7L;}
+
+    /**
+     * Maps a snapshot file and loads it into the inventory
+     *
+     * Parts are loaded as rows read from the mapped file on demand; products are read right away.
+     *
+     * @param file snapshot file
+     * @throws IOException if the file can't be read or is not a snapshot
+     */
+    public static void load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot larger than 2 GB: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an inventory snapshot: " + file);
+        }
+        MappedParts parts = new MappedParts(buffer);
+        Inventory.loadParts(parts);
+
+        ByteBuffer productSection = buffer.duplicate().position(parts.productOffset).limit(parts.productOffset + parts.productLength);
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(productSection.slice()));
+        List<Product> loadedProducts = new ArrayList<>(parts.productCount);
+        for (int i = 0; i < parts.productCount; i++) {
+            Product product = RecordCodec.readProduct(in);
+            RecordCodec.readComponents(in, product);
+            loadedProducts.add(product);
+        }
+        Inventory.addProducts(loadedProducts);
+    }
+
+    /** Part rows read straight from a mapped snapshot */
+    private static class MappedParts implements RowSource<Part> {
+        private final ByteBuffer buffer;
+        private final int partCount;
+        private final int typeOffset;
+        private final int idOffset;
+        private final int nameOffset;
+        private final int stockOffset;
+        private final int minOffset;
+        private final int maxOffset;
+        private final int extraOffset;
+        private final int priceOffset;
+        private final int stringOffsetsOffset;
+        private final int stringBytesOffset;
+        private final int productOffset;
+        private final int productLength;
+        private final int productCount;
+        /** decoded strings, so each name is built once and shared by every part using it */
+        private final String[] strings;
+
+        MappedParts(ByteBuffer buffer) {
+            this.buffer = buffer;
+            partCount = buffer.getInt(8);
+            int stringCount = buffer.getInt(12);
+            int stringBytes = buffer.getInt(16);
+            productLength = buffer.getInt(20);
+            productCount = buffer.getInt(24);
+            strings = new String[stringCount];
+
+            typeOffset = HEADER_SIZE;
+            idOffset = (int) (typeOffset + padded(partCount));
+            nameOffset = idOffset + 4 * partCount;
+            stockOffset = nameOffset + 4 * partCount;
+            minOffset = stockOffset + 4 * partCount;
+            maxOffset = minOffset + 4 * partCount;
+            extraOffset = maxOffset + 4 * partCount;
+            priceOffset = (int) (idOffset + padded(6L * 4 * partCount));
+            stringOffsetsOffset = priceOffset + 8 * partCount;
+            stringBytesOffset = stringOffsetsOffset + 4 * (stringCount + 1);
+            productOffset = (int) (stringOffsetsOffset + padded(4L * (stringCount + 1) + stringBytes));
+        }
+
+        @Override
+        public int rowCount() {return partCount;}
+
+        @Override
+        public int idAt(int row) {return buffer.getInt(idOffset + 4 * row);}
+
+        @Override
+        public String nameAt(int row) {return string(buffer.getInt(nameOffset + 4 * row));}
+
+        @Override
+        public Part materialize(int row) {
+            int id = idAt(row);
+            String name = nameAt(row);
+            double price = buffer.getDouble(priceOffset + 8 * row);
+            int stock = buffer.getInt(stockOffset + 4 * row);
+            int min = buffer.getInt(minOffset + 4 * row);
+            int max = buffer.getInt(maxOffset + 4 * row);
+            int extra = buffer.getInt(extraOffset + 4 * row);
+            if (buffer.get(typeOffset + row) == OUTSOURCED) {
+                return new Outsourced(id, name, price, stock, min, max, string(extra));
+            }
+            return new InHouse(id, name, price, stock, min, max, extra);
+        }
+
+        private String string(int ref) {
+            String value = strings[ref];
+            if (value == null) {
+                int start = buffer.getInt(stringOffsetsOffset + 4 * ref);
+                int end = buffer.getInt(stringOffsetsOffset + 4 * (ref + 1));
+                byte[] bytes = new byte[end - start];
+                buffer.get(stringBytesOffset + start, bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+                strings[ref] = value;
+            }
+            return value;
+        }
+    }
+
+    /** Reads a byte buffer as a stream */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {this.buffer = buffer;}
+
+        @Override
+        public int read() {return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;}
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class keeps the inventory on disk as a snapshot plus a journal of later changes
+ *
+ * Files are numbered by generation: inventory-N.snapshot holds the whole inventory and
+ * inventory-N.journal the changes made after it. Opening loads the newest snapshot, replays its
+ * journal and keeps recording; a checkpoint writes generation N+1 and deletes generation N, so startup
+ * maps one compact snapshot instead of replaying every change ever made.
+ *
+ * @author Ella Upchurch
+ */
+public class InventoryStorage implements AutoCloseable {
+    /** journal size at which {@link #checkpointIfNeeded()} writes a new snapshot */
+    private static final long CHECKPOINT_BYTES = 4L << 20;
+    private static final Pattern GENERATION_FILE = Pattern.compile("inventory-(\\d+)\\.(snapshot|journal)");
+
+    private final Path directory;
+    private final InventoryJournal journal;
+    private final boolean newStorage;
+
+    private InventoryStorage(Path directory, InventoryJournal journal, boolean newStorage) {
+        this.directory = directory;
+        this.journal = journal;
+        this.newStorage = newStorage;
+    }
+
+    /**
+     * Loads the newest snapshot and its journal into the inventory, then records further changes
+     *
+     * @param directory data directory; created if missing
+     * @return open storage
+     * @throws IOException if the files can't be read or opened
+     */
+    public static InventoryStorage open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long generation = -1;
+        boolean anyFiles = false;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path path : files) {
+                Matcher matcher = GENERATION_FILE.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    anyFiles = true;
+                    if (matcher.group(2).equals("snapshot")) {
+                        generation = Math.max(generation, Long.parseLong(matcher.group(1)));
+                    }
+                }
+            }
+        }
+        if (generation >= 0) {
+            InventorySnapshot.load(snapshotFile(directory, generation));
+        }
+        else {
+            generation = 0;
+        }
+        InventoryJournal journal = InventoryJournal.open(journalFile(directory, generation));
+        deleteOtherGenerations(directory, generation);
+        return new InventoryStorage(directory, journal, !anyFiles);
+    }
+
+    private static void deleteOtherGenerations(Path directory, long generation) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path path : files) {
+                Matcher matcher = GENERATION_FILE.matcher(path.getFileName().toString());
+                if (matcher.matches() && Long.parseLong(matcher.group(1)) != generation) {
+                    // left behind by a crash during a checkpoint
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static Path snapshotFile(Path directory, long generation) {
+        return directory.resolve("inventory-" + generation + ".snapshot");
+    }
+
+    private static Path journalFile(Path directory, long generation) {
+        return directory.resolve("inventory-" + generation + ".journal");
+    }
+
+    /** Checks if the storage was created empty, i.e. this is the first run
+     * @return boolean that indicates if no saved inventory was found
+     */
+    public boolean isNew() {return newStorage;}
+
+    /** The getter for the journal recording changes
+     * @return journal
+     */
+    public InventoryJournal getJournal() {return journal;}
+
+    /**
+     * Captures the inventory and queues a new snapshot; must be called on the thread owning the
+     * inventory. The snapshot is written by the journal's writer thread.
+     */
+    public void checkpoint() {
+        InventorySnapshot snapshot = InventorySnapshot.capture();
+        // numbered after the file the journal will be using once earlier checkpoints are done
+        Matcher matcher = GENERATION_FILE.matcher(journal.getFile().getFileName().toString());
+        long generation = matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+        long next = generation + 1 + journal.getPendingCheckpoints();
+        journal.checkpoint(snapshot, snapshotFile(directory, next), journalFile(directory, next),
+                snapshotFile(directory, next - 1));
+    }
+
+    /**
+     * Writes a new snapshot if the journal has grown large since the last one; must be called on the
+     * thread owning the inventory
+     *
+     * @return boolean that indicates if a checkpoint was queued
+     */
+    public boolean checkpointIfNeeded() {
+        if (journal.getPendingCheckpoints() > 0 || journal.getBytesSinceCheckpoint() < CHECKPOINT_BYTES) {
+            return false;
+        }
+        checkpoint();
+        return true;
+    }
+
+    /**
+     * Writes & syncs pending changes and closes the journal
+     */
+    @Override
+    public void close() {journal.close();}
+}
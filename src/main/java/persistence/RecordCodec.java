@@ -0,0 +1,154 @@
+package persistence;
+
+import model.InHouse;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This class reads and writes parts, products and product components in the binary form used by the journal
+ *
+ * @author Ella Upchurch
+ */
+class RecordCodec {
+    private static final byte IN_HOUSE = 0;
+    private static final byte OUTSOURCED = 1;
+
+    private RecordCodec() {}
+
+    /**
+     * Writes a part
+     *
+     * @param out stream to write to
+     * @param part part to write
+     * @throws IOException if the stream can't be written
+     */
+    static void writePart(DataOutput out, Part part) throws IOException {
+        out.writeByte(part instanceof Outsourced ? OUTSOURCED : IN_HOUSE);
+        out.writeInt(part.getId());
+        out.writeUTF(part.getName());
+        out.writeDouble(part.getPrice());
+        out.writeInt(part.getStock());
+        out.writeInt(part.getMin());
+        out.writeInt(part.getMax());
+        if (part instanceof Outsourced) {
+            out.writeUTF(((Outsourced) part).getCompanyName());
+        }
+        else {
+            out.writeInt(((InHouse) part).getMachineId());
+        }
+    }
+
+    /**
+     * Reads a part
+     *
+     * @param in stream to read from
+     * @return part read
+     * @throws IOException if the stream can't be read or holds an unknown part type
+     */
+    static Part readPart(DataInput in) throws IOException {
+        byte kind = in.readByte();
+        int id = in.readInt();
+        String name = in.readUTF();
+        double price = in.readDouble();
+        int stock = in.readInt();
+        int min = in.readInt();
+        int max = in.readInt();
+        switch (kind) {
+            case IN_HOUSE:
+                return new InHouse(id, name, price, stock, min, max, in.readInt());
+            case OUTSOURCED:
+                return new Outsourced(id, name, price, stock, min, max, in.readUTF());
+            default:
+                throw new IOException("Unknown part type " + kind);
+        }
+    }
+
+    /**
+     * Writes a product with the IDs of its associated parts & their quantities
+     *
+     * @param out stream to write to
+     * @param product product to write
+     * @throws IOException if the stream can't be written
+     */
+    static void writeProduct(DataOutput out, Product product) throws IOException {
+        writeProductFields(out, product);
+        int[] entries = new int[product.getAssociatedPartCount() * 2];
+        int[] next = {0};
+        product.forEachAssociatedPart((partId, quantity) -> {
+            entries[next[0]++] = partId;
+            entries[next[0]++] = quantity;
+        });
+        out.writeInt(product.getAssociatedPartCount());
+        for (int entry : entries) {
+            out.writeInt(entry);
+        }
+    }
+
+    /**
+     * Reads a product with the IDs of its associated parts & their quantities
+     *
+     * @param in stream to read from
+     * @return product read
+     * @throws IOException if the stream can't be read
+     */
+    static Product readProduct(DataInput in) throws IOException {
+        Product product = readProductFields(in);
+        int partCount = in.readInt();
+        for (int i = 0; i < partCount; i++) {
+            product.setAssociatedPartQuantity(in.readInt(), in.readInt());
+        }
+        return product;
+    }
+
+    private static void writeProductFields(DataOutput out, Product product) throws IOException {
+        out.writeInt(product.getId());
+        out.writeUTF(product.getName());
+        out.writeDouble(product.getPrice());
+        out.writeInt(product.getStock());
+        out.writeInt(product.getMin());
+        out.writeInt(product.getMax());
+    }
+
+    private static Product readProductFields(DataInput in) throws IOException {
+        return new Product(in.readInt(), in.readUTF(), in.readDouble(), in.readInt(), in.readInt(), in.readInt());
+    }
+
+    /**
+     * Writes a product's components as a count followed by component ID & quantity pairs
+     *
+     * @param out stream to write to
+     * @param product product whose components are written
+     * @throws IOException if the stream can't be written
+     */
+    static void writeComponents(DataOutput out, Product product) throws IOException {
+        int[] entries = new int[product.getComponentCount() * 2];
+        int[] next = {0};
+        product.forEachComponent((componentId, quantity) -> {
+            entries[next[0]++] = componentId;
+            entries[next[0]++] = quantity;
+        });
+        out.writeInt(product.getComponentCount());
+        for (int entry : entries) {
+            out.writeInt(entry);
+        }
+    }
+
+    /**
+     * Reads components written by {@link #writeComponents} into a product
+     *
+     * @param in stream to read from
+     * @param product product to set the components of
+     * @throws IOException if the stream can't be read
+     */
+    static void readComponents(DataInput in, Product product) throws IOException {
+        int componentCount = in.readInt();
+        for (int i = 0; i < componentCount; i++) {
+            product.setComponentQuantity(in.readInt(), in.readInt());
+        }
+    }
+}
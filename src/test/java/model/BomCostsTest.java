@@ -0,0 +1,96 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class tests that memoized parts costs are recomputed after the changes that affect them, and
+ * only those
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class BomCostsTest {
+    @Test
+    void repricingAPartTwoLevelsDownRecomputesItsUsers() throws Exception {
+        onInventoryThread(() -> {
+            Part spoke = addPart(100);
+            spoke.setPrice(0.5);
+            Part grip = addPart(100);
+            grip.setPrice(3.0);
+            Product wheel = addProduct("Wheel");
+            wheel.addAssociatedPart(spoke, 32);
+            Product handlebar = addProduct("Handlebar");
+            handlebar.addAssociatedPart(grip, 2);
+            Product bike = addProduct("Bike");
+            bike.addComponent(wheel, 2);
+            bike.addComponent(handlebar, 1);
+
+            assertEquals(32 * 2 * 0.5 + 2 * 3.0, BomCosts.getPartsCost(bike));
+            assertEquals(6.0, BomCosts.getPartsCost(handlebar));
+            long recomputations = BomCosts.getRecomputations();
+
+            spoke.setPrice(0.75);
+            assertEquals(32 * 2 * 0.75 + 2 * 3.0, BomCosts.getPartsCost(bike));
+            assertEquals(6.0, BomCosts.getPartsCost(handlebar));
+            // the wheel and the bike, but not the handlebar
+            assertEquals(recomputations + 2, BomCosts.getRecomputations());
+            return null;
+        });
+    }
+
+    @Test
+    void stockChangesKeepMemoizedCosts() throws Exception {
+        onInventoryThread(() -> {
+            Part bolt = addPart(10);
+            Product frame = addProduct("Frame");
+            frame.addAssociatedPart(bolt, 4);
+            Product bike = addProduct("Bike");
+            bike.addComponent(frame, 1);
+            assertEquals(4.0, BomCosts.getPartsCost(bike));
+            long recomputations = BomCosts.getRecomputations();
+
+            bolt.setStock(9);
+            bolt.setName("Bolt");
+            bolt.setPrice(1.0);
+            assertEquals(4.0, BomCosts.getPartsCost(bike));
+            assertEquals(recomputations, BomCosts.getRecomputations());
+
+            // replacing the part drops the costs whatever its price
+            Inventory.updatePart(new InHouse(bolt.getId(), "Bolt", 2.0, 9, 0, 10, 1));
+            assertEquals(8.0, BomCosts.getPartsCost(bike));
+            assertEquals(recomputations + 2, BomCosts.getRecomputations());
+            return null;
+        });
+    }
+
+    @Test
+    void componentCycleIsReported() throws Exception {
+        onInventoryThread(() -> {
+            Part axle = addPart(10);
+            Product hub = addProduct("Hub");
+            hub.addAssociatedPart(axle);
+            // a product stored later can close a cycle
+            Product wheel = new Product(Inventory.getNewProductId(), "Wheel", 10, 0, 0, 10);
+            wheel.addComponent(hub, 1);
+            hub.addComponent(wheel, 1);
+            Inventory.addProduct(wheel);
+
+            assertThrows(IllegalStateException.class, () -> BomCosts.getPartsCost(wheel));
+            assertThrows(IllegalStateException.class, () -> BomCosts.getPartsCost(hub));
+
+            // breaking the cycle drops whatever was costed before it was found
+            hub.removeComponent(wheel);
+            assertEquals(1.0, BomCosts.getPartsCost(wheel));
+            axle.setPrice(5.0);
+            assertEquals(5.0, BomCosts.getPartsCost(wheel));
+            return null;
+        });
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests BomExplosion totals through several levels of components, and its memo
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class BomExplosionTest {
+    @Test
+    void sharedSubAssembliesAddUpThroughEveryLevel() throws Exception {
+        onInventoryThread(() -> {
+            Part spoke = addPart(0);
+            Part tube = addPart(0);
+            Product wheel = addProduct("Wheel");
+            wheel.addAssociatedPart(spoke, 32);
+            Product frame = addProduct("Frame");
+            frame.addAssociatedPart(tube, 3);
+            frame.addComponent(wheel, 1);
+            Product bike = addProduct("Bike");
+            bike.addAssociatedPart(tube, 1);
+            bike.addComponent(wheel, 1);
+            bike.addComponent(frame, 1);
+
+            IntIntMap parts = BomExplosion.explode(bike, 5);
+            assertEquals(2, parts.size());
+            assertEquals(5 * (32 + 32), parts.get(spoke.getId()));
+            assertEquals(5 * (1 + 3), parts.get(tube.getId()));
+            assertEquals(0, BomExplosion.explode(bike, 0).get(tube.getId()));
+
+            // a product outside the inventory is exploded against the stored components
+            Product tandem = new Product(Inventory.getNewProductId(), "Tandem", 1, 0, 0, 1);
+            tandem.addComponent(frame, 2);
+            tandem.setComponentQuantity(Inventory.getNewProductId(), 4);
+            assertEquals(2 * 32, BomExplosion.explode(tandem, 1).get(spoke.getId()));
+            return null;
+        });
+    }
+
+    @Test
+    void changesRecomputeOnlyTheProductsBuiltFromTheChangedOne() throws Exception {
+        onInventoryThread(() -> {
+            Part bolt = addPart(0);
+            Product bracket = addProduct("Bracket");
+            bracket.addAssociatedPart(bolt, 2);
+            Product shelf = addProduct("Shelf");
+            shelf.addComponent(bracket, 2);
+            Product rack = addProduct("Rack");
+            rack.addComponent(shelf, 3);
+            Product stand = addProduct("Stand");
+            stand.addComponent(bracket, 1);
+
+            assertEquals(12, BomExplosion.explode(rack, 1).get(bolt.getId()));
+            assertEquals(2, BomExplosion.explode(stand, 1).get(bolt.getId()));
+            long recomputations = BomExplosion.getRecomputations();
+            assertEquals(24, BomExplosion.explode(rack, 2).get(bolt.getId()));
+            assertEquals(recomputations, BomExplosion.getRecomputations());
+
+            shelf.setComponentQuantity(bracket.getId(), 4);
+            assertEquals(24, BomExplosion.explode(rack, 1).get(bolt.getId()));
+            assertEquals(2, BomExplosion.explode(stand, 1).get(bolt.getId()));
+            // the shelf and the rack, but not the bracket or the stand
+            assertEquals(recomputations + 2, BomExplosion.getRecomputations());
+
+            bracket.setAssociatedPartQuantity(bolt, 1);
+            assertEquals(12, BomExplosion.explode(rack, 1).get(bolt.getId()));
+            assertEquals(1, BomExplosion.explode(stand, 1).get(bolt.getId()));
+            return null;
+        });
+    }
+
+    @Test
+    void cyclesAreRejectedOrReported() throws Exception {
+        onInventoryThread(() -> {
+            Product hub = addProduct("Hub");
+            Product wheel = addProduct("Wheel");
+            wheel.addComponent(hub, 1);
+            assertTrue(BomExplosion.contains(wheel.getId(), hub.getId()));
+            assertFalse(BomExplosion.contains(hub.getId(), wheel.getId()));
+            assertThrows(IllegalArgumentException.class, () -> hub.addComponent(wheel, 1));
+            assertThrows(IllegalArgumentException.class, () -> hub.addComponent(hub, 1));
+
+            // a product stored later can still close a cycle, which the explosion reports
+            Product rim = new Product(Inventory.getNewProductId(), "Rim", 1, 0, 0, 1);
+            rim.addComponent(wheel, 1);
+            assertEquals(0, BomExplosion.explode(rim, 1).size());
+            Inventory.addProduct(rim);
+            Product looped = new Product(hub.getId(), "Hub", 1, 0, 0, 1);
+            looped.addComponent(rim, 1);
+            assertTrue(Inventory.updateProduct(looped));
+            assertThrows(IllegalStateException.class, () -> BomExplosion.explode(wheel, 1));
+            return null;
+        });
+    }
+
+    @Test
+    void badQuantitiesFail() throws Exception {
+        onInventoryThread(() -> {
+            Part rivet = addPart(0);
+            Product panel = addProduct("Panel");
+            panel.addAssociatedPart(rivet, 1 << 20);
+            Product hull = addProduct("Hull");
+            hull.addComponent(panel, 1 << 12);
+            assertThrows(IllegalArgumentException.class, () -> BomExplosion.explode(panel, -1));
+            assertThrows(ArithmeticException.class, () -> BomExplosion.explode(hull, 1));
+            assertEquals(1 << 20, BomExplosion.explode(panel, 1).get(rivet.getId()));
+            return null;
+        });
+    }
+}
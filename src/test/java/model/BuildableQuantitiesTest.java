@@ -0,0 +1,95 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class tests BuildableQuantities limits through several levels of components, and its memo
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class BuildableQuantitiesTest {
+    @Test
+    void scarcestPartAtAnyLevelLimitsTheProduct() throws Exception {
+        onInventoryThread(() -> {
+            Part spoke = addPart(640);
+            Part tube = addPart(30);
+            Product wheel = addProduct("Wheel");
+            wheel.addAssociatedPart(spoke, 32);
+            Product bike = addProduct("Bike");
+            bike.addAssociatedPart(tube, 3);
+            bike.addComponent(wheel, 2);
+
+            assertEquals(20, BuildableQuantities.getBuildable(wheel));
+            // 640 spokes make 10 bikes' wheels; 30 tubes would make 10 as well
+            assertEquals(10, BuildableQuantities.getBuildable(bike));
+            tube.setStock(29);
+            assertEquals(9, BuildableQuantities.getBuildable(bike));
+            tube.setStock(-5);
+            assertEquals(0, BuildableQuantities.getBuildable(bike));
+
+            assertEquals(0, BuildableQuantities.getBuildable(addProduct("Empty")), "needs no parts");
+            Inventory.deletePart(spoke);
+            assertEquals(0, BuildableQuantities.getBuildable(wheel), "part missing from the inventory");
+            return null;
+        });
+    }
+
+    @Test
+    void stockEditsRecomputeOnlyTheProductsBuiltFromThePart() throws Exception {
+        onInventoryThread(() -> {
+            Part bolt = addPart(100);
+            Part nut = addPart(100);
+            Product bracket = addProduct("Bracket");
+            bracket.addAssociatedPart(bolt, 2);
+            Product shelf = addProduct("Shelf");
+            shelf.addComponent(bracket, 5);
+            Product clamp = addProduct("Clamp");
+            clamp.addAssociatedPart(nut, 4);
+
+            assertEquals(10, BuildableQuantities.getBuildable(shelf));
+            assertEquals(25, BuildableQuantities.getBuildable(clamp));
+            long recomputations = BuildableQuantities.getRecomputations();
+            assertEquals(10, BuildableQuantities.getBuildable(shelf));
+            assertEquals(recomputations, BuildableQuantities.getRecomputations());
+
+            bolt.setStock(40);
+            assertEquals(4, BuildableQuantities.getBuildable(shelf));
+            assertEquals(20, BuildableQuantities.getBuildable(bracket));
+            assertEquals(25, BuildableQuantities.getBuildable(clamp));
+            // the shelf and the bracket, but not the clamp
+            assertEquals(recomputations + 2, BuildableQuantities.getRecomputations());
+
+            shelf.setComponentQuantity(bracket.getId(), 10);
+            assertEquals(2, BuildableQuantities.getBuildable(shelf));
+            return null;
+        });
+    }
+
+    @Test
+    void unstoredAndOverflowingProductsAreComputedEachTime() throws Exception {
+        onInventoryThread(() -> {
+            Part rivet = addPart(1_000);
+            Product panel = addProduct("Panel");
+            panel.addAssociatedPart(rivet, 1 << 20);
+            Product hull = addProduct("Hull");
+            hull.addComponent(panel, 1 << 12);
+            assertEquals(0, BuildableQuantities.getBuildable(hull), "needs more rivets than an int holds");
+
+            Product loose = new Product(Inventory.getNewProductId(), "Loose", 1, 0, 0, 1);
+            loose.addAssociatedPart(rivet, 10);
+            long recomputations = BuildableQuantities.getRecomputations();
+            assertEquals(100, BuildableQuantities.getBuildable(loose));
+            rivet.setStock(50);
+            assertEquals(5, BuildableQuantities.getBuildable(loose));
+            assertEquals(recomputations, BuildableQuantities.getRecomputations());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,136 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that changes made through ConcurrentInventory show at once from any thread and
+ * reach the inventory in order
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class ConcurrentInventoryTest {
+    private static final int WRITERS = 8;
+
+    @Test
+    void queuedChangesShowBeforeTheyAreApplied() throws Exception {
+        // hold the inventory thread so the queued changes wait
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService holder = Executors.newSingleThreadExecutor();
+        Future<?> held = holder.submit(() -> onInventoryThread(() -> {
+            holding.countDown();
+            release.await();
+            return null;
+        }));
+        holding.await();
+        Part part = new InHouse(ConcurrentInventory.getNewPartId(), "Queued", 1.0, 1, 0, 10, 1);
+        Product product = new Product(ConcurrentInventory.getNewProductId(), "Queued", 1.0, 1, 0, 10);
+        ConcurrentInventory.addPart(part);
+        ConcurrentInventory.addProduct(product);
+        assertSame(part, ConcurrentInventory.lookupPart(part.getId()));
+        assertSame(product, ConcurrentInventory.lookupProduct(product.getId()));
+        assertTrue(ConcurrentInventory.deleteProduct(product.getId()));
+        assertNull(ConcurrentInventory.lookupProduct(product.getId()));
+        assertFalse(ConcurrentInventory.deleteProduct(product.getId()), "nothing left to delete");
+
+        release.countDown();
+        held.get();
+        holder.shutdown();
+        InventoryFixture.flush();
+        assertSame(part, onInventoryThread(() -> Inventory.lookupPart(part.getId())));
+        assertNull(onInventoryThread(() -> Inventory.lookupProduct(product.getId())));
+    }
+
+    @Test
+    void directChangesAreMirrored() throws Exception {
+        Part part = onInventoryThread(() -> addPart(5));
+        assertSame(part, ConcurrentInventory.lookupPart(part.getId()));
+        Part replacement = new Outsourced(part.getId(), "Replacement", 2.0, 6, 0, 10, "Supplier");
+        onInventoryThread(() -> Inventory.updatePart(replacement));
+        assertSame(replacement, ConcurrentInventory.lookupPart(part.getId()));
+        onInventoryThread(() -> Inventory.deletePart(replacement));
+        assertNull(ConcurrentInventory.lookupPart(part.getId()));
+    }
+
+    @Test
+    void loadedRowsAreServedUntilReplaced() throws Exception {
+        PartColumns columns = new PartColumns();
+        int id = ConcurrentInventory.getNewPartId();
+        columns.addInHouse(id, "Row", 4.0, 3, 0, 10, 2);
+        columns.addInHouse(id + 1, "Other row", 4.0, 3, 0, 10, 2);
+        onInventoryThread(() -> {
+            Inventory.loadParts(columns);
+            return null;
+        });
+        assertEquals("Row", ConcurrentInventory.lookupPart(id).getName());
+
+        ConcurrentInventory.addPart(new InHouse(id, "Stored", 4.0, 3, 0, 10, 2));
+        assertTrue(ConcurrentInventory.deletePart(id + 1));
+        assertEquals("Stored", ConcurrentInventory.lookupPart(id).getName());
+        assertNull(ConcurrentInventory.lookupPart(id + 1), "the delete hides the row");
+        assertEquals("Row", ConcurrentInventory.lookupLoadedPart(id).getName());
+
+        InventoryFixture.flush();
+        assertEquals("Stored", onInventoryThread(() -> Inventory.lookupPart(id).getName()));
+        assertNull(onInventoryThread(() -> Inventory.lookupPart(id + 1)));
+        assertNull(ConcurrentInventory.lookupPart(id + 1));
+    }
+
+    @Test
+    void changesFromManyThreadsReachTheInventoryInOrder() throws Exception {
+        int ids = 50;
+        int rounds = 400;
+        int firstId = ConcurrentInventory.getNewPartId();
+        for (int i = 1; i < ids; i++) {
+            ConcurrentInventory.getNewPartId();
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> finished = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            finished.add(writers.submit(() -> {
+                start.await();
+                for (int i = 0; i < rounds; i++) {
+                    int id = firstId + (writer * rounds + i) % ids;
+                    if (i % 7 == 0) {
+                        ConcurrentInventory.deletePart(id);
+                    }
+                    else {
+                        ConcurrentInventory.addPart(new InHouse(id, "Writer " + writer, 1.0, i, 0, 1_000, 1));
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : finished) {
+            future.get();
+        }
+        writers.shutdown();
+
+        // whatever the maps show last for an ID is what the inventory ends up with
+        InventoryFixture.flush();
+        for (int id = firstId; id < firstId + ids; id++) {
+            int partId = id;
+            assertSame(ConcurrentInventory.lookupPart(partId), onInventoryThread(() -> Inventory.lookupPart(partId)));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package model;
+
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class runs tests against the static inventory, starting each test from an empty inventory
+ *
+ * A single-thread executor stands in for the JavaFX thread that owns the inventory; it runs the
+ * changes queued by {@link ConcurrentInventory} and the tasks passed to {@link #onInventoryThread}.
+ * Parts & products are deleted through {@link Inventory}, so the ledger, versions and other listeners
+ * drop them as well; IDs keep counting up, so no test sees another test's IDs.
+ *
+ * @author Ella Upchurch
+ */
+public final class InventoryFixture implements BeforeEachCallback {
+    private static final ExecutorService inventoryThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "test-inventory");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws Exception {
+        ConcurrentInventory.setPublisher(inventoryThread);
+        onInventoryThread(() -> {
+            ConcurrentInventory.flush();
+            emptyInventory();
+            return null;
+        });
+    }
+
+    /**
+     * Deletes every part & product; must be called on the thread owning the inventory, e.g. before
+     * loading a saved inventory again
+     */
+    public static void emptyInventory() {
+        for (Product product : new ArrayList<>(Inventory.getAllProducts())) {
+            Inventory.deleteProduct(product);
+        }
+        for (Part part : new ArrayList<>(Inventory.getAllParts())) {
+            Inventory.deletePart(part);
+        }
+    }
+
+    /**
+     * Runs a task on the thread owning the inventory and waits for it
+     *
+     * @param task task to run
+     * @param <T> type of result
+     * @return result of the task
+     * @throws Exception thrown by the task
+     */
+    public static <T> T onInventoryThread(Callable<T> task) throws Exception {
+        try {
+            return inventoryThread.submit(task).get();
+        }
+        catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    /**
+     * Applies every change queued by other threads
+     *
+     * @throws Exception if a change fails
+     */
+    public static void flush() throws Exception {
+        onInventoryThread(() -> {
+            ConcurrentInventory.flush();
+            return null;
+        });
+    }
+
+    /**
+     * Adds an in-house part with a new ID; must be called on the thread owning the inventory
+     *
+     * @param stock stock of the part
+     * @return added part
+     */
+    public static Part addPart(int stock) {
+        Part part = new InHouse(Inventory.getNewPartId(), "Part", 1.0, stock, 0, 100_000, 1);
+        Inventory.addPart(part);
+        return part;
+    }
+
+    /**
+     * Adds a product with a new ID and no parts; must be called on the thread owning the inventory
+     *
+     * @param name name of the product
+     * @return added product
+     */
+    public static Product addProduct(String name) {
+        Product product = new Product(Inventory.getNewProductId(), name, 10, 0, 0, 10);
+        Inventory.addProduct(product);
+        return product;
+    }
+}
@@ -0,0 +1,162 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that InventoryTransaction commits are refused when a part or product they touched
+ * was changed since they started, and that they see the inventory as it was when they started
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class InventoryTransactionTest {
+    private static final int WORKERS = 8;
+
+    @Test
+    void secondWriterOfAPartIsRefused() throws Exception {
+        int partId = onInventoryThread(() -> addPart(10)).getId();
+        InventoryTransaction first = Inventory.beginTransaction();
+        InventoryTransaction second = Inventory.beginTransaction();
+        Part firstCopy = first.lookupPart(partId);
+        Part secondCopy = second.lookupPart(partId);
+        firstCopy.setStock(11);
+        secondCopy.setStock(12);
+        assertTrue(first.updatePart(firstCopy));
+        assertTrue(second.updatePart(secondCopy));
+
+        assertTrue(onInventoryThread(() -> Inventory.commit(first)));
+        assertFalse(onInventoryThread(() -> Inventory.commit(second)));
+        assertEquals(11, onInventoryThread(() -> Inventory.lookupPart(partId).getStock()));
+        assertFalse(second.isOpen());
+        assertThrows(IllegalStateException.class, () -> second.lookupPart(partId));
+    }
+
+    @Test
+    void changeOutsideTransactionConflicts() throws Exception {
+        Part part = onInventoryThread(() -> addPart(10));
+        InventoryTransaction transaction = Inventory.beginTransaction();
+        Part copy = transaction.lookupPart(part.getId());
+        assertNotSame(part, copy);
+
+        onInventoryThread(() -> {
+            Part edited = new InHouse(part.getId(), "Edited", 2.0, 20, 0, 1_000, 1);
+            return Inventory.updatePart(edited);
+        });
+        copy.setStock(30);
+        transaction.updatePart(copy);
+        assertFalse(onInventoryThread(() -> Inventory.commit(transaction)));
+        assertEquals(20, onInventoryThread(() -> Inventory.lookupPart(part.getId()).getStock()));
+    }
+
+    @Test
+    void readOnlyTransactionKeepsItsSnapshot() throws Exception {
+        Part part = onInventoryThread(() -> addPart(10));
+        Product product = onInventoryThread(() -> addProduct("Crate"));
+        try (InventoryTransaction transaction = Inventory.beginTransaction()) {
+            onInventoryThread(() -> {
+                Inventory.updatePart(new InHouse(part.getId(), "Edited", 1.0, 99, 0, 1_000, 1));
+                return Inventory.deleteProduct(product);
+            });
+            assertEquals(10, transaction.lookupPart(part.getId()).getStock());
+            assertEquals("Crate", transaction.lookupProduct(product.getId()).getName());
+            assertNull(transaction.lookupPart(Inventory.getNewPartId()));
+            assertFalse(transaction.commit(), "its reads are no longer current");
+        }
+        assertNull(onInventoryThread(() -> Inventory.lookupProduct(product.getId())));
+    }
+
+    @Test
+    void inPlaceChangeKeepsOnlyStatesAlreadyRead() throws Exception {
+        Part unread = onInventoryThread(() -> addPart(10));
+        Part read = onInventoryThread(() -> addPart(20));
+        InventoryTransaction first = Inventory.beginTransaction();
+        InventoryTransaction second = Inventory.beginTransaction();
+        assertEquals(20, first.lookupPart(read.getId()).getStock());
+        onInventoryThread(() -> {
+            unread.setStock(11);
+            read.setStock(21);
+            return null;
+        });
+
+        // no copy of the unread part was kept, so its earlier state is gone
+        assertEquals(11, second.lookupPart(unread.getId()).getStock());
+        // the read part's copy was kept for the first transaction, and serves the second as well
+        assertEquals(20, second.lookupPart(read.getId()).getStock());
+        assertFalse(second.commit());
+        assertFalse(first.commit());
+        assertTrue(Inventory.getPartVersion(unread.getId()) > 0);
+    }
+
+    @Test
+    void disjointTransactionsBothCommit() throws Exception {
+        int left = onInventoryThread(() -> addPart(1)).getId();
+        int right = onInventoryThread(() -> addPart(2)).getId();
+        InventoryTransaction first = Inventory.beginTransaction();
+        InventoryTransaction second = Inventory.beginTransaction();
+        Part leftCopy = first.lookupPart(left);
+        leftCopy.setStock(5);
+        first.updatePart(leftCopy);
+        Part rightCopy = second.lookupPart(right);
+        rightCopy.setStock(6);
+        second.updatePart(rightCopy);
+        assertTrue(second.deletePart(right) && second.lookupPart(right) == null);
+        second.addPart(rightCopy);
+
+        assertTrue(onInventoryThread(() -> Inventory.commit(second)));
+        assertTrue(onInventoryThread(() -> Inventory.commit(first)));
+        assertEquals(5, onInventoryThread(() -> Inventory.lookupPart(left).getStock()));
+        assertEquals(6, onInventoryThread(() -> Inventory.lookupPart(right).getStock()));
+        assertTrue(Inventory.getPartVersion(left) > 0);
+    }
+
+    @Test
+    void contendedIncrementsLoseNoUpdates() throws Exception {
+        int partId = onInventoryThread(() -> addPart(0)).getId();
+        int increments = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS);
+        List<Future<?>> finished = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            finished.add(workers.submit(() -> {
+                start.await();
+                for (int done = 0; done < increments; ) {
+                    InventoryTransaction transaction = Inventory.beginTransaction();
+                    Part copy = transaction.lookupPart(partId);
+                    copy.setStock(copy.getStock() + 1);
+                    transaction.updatePart(copy);
+                    // committed off the inventory thread, so the change is queued to it
+                    if (transaction.commit()) {
+                        done++;
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : finished) {
+            future.get();
+        }
+        workers.shutdown();
+
+        InventoryFixture.flush();
+        assertEquals(WORKERS * increments, onInventoryThread(() -> Inventory.lookupPart(partId).getStock()));
+    }
+}
@@ -0,0 +1,154 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class tests OrderedIndex inserts, moves and deletes, and the range & top-N visits over the tree
+ *
+ * @author Ella Upchurch
+ */
+class OrderedIndexTest {
+    @Test
+    void sortedInsertsAndDeletesStayBalanced() {
+        // unbalanced, ascending keys would make a chain deeper than the visit stacks
+        OrderedIndex index = new OrderedIndex();
+        int count = 1 << 16;
+        for (int id = 0; id < count; id++) {
+            index.put(id, id);
+        }
+        assertEquals(count, index.size());
+        assertEquals(range(0, count), visitRange(index, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+
+        // deleting the low half leaves the high half hanging off one side until rebalanced
+        for (int id = 0; id < count / 2; id++) {
+            index.remove(id);
+        }
+        assertEquals(count / 2, index.size());
+        assertEquals(range(count / 2, count), visitRange(index, 0, count));
+        List<Integer> descending = visitTop(index, count);
+        assertEquals(count / 2, descending.size());
+        assertEquals(count - 1, descending.get(0));
+        assertEquals(count / 2, descending.get(descending.size() - 1));
+    }
+
+    @Test
+    void rangeIsInclusiveAndOrderedByKeyThenId() {
+        OrderedIndex index = new OrderedIndex();
+        index.put(5, 2.0);
+        index.put(3, 2.0);
+        index.put(9, 1.0);
+        index.put(1, 3.0);
+        index.put(7, 4.0);
+        assertEquals(List.of(9, 3, 5, 1), visitRange(index, 1.0, 3.0));
+        assertEquals(List.of(3, 5), visitRange(index, 1.5, 2.5));
+        assertEquals(List.of(), visitRange(index, 4.5, 9.0));
+        assertEquals(List.of(7, 1, 5, 3, 9), visitTop(index, 10));
+    }
+
+    @Test
+    void putMovesAnIdToItsNewKey() {
+        OrderedIndex index = new OrderedIndex();
+        for (int id = 0; id < 10; id++) {
+            index.put(id, id);
+        }
+        index.put(2, 100);
+        index.put(8, -1);
+        assertEquals(10, index.size());
+        assertEquals(List.of(2, 9, 7), visitTop(index, 3));
+        assertEquals(List.of(8, 0, 1, 3), visitRange(index, -5, 3));
+    }
+
+    @Test
+    void visitStopsWhenActionReturnsFalse() {
+        OrderedIndex index = new OrderedIndex();
+        for (int id = 0; id < 100; id++) {
+            index.put(id, id % 10);
+        }
+        List<Integer> seen = new ArrayList<>();
+        index.forRange(3, 5, id -> {
+            seen.add(id);
+            return seen.size() < 4;
+        });
+        assertEquals(List.of(3, 13, 23, 33), seen);
+    }
+
+    @Test
+    void randomChangesMatchSortedModel() {
+        OrderedIndex index = new OrderedIndex();
+        Map<Integer, Double> keys = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(18);
+        for (int i = 0; i < 50_000; i++) {
+            int id = random.nextInt(2_000);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                keys.remove(id);
+            }
+            else {
+                // few distinct keys, so many entries tie on key and are ordered by ID
+                double key = random.nextInt(200) / 4.0;
+                index.put(id, key);
+                keys.put(id, key);
+            }
+            if (i % 1_000 == 0) {
+                assertMatches(keys, index, random);
+            }
+        }
+        assertMatches(keys, index, random);
+    }
+
+    private static void assertMatches(Map<Integer, Double> keys, OrderedIndex index, SplittableRandom random) {
+        assertEquals(keys.size(), index.size());
+        Comparator<Integer> byKeyThenId = Comparator.<Integer>comparingDouble(keys::get).thenComparing(id -> id);
+        List<Integer> sorted = new ArrayList<>(keys.keySet());
+        sorted.sort(byKeyThenId);
+
+        double low = random.nextInt(200) / 4.0;
+        double high = low + random.nextInt(40) / 4.0;
+        List<Integer> inRange = new ArrayList<>();
+        for (int id : sorted) {
+            if (keys.get(id) >= low && keys.get(id) <= high) {
+                inRange.add(id);
+            }
+        }
+        assertEquals(inRange, visitRange(index, low, high));
+
+        int n = 1 + random.nextInt(50);
+        List<Integer> top = new ArrayList<>();
+        for (int i = sorted.size() - 1; i >= 0 && top.size() < n; i--) {
+            top.add(sorted.get(i));
+        }
+        assertEquals(top, visitTop(index, n));
+    }
+
+    private static List<Integer> visitRange(OrderedIndex index, double low, double high) {
+        List<Integer> ids = new ArrayList<>();
+        index.forRange(low, high, ids::add);
+        return ids;
+    }
+
+    private static List<Integer> visitTop(OrderedIndex index, int n) {
+        List<Integer> ids = new ArrayList<>();
+        index.forEachDescending(id -> {
+            ids.add(id);
+            return ids.size() < n;
+        });
+        return ids;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> ids = new ArrayList<>(to - from);
+        for (int id = from; id < to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,166 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that part & product searches follow additions, updates, renames and deletes
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class SearchIndexTest {
+    @Test
+    void searchFollowsAddUpdateAndDelete() throws Exception {
+        Part part = onInventoryThread(() -> {
+            Part stored = new InHouse(Inventory.getNewPartId(), "Brake Cable", 3.0, 5, 0, 10, 1);
+            Inventory.addPart(stored);
+            return stored;
+        });
+        assertEquals(List.of(part.getId()), searchParts("CABLE"));
+        assertEquals(List.of(part.getId()), searchParts(Integer.toString(part.getId())));
+
+        assertTrue(onInventoryThread(() -> Inventory.updatePart(
+                new Outsourced(part.getId(), "Shift Cable", 3.0, 5, 0, 10, "Cable Co"))));
+        assertEquals(List.of(), searchParts("brake"));
+        assertEquals(List.of(part.getId()), searchParts("shift"));
+
+        onInventoryThread(() -> Inventory.deletePart(Inventory.lookupPart(part.getId())));
+        assertEquals(List.of(), searchParts("cable"));
+        assertEquals(List.of(), searchParts("ca"));
+    }
+
+    @Test
+    void productSearchFollowsAddUpdateAndDelete() throws Exception {
+        Product product = onInventoryThread(() -> addProduct("Unicycle"));
+        assertEquals(List.of(product.getId()), searchProducts("cycle"));
+
+        assertTrue(onInventoryThread(() -> Inventory.updateProduct(new Product(product.getId(), "Tandem", 10, 0, 0, 10))));
+        assertEquals(List.of(), searchProducts("cycle"));
+        assertEquals(List.of(product.getId()), searchProducts("tandem"));
+
+        onInventoryThread(() -> Inventory.deleteProduct(Inventory.lookupProduct(product.getId())));
+        assertEquals(List.of(), searchProducts("tandem"));
+    }
+
+    @Test
+    void replacedNamesAreDroppedAcrossRebuilds() {
+        SearchIndex<Part> index = new SearchIndex<>(Part::getId, Part::getName);
+        for (int id = 1; id <= 50; id++) {
+            index.add(id, "Bolt " + id);
+        }
+        // renaming every item makes the stale postings outnumber the live ones, which rebuilds the index
+        for (int id = 1; id <= 50; id++) {
+            index.add(id, "Washer " + id);
+        }
+        for (int id = 1; id <= 50; id += 2) {
+            index.remove(id);
+        }
+        assertArrayEquals(new int[0], index.search("bolt"));
+        assertArrayEquals(new int[]{2, 20, 22, 24, 26, 28}, index.search("er 2"));
+        int[] washers = index.search("washer ");
+        assertEquals(25, washers.length);
+        assertArrayEquals(new int[]{2, 4, 6, 8}, Arrays.copyOf(washers, 4));
+
+        index.clear();
+        assertArrayEquals(new int[0], index.search("washer"));
+    }
+
+    @Test
+    void streamingSearchStopsWhenCancelled() {
+        SearchIndex<Part> index = new SearchIndex<>(Part::getId, Part::getName);
+        for (int id = 1; id <= 10_000; id++) {
+            index.add(id, "Spoke");
+        }
+        index.add(10_001, "Rim");
+        List<Integer> all = new ArrayList<>();
+        index.search("spoke", () -> false, all::add);
+        assertEquals(10_000, all.size());
+        assertEquals(1, all.get(0));
+        assertEquals(10_000, all.get(all.size() - 1));
+
+        List<Integer> some = new ArrayList<>();
+        index.search("spoke", () -> !some.isEmpty(), some::add);
+        assertTrue(some.size() < all.size(), "stopped after the first chunk");
+        assertEquals(all.subList(0, some.size()), some);
+    }
+
+    @Test
+    void renamedPartIsFoundByItsNewName() throws Exception {
+        Part part = onInventoryThread(() -> {
+            Part stored = new InHouse(Inventory.getNewPartId(), "Sprocket", 1.0, 5, 0, 10, 1);
+            Inventory.addPart(stored);
+            return stored;
+        });
+        onInventoryThread(() -> {
+            part.setName("Derailleur");
+            return null;
+        });
+        assertEquals(List.of(), searchParts("sprocket"));
+        assertEquals(List.of(part.getId()), searchParts("derail"));
+
+        // other setters leave the name indexed
+        onInventoryThread(() -> {
+            part.setStock(7);
+            return null;
+        });
+        assertEquals(List.of(part.getId()), searchParts("derail"));
+    }
+
+    @Test
+    void renamedProductIsFoundByItsNewName() throws Exception {
+        Product product = onInventoryThread(() -> addProduct("Scooter"));
+        onInventoryThread(() -> {
+            product.setName("Skateboard");
+            return null;
+        });
+        assertEquals(List.of(), searchProducts("scooter"));
+        assertEquals(List.of(product.getId()), searchProducts("skate"));
+    }
+
+    @Test
+    void renamedRowViewIsFoundByItsNewName() throws Exception {
+        PartColumns columns = new PartColumns();
+        int id = Inventory.getNewPartId();
+        columns.addInHouse(id, "Crankset", 20.0, 3, 0, 10, 4);
+        columns.addOutsourced(id + 1, "Chainring", 8.0, 3, 0, 10, "Ring Co");
+        onInventoryThread(() -> {
+            Inventory.loadParts(columns);
+            Inventory.lookupPart(id).setName("Pedal");
+            return null;
+        });
+        assertEquals(List.of(), searchParts("crank"));
+        assertEquals(List.of(id), searchParts("pedal"));
+        assertEquals(List.of(id + 1), searchParts("chain"));
+    }
+
+    private static List<Integer> searchParts(String searchString) throws Exception {
+        return onInventoryThread(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (Part part : Inventory.searchParts(searchString)) {
+                ids.add(part.getId());
+            }
+            return ids;
+        });
+    }
+
+    private static List<Integer> searchProducts(String searchString) throws Exception {
+        return onInventoryThread(() -> {
+            List<Integer> ids = new ArrayList<>();
+            for (Product product : Inventory.searchProducts(searchString)) {
+                ids.add(product.getId());
+            }
+            return ids;
+        });
+    }
+}
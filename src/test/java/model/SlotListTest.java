@@ -0,0 +1,229 @@
+package model;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests SlotList deletes, which leave tombstones until enough pile up to compact the slots
+ *
+ * @author Ella Upchurch
+ */
+class SlotListTest {
+    @Test
+    void deletesKeepListOrderAcrossCompaction() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        List<Item> expected = new ArrayList<>();
+        for (int id = 0; id < 200; id++) {
+            Item item = new Item(id);
+            list.put(item);
+            expected.add(item);
+        }
+        // every other item from the front: tombstones pile up until the slots are compacted
+        for (int id = 0; id < 200; id += 2) {
+            assertSame(expected.remove(indexOfId(expected, id)), list.removeById(id));
+            assertListEquals(expected, list);
+        }
+        assertNull(list.removeById(0));
+        for (Item item : expected) {
+            assertSame(item, list.getById(item.id));
+            assertEquals(expected.indexOf(item), list.indexOf(item));
+        }
+    }
+
+    @Test
+    void putReplacesInPlaceAndAppendsNewIds() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        for (int id = 0; id < 40; id++) {
+            list.put(new Item(id));
+        }
+        for (int id = 0; id < 20; id++) {
+            list.removeById(id * 2);
+        }
+        Item replacement = new Item(21);
+        Item old = list.put(replacement);
+        assertEquals(21, old.id);
+        assertSame(replacement, list.get(10));
+
+        Item added = new Item(4);
+        assertNull(list.put(added));
+        assertSame(added, list.get(list.size() - 1));
+        assertEquals(21, list.size());
+    }
+
+    @Test
+    void deleteMatchesByIdentity() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        Item stored = new Item(1);
+        list.put(stored);
+        assertFalse(list.delete(new Item(1)));
+        assertTrue(list.delete(stored));
+        assertTrue(list.isEmpty());
+        assertFalse(list.delete(stored));
+    }
+
+    @Test
+    void removeReportsListPosition() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        for (int id = 0; id < 10; id++) {
+            list.put(new Item(id));
+        }
+        list.removeById(3);
+        List<Integer> removedAt = new ArrayList<>();
+        list.addListener((ListChangeListener<Item>) change -> {
+            while (change.next()) {
+                if (change.wasRemoved()) {
+                    removedAt.add(change.getFrom());
+                }
+            }
+        });
+        // slot 7 sits after the tombstone of 3, so it is position 6
+        list.removeById(7);
+        list.removeById(9);
+        assertEquals(List.of(6, 7), removedAt);
+    }
+
+    @Test
+    void randomChangesMatchArrayList() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        List<Item> expected = new ArrayList<>();
+        SplittableRandom random = new SplittableRandom(482);
+        for (int i = 0; i < 20_000; i++) {
+            int id = random.nextInt(300);
+            int index = indexOfId(expected, id);
+            if (random.nextInt(3) == 0) {
+                Item removed = list.removeById(id);
+                if (index < 0) {
+                    assertNull(removed);
+                }
+                else {
+                    assertSame(expected.remove(index), removed);
+                }
+            }
+            else {
+                Item item = new Item(id);
+                list.put(item);
+                if (index < 0) {
+                    expected.add(item);
+                }
+                else {
+                    expected.set(index, item);
+                }
+            }
+            if (i % 500 == 0) {
+                assertListEquals(expected, list);
+            }
+        }
+        assertListEquals(expected, list);
+    }
+
+    @Test
+    void compactionKeepsUnreadRows() {
+        Rows rows = new Rows(100);
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        list.loadRows(rows);
+        assertEquals(100, list.size());
+        for (int id = 0; id < 100; id += 3) {
+            assertEquals(id, list.removeById(id).id);
+        }
+        assertEquals(66, list.size());
+
+        for (int i = 0; i < list.size(); i++) {
+            int id = list.peekAt(i).id;
+            assertTrue(id % 3 != 0);
+            assertEquals(i, list.indexOf(list.getById(id)));
+        }
+        assertSame(list.getById(50), list.getById(50));
+        assertNull(list.getById(51));
+    }
+
+    @Test
+    void iteratingRowsKeepsNoCopies() {
+        Rows rows = new Rows(50);
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        list.loadRows(rows);
+        int count = 0;
+        for (Item item : list) {
+            assertEquals(count++, item.id);
+        }
+        assertEquals(50, count);
+        assertEquals(50, rows.built);
+        // the loop passed temporary copies, so the first read builds each row again
+        list.get(0);
+        assertEquals(51, rows.built);
+        list.get(0);
+        assertEquals(51, rows.built);
+    }
+
+    @Test
+    void rowsLoadIntoListEmptiedByDeletes() {
+        SlotList<Item> list = new SlotList<>(Item.class, item -> item.id);
+        for (int id = 100; id < 110; id++) {
+            list.put(new Item(id));
+        }
+        for (int id = 100; id < 110; id++) {
+            list.removeById(id);
+        }
+        list.loadRows(new Rows(5));
+        assertEquals(5, list.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, list.get(i).id);
+        }
+        assertNull(list.getById(100));
+    }
+
+    private static void assertListEquals(List<Item> expected, SlotList<Item> list) {
+        assertEquals(expected.size(), list.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), list.get(i), "item at " + i);
+        }
+    }
+
+    private static int indexOfId(List<Item> items, int id) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).id == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Item compared by identity, like parts */
+    private static final class Item {
+        final int id;
+
+        Item(int id) {this.id = id;}
+    }
+
+    /** Rows with IDs 0 up, counting the items built from them */
+    private static final class Rows implements RowSource<Item> {
+        private final int rowCount;
+        int built;
+
+        Rows(int rowCount) {this.rowCount = rowCount;}
+
+        @Override
+        public int rowCount() {return rowCount;}
+
+        @Override
+        public int idAt(int row) {return row;}
+
+        @Override
+        public String nameAt(int row) {return "Item " + row;}
+
+        @Override
+        public Item materialize(int row) {
+            built++;
+            return new Item(row);
+        }
+    }
+}
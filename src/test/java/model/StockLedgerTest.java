@@ -0,0 +1,143 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests StockLedger reservations made by many build stations at once
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class StockLedgerTest {
+    private static final int STATIONS = 8;
+
+    @Test
+    void contendedReservationsNeverOversell() throws Exception {
+        Part frame = onInventoryThread(() -> addPart(100));
+        Part wheel = onInventoryThread(() -> addPart(50));
+        Product trike = onInventoryThread(() -> {
+            Product product = addProduct("Trike");
+            product.setAssociatedPartQuantity(frame, 3);
+            product.setAssociatedPartQuantity(wheel, 2);
+            return product;
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService stations = Executors.newFixedThreadPool(STATIONS);
+        List<Future<List<StockLedger.Reservation>>> held = new ArrayList<>();
+        for (int i = 0; i < STATIONS; i++) {
+            held.add(stations.submit(() -> {
+                start.await();
+                List<StockLedger.Reservation> reservations = new ArrayList<>();
+                // keep going past the first refusal, as units come back from other stations' releases
+                for (int attempt = 0; attempt < 2_000; attempt++) {
+                    StockLedger.Reservation reservation = StockLedger.reserve(trike, 1);
+                    if (reservation == null) {
+                        continue;
+                    }
+                    assertTrue(StockLedger.getAvailable(frame.getId()) >= 0);
+                    assertTrue(StockLedger.getAvailable(wheel.getId()) >= 0);
+                    if (attempt % 3 == 0) {
+                        assertTrue(StockLedger.release(reservation));
+                    }
+                    else {
+                        reservations.add(reservation);
+                    }
+                }
+                return reservations;
+            }));
+        }
+        start.countDown();
+        List<StockLedger.Reservation> reservations = new ArrayList<>();
+        for (Future<List<StockLedger.Reservation>> future : held) {
+            reservations.addAll(future.get());
+        }
+        stations.shutdown();
+
+        // 50 wheels at 2 a trike hold 25 trikes at most
+        int units = reservations.size();
+        assertTrue(units <= 25, units + " trikes reserved");
+        assertEquals(3 * units, StockLedger.getReserved(frame.getId()));
+        assertEquals(2 * units, StockLedger.getReserved(wheel.getId()));
+        assertEquals(50 - 2 * units, StockLedger.getAvailable(wheel.getId()));
+
+        for (StockLedger.Reservation reservation : reservations) {
+            assertTrue(StockLedger.consume(reservation));
+            assertFalse(StockLedger.consume(reservation));
+            assertFalse(StockLedger.release(reservation));
+        }
+        assertEquals(0, StockLedger.getReserved(frame.getId()));
+        assertEquals(100 - 3 * units, StockLedger.getOnHand(frame.getId()));
+
+        // consumed units reach the inventory's parts on its own thread
+        InventoryFixture.flush();
+        assertEquals(100 - 3 * units, onInventoryThread(() -> Inventory.lookupPart(frame.getId()).getStock()));
+        assertEquals(50 - 2 * units, onInventoryThread(() -> Inventory.lookupPart(wheel.getId()).getStock()));
+    }
+
+    @Test
+    void reservationIsAllOrNothing() throws Exception {
+        Part plenty = onInventoryThread(() -> addPart(10));
+        Part scarce = onInventoryThread(() -> addPart(1));
+        Product product = onInventoryThread(() -> {
+            Product stored = addProduct("Cart");
+            stored.setAssociatedPartQuantity(plenty, 1);
+            stored.setAssociatedPartQuantity(scarce, 1);
+            return stored;
+        });
+
+        StockLedger.Reservation first = StockLedger.reserve(product, 1);
+        assertNotNull(first);
+        assertNull(StockLedger.reserve(product, 1));
+        assertEquals(1, StockLedger.getReserved(plenty.getId()), "refused reservation rolled back");
+
+        assertTrue(StockLedger.release(first));
+        assertEquals(10, StockLedger.getAvailable(plenty.getId()));
+        assertEquals(1, StockLedger.getAvailable(scarce.getId()));
+    }
+
+    @Test
+    void quantitiesFollowProductChanges() throws Exception {
+        Part part = onInventoryThread(() -> addPart(20));
+        Product product = onInventoryThread(() -> {
+            Product stored = addProduct("Kit");
+            stored.setAssociatedPartQuantity(part, 2);
+            return stored;
+        });
+        Product unstored = new Product(Inventory.getNewProductId(), "Loose", 1, 0, 0, 1);
+        unstored.setAssociatedPartQuantity(part, 1);
+        assertNull(StockLedger.reserve(unstored, 1));
+
+        StockLedger.Reservation before = StockLedger.reserve(product, 3);
+        assertEquals(6, before.getQuantity(part.getId()));
+        onInventoryThread(() -> {
+            product.setAssociatedPartQuantity(part, 5);
+            return null;
+        });
+        StockLedger.Reservation after = StockLedger.reserve(product, 2);
+        assertEquals(10, after.getQuantity(part.getId()));
+        assertEquals(6, before.getQuantity(part.getId()), "held reservations keep their quantities");
+        StockLedger.release(before);
+        StockLedger.release(after);
+
+        onInventoryThread(() -> Inventory.deleteProduct(product));
+        assertNull(StockLedger.reserve(product, 1));
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * This class tests that parts share recurring names without any name being kept forever
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class StringInternerTest {
+    @Test
+    void recurringStringsShareOneInstance() {
+        StringInterner interner = new StringInterner(4);
+        String first = new String("Acme");
+        assertSame(first, interner.intern(first));
+        assertSame(first, interner.intern(new String("Acme")));
+        assertNull(interner.intern(null));
+
+        // a table of four slots holds at most four strings, so older ones are replaced
+        for (int i = 0; i < 64; i++) {
+            interner.intern("Typo " + i);
+        }
+        String later = new String("Acme");
+        assertSame(later, interner.intern(later));
+    }
+
+    @Test
+    void partsShareNamesThroughTheInterners() {
+        Outsourced first = new Outsourced(1, new String("Seat"), 1, 1, 0, 1, new String("Seat Co"));
+        Outsourced second = new Outsourced(2, new String("Seat"), 1, 1, 0, 1, new String("Seat Co"));
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getCompanyName(), second.getCompanyName());
+        second.setName(new String("Saddle"));
+        second.setCompanyName(new String("Saddle Co"));
+        assertNotSame(first.getName(), second.getName());
+        assertEquals("Saddle Co", second.getCompanyName());
+    }
+
+    @Test
+    void companyGroupsFollowRenamesPastTheirRebuild() throws Exception {
+        onInventoryThread(() -> {
+            Outsourced part = new Outsourced(Inventory.getNewPartId(), "Bell", 1, 1, 0, 10, "Ding Co");
+            Inventory.addPart(part);
+            Outsourced other = new Outsourced(Inventory.getNewPartId(), "Horn", 1, 1, 0, 10, "Ding Co");
+            Inventory.addPart(other);
+            assertEquals(List.of(part.getId(), other.getId()), idsOf(Inventory.lookupPartsByCompany("Ding Co")));
+
+            // every rename leaves a code no part uses, until the groups are rebuilt without them
+            for (int i = 0; i < 500; i++) {
+                part.setCompanyName("Ding Co " + i);
+            }
+            assertEquals(List.of(part.getId()), idsOf(Inventory.lookupPartsByCompany("Ding Co 499")));
+            assertEquals(List.of(other.getId()), idsOf(Inventory.lookupPartsByCompany("Ding Co")));
+            assertEquals(List.of(), idsOf(Inventory.lookupPartsByCompany("Ding Co 498")));
+            assertEquals(List.of(), idsOf(Inventory.lookupPartsByCompany("Nobody")));
+            return null;
+        });
+    }
+
+    private static List<Integer> idsOf(List<Part> parts) {
+        List<Integer> ids = new ArrayList<>();
+        for (Part part : parts) {
+            ids.add(part.getId());
+        }
+        ids.sort(null);
+        return ids;
+    }
+}
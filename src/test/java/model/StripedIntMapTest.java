@@ -0,0 +1,127 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests StripedIntMap changes made by many threads at once
+ *
+ * @author Ella Upchurch
+ */
+class StripedIntMapTest {
+    private static final int THREADS = 8;
+
+    @Test
+    void singleKeyOperations() {
+        StripedIntMap<String> map = new StripedIntMap<>(3);
+        assertNull(map.put(7, "a"));
+        assertEquals("a", map.put(7, "b"));
+        assertEquals("b", map.putIfAbsent(7, "c"));
+        assertEquals("d", map.putIfAbsent(-7, "d"));
+        assertFalse(map.remove(7, new String("b")), "values are compared by identity");
+        assertTrue(map.remove(-7, "d"));
+        assertEquals("b!", map.compute(7, value -> value + "!"));
+        assertNull(map.compute(7, value -> null));
+        assertNull(map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void concurrentComputesLoseNoUpdates() throws Exception {
+        StripedIntMap<Integer> map = new StripedIntMap<>(16);
+        int keys = 100;
+        int rounds = 2_000;
+        runOnThreads(thread -> {
+            for (int i = 0; i < rounds; i++) {
+                map.compute(i % keys, count -> count == null ? 1 : count + 1);
+            }
+        });
+        assertEquals(keys, map.size());
+        for (int key = 0; key < keys; key++) {
+            assertEquals(THREADS * rounds / keys, map.get(key));
+        }
+
+        map.put(keys, 1);
+        map.removeIf(count -> count > 1);
+        assertEquals(1, map.size());
+        map.clear();
+        assertNull(map.get(keys));
+    }
+
+    @Test
+    void disjointKeysFromManyThreadsAreAllKept() throws Exception {
+        StripedIntMap<Integer> map = new StripedIntMap<>(64);
+        int perThread = 5_000;
+        runOnThreads(thread -> {
+            for (int i = 0; i < perThread; i++) {
+                int key = thread * perThread + i;
+                map.put(key, key);
+                if (i % 5 == 0) {
+                    assertSame(map.get(key), map.remove(key));
+                }
+            }
+        });
+        assertEquals(THREADS * perThread * 4 / 5, map.size());
+        for (int key = 0; key < THREADS * perThread; key++) {
+            assertEquals(key % 5 == 0 ? null : Integer.valueOf(key), map.get(key));
+        }
+    }
+
+    @Test
+    void lockedKeysHoldOffOtherWriters() throws Exception {
+        StripedIntMap<String> map = new StripedIntMap<>(4);
+        int[] locked = map.lockKeys(new int[]{1, 2, 1});
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> write = other.submit(() -> map.put(1, "other"));
+            // the caller can still use the map while holding the stripes
+            map.put(1, "mine");
+            map.put(2, "mine");
+            Thread.sleep(50);
+            assertFalse(write.isDone());
+            map.unlockKeys(locked);
+            assertEquals("mine", write.get(5, TimeUnit.SECONDS));
+            assertEquals("other", map.get(1));
+        }
+        finally {
+            other.shutdownNow();
+        }
+    }
+
+    /** Runs a task on every thread at once, passing each its number, and waits for all of them */
+    private static void runOnThreads(ThreadTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> finished = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            int thread = i;
+            finished.add(threads.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : finished) {
+            future.get();
+        }
+        threads.shutdown();
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,142 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that the where-used indexes follow association, component & product changes
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class WhereUsedIndexTest {
+    @Test
+    void associationsOfStoredProductsAreIndexed() throws Exception {
+        onInventoryThread(() -> {
+            Part bolt = addPart(10);
+            Part nut = addPart(10);
+            Product frame = addProduct("Frame");
+            Product fork = addProduct("Fork");
+            frame.addAssociatedPart(bolt, 4);
+            fork.addAssociatedPart(bolt);
+            fork.addAssociatedPart(nut);
+            assertEquals(List.of(frame.getId(), fork.getId()), usersOf(bolt));
+            assertEquals(List.of(fork.getId()), usersOf(nut));
+
+            // removing units keeps the product listed until none are left
+            frame.deleteAssociatedPart(bolt);
+            assertEquals(List.of(frame.getId(), fork.getId()), usersOf(bolt));
+            frame.setAssociatedPartQuantity(bolt, 0);
+            assertEquals(List.of(fork.getId()), usersOf(bolt));
+            fork.deleteAssociatedPart(nut);
+            assertFalse(Inventory.isPartUsed(nut.getId()));
+            assertEquals(List.of(), usersOf(nut));
+            return null;
+        });
+    }
+
+    @Test
+    void productsAreIndexedWhenStoredAndDroppedWhenReplacedOrDeleted() throws Exception {
+        onInventoryThread(() -> {
+            Part spoke = addPart(10);
+            Part rim = addPart(10);
+            // associations made before the product is stored are indexed when it is added
+            Product wheel = new Product(Inventory.getNewProductId(), "Wheel", 30, 0, 0, 10);
+            wheel.addAssociatedPart(spoke, 32);
+            assertFalse(Inventory.isPartUsed(spoke.getId()));
+            Inventory.addProduct(wheel);
+            assertEquals(List.of(wheel.getId()), usersOf(spoke));
+
+            Product rebuilt = new Product(wheel.getId(), "Wheel", 30, 0, 0, 10);
+            rebuilt.addAssociatedPart(rim);
+            assertTrue(Inventory.updateProduct(rebuilt));
+            assertFalse(Inventory.isPartUsed(spoke.getId()));
+            assertEquals(List.of(wheel.getId()), usersOf(rim));
+
+            // the replaced product no longer changes the index
+            wheel.addAssociatedPart(spoke);
+            assertFalse(Inventory.isPartUsed(spoke.getId()));
+
+            assertTrue(Inventory.deleteProduct(rebuilt));
+            assertFalse(Inventory.isPartUsed(rim.getId()));
+            return null;
+        });
+    }
+
+    @Test
+    void productsBuiltFromAPartAreVisitedOncePerLevel() throws Exception {
+        onInventoryThread(() -> {
+            Part tube = addPart(10);
+            Product frame = addProduct("Frame");
+            Product handlebar = addProduct("Handlebar");
+            Product bike = addProduct("Bike");
+            Product tandem = addProduct("Tandem");
+            frame.addAssociatedPart(tube, 3);
+            handlebar.addAssociatedPart(tube);
+            bike.addComponent(frame, 1);
+            bike.addComponent(handlebar, 1);
+            tandem.addComponent(bike, 2);
+            tandem.addComponent(frame, 1);
+            assertEquals(List.of(bike.getId()), idsOf(Inventory.lookupAssembliesUsingProduct(handlebar.getId())));
+
+            List<Integer> built = new ArrayList<>();
+            Inventory.forEachProductBuiltFromPart(tube.getId(), built::add);
+            assertEquals(List.of(frame.getId(), handlebar.getId(), bike.getId(), tandem.getId()), sorted(built));
+
+            bike.removeComponent(handlebar);
+            built.clear();
+            Inventory.forEachProductBuiltFromPart(tube.getId(), built::add);
+            assertEquals(List.of(frame.getId(), handlebar.getId(), bike.getId(), tandem.getId()), sorted(built));
+            built.clear();
+            Inventory.forEachProductBuiltFrom(handlebar.getId(), built::add);
+            assertEquals(List.of(handlebar.getId()), built);
+            return null;
+        });
+    }
+
+    @Test
+    void visitingAComponentCycleEnds() throws Exception {
+        onInventoryThread(() -> {
+            Part axle = addPart(10);
+            Product hub = addProduct("Hub");
+            hub.addAssociatedPart(axle);
+            // a product stored later can close a cycle, which the index still has to walk
+            Product wheel = new Product(Inventory.getNewProductId(), "Wheel", 10, 0, 0, 10);
+            wheel.addComponent(hub, 1);
+            hub.addComponent(wheel, 1);
+            Inventory.addProduct(wheel);
+
+            List<Integer> built = new ArrayList<>();
+            Inventory.forEachProductBuiltFromPart(axle.getId(), built::add);
+            assertEquals(List.of(hub.getId(), wheel.getId()), built);
+            return null;
+        });
+    }
+
+    private static List<Integer> usersOf(Part part) {
+        return sorted(idsOf(Inventory.lookupProductsUsingPart(part.getId())));
+    }
+
+    private static List<Integer> idsOf(List<Product> products) {
+        List<Integer> ids = new ArrayList<>();
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    private static List<Integer> sorted(List<Integer> ids) {
+        ids.sort(null);
+        return ids;
+    }
+}
@@ -0,0 +1,200 @@
+package persistence;
+
+import model.InHouse;
+import model.Inventory;
+import model.InventoryFixture;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class tests that the inventory replayed from a journal matches the inventory that wrote it
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class InventoryJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRestoresEveryKindOfChange() throws Exception {
+        Path file = directory.resolve("inventory-0.journal");
+        List<String> saved = onInventoryThread(() -> {
+            try (InventoryJournal journal = InventoryJournal.open(file)) {
+                Part frame = addPart(10);
+                Part seat = new Outsourced(Inventory.getNewPartId(), "Seat", 15.0, 4, 1, 20, "Seat Co");
+                Inventory.addPart(seat);
+                Product wheel = addProduct("Wheel");
+                Product bike = addProduct("Bike");
+                bike.setAssociatedPartQuantity(frame, 2);
+                bike.addAssociatedPart(seat);
+                bike.addComponent(wheel, 2);
+                frame.setStock(7);
+                bike.setPrice(120);
+                Inventory.updatePart(new InHouse(frame.getId(), "Frame", 40.0, 7, 1, 20, 3));
+            }
+            return describeInventory();
+        });
+
+        assertEquals(saved, reload(file));
+    }
+
+    @Test
+    void replayFollowsTheOrderChangesWereMade() throws Exception {
+        Path file = directory.resolve("inventory-0.journal");
+        int[] ids = onInventoryThread(() -> {
+            try (InventoryJournal journal = InventoryJournal.open(file)) {
+                Part part = addPart(1);
+                Product product = addProduct("Crate");
+                product.setAssociatedPartQuantity(part, 3);
+                // deleted, then stored again under the same ID with other values
+                Inventory.deletePart(part);
+                Inventory.addPart(new InHouse(part.getId(), "Again", 2.0, 5, 0, 10, 1));
+                product.setAssociatedPartQuantity(part, 4);
+                product.setAssociatedPartQuantity(part, 1);
+                Inventory.deleteProduct(product);
+                Inventory.addProduct(new Product(product.getId(), "Crate", 10, 0, 0, 10));
+                return new int[]{part.getId(), product.getId()};
+            }
+        });
+
+        reload(file);
+        onInventoryThread(() -> {
+            assertEquals("Again", Inventory.lookupPart(ids[0]).getName());
+            assertEquals(5, Inventory.lookupPart(ids[0]).getStock());
+            assertEquals(0, Inventory.lookupProduct(ids[1]).getAssociatedPartQuantity(ids[0]));
+            return null;
+        });
+    }
+
+    @Test
+    void tornOrCorruptTailIsCutOff() throws Exception {
+        Path file = directory.resolve("inventory-0.journal");
+        long[] lengths = new long[2];
+        int partId = onInventoryThread(() -> {
+            Part part;
+            try (InventoryJournal journal = InventoryJournal.open(file)) {
+                part = addPart(1);
+            }
+            lengths[0] = Files.size(file);
+            try (InventoryJournal journal = InventoryJournal.open(file)) {
+                // opening replayed the part over the one added above
+                Inventory.lookupPart(part.getId()).setStock(2);
+            }
+            lengths[1] = Files.size(file);
+            return part.getId();
+        });
+
+        // a crash in the middle of the second record leaves it torn
+        truncate(file, lengths[1] - 3);
+        assertEquals(1, reloadStock(file, partId));
+        assertEquals(lengths[0], Files.size(file), "reopening drops the torn record");
+
+        // a full-length record whose bytes don't match its CRC is dropped as well
+        onInventoryThread(() -> {
+            try (InventoryJournal journal = InventoryJournal.open(file)) {
+                Inventory.lookupPart(partId).setStock(3);
+            }
+            return null;
+        });
+        flipLastByte(file);
+        assertEquals(1, reloadStock(file, partId));
+        assertEquals(lengths[0], Files.size(file));
+
+        // a frame header cut short ends the replay too
+        Files.write(file, new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+        assertEquals(lengths[0], (long) onInventoryThread(() -> InventoryJournal.replay(file)));
+    }
+
+    @Test
+    void burstOfChangesIsSyncedInGroups() throws Exception {
+        Path file = directory.resolve("inventory-0.journal");
+        int changes = 20_000;
+        long syncs = onInventoryThread(() -> {
+            InventoryJournal journal = InventoryJournal.open(file);
+            try {
+                Part part = addPart(0);
+                for (int i = 1; i <= changes; i++) {
+                    part.setStock(i);
+                }
+            }
+            finally {
+                journal.close();
+            }
+            assertEquals(Files.size(file), journal.getBytesSinceCheckpoint());
+            return journal.getSyncCount();
+        });
+        // the writer syncs whatever was queued meanwhile in one go
+        assertTrue(syncs < changes / 4, syncs + " syncs for " + changes + " changes");
+
+        int partId = onInventoryThread(() -> Inventory.getAllParts().get(0).getId());
+        assertEquals(changes, reloadStock(file, partId));
+    }
+
+    /** Empties the inventory, replays a journal into it and describes the result */
+    private static List<String> reload(Path file) throws Exception {
+        return onInventoryThread(() -> {
+            InventoryFixture.emptyInventory();
+            InventoryJournal.open(file).close();
+            return describeInventory();
+        });
+    }
+
+    private static int reloadStock(Path file, int partId) throws Exception {
+        reload(file);
+        return onInventoryThread(() -> Inventory.lookupPart(partId).getStock());
+    }
+
+    /** Lists every field of every part & product, so two inventories can be compared */
+    static List<String> describeInventory() {
+        List<String> lines = new ArrayList<>();
+        for (Part part : Inventory.getAllParts()) {
+            String extra = part instanceof Outsourced ? ((Outsourced) part).getCompanyName()
+                    : String.valueOf(((InHouse) part).getMachineId());
+            lines.add(part.getClass().getSimpleName() + " " + part.getId() + " " + part.getName() + " "
+                    + part.getPrice() + " " + part.getStock() + " " + part.getMin() + " " + part.getMax() + " " + extra);
+        }
+        for (Product product : Inventory.getAllProducts()) {
+            StringBuilder line = new StringBuilder("Product " + product.getId() + " " + product.getName() + " "
+                    + product.getPrice() + " " + product.getStock() + " " + product.getMin() + " " + product.getMax());
+            List<String> entries = new ArrayList<>();
+            product.forEachAssociatedPart((partId, quantity) -> entries.add(" part " + partId + "x" + quantity));
+            product.forEachComponent((componentId, quantity) -> entries.add(" component " + componentId + "x" + quantity));
+            entries.sort(null);
+            entries.forEach(line::append);
+            lines.add(line.toString());
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static void flipLastByte(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(file, bytes);
+    }
+}
@@ -0,0 +1,111 @@
+package persistence;
+
+import model.InHouse;
+import model.Inventory;
+import model.InventoryFixture;
+import model.Outsourced;
+import model.Part;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static persistence.InventoryJournalTest.describeInventory;
+
+/**
+ * This class tests that an inventory loaded from a snapshot matches the inventory captured
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class InventorySnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadedSnapshotMatchesCapturedInventory() throws Exception {
+        Path file = directory.resolve("inventory-1.snapshot");
+        List<String> captured = onInventoryThread(() -> {
+            Part frame = addPart(10);
+            Part seat = new Outsourced(Inventory.getNewPartId(), "Seat", 15.0, 4, 1, 20, "Seat Co");
+            Inventory.addPart(seat);
+            Inventory.addPart(new Outsourced(Inventory.getNewPartId(), "Saddle", 25.0, 2, 1, 20, "Seat Co"));
+            Inventory.addPart(new InHouse(Inventory.getNewPartId(), "Ünïcode bell", 3.5, 0, 0, 5, 9));
+            Product wheel = addProduct("Wheel");
+            Product bike = addProduct("Bike");
+            bike.setAssociatedPartQuantity(frame, 2);
+            bike.addAssociatedPart(seat);
+            bike.addComponent(wheel, 2);
+            InventorySnapshot.capture().write(file);
+            return describeInventory();
+        });
+
+        assertEquals(captured, reload(file));
+
+        // parts served from the mapped rows can be changed and captured again
+        Path next = directory.resolve("inventory-2.snapshot");
+        List<String> changed = onInventoryThread(() -> {
+            Part part = Inventory.getAllParts().get(0);
+            part.setName("Renamed");
+            part.setStock(99);
+            InventorySnapshot.capture().write(next);
+            return describeInventory();
+        });
+        assertEquals(changed, reload(next));
+    }
+
+    @Test
+    void emptyInventoryRoundTrips() throws Exception {
+        Path file = directory.resolve("inventory-1.snapshot");
+        onInventoryThread(() -> {
+            InventorySnapshot.capture().write(file);
+            return null;
+        });
+        assertEquals(List.of(), reload(file));
+    }
+
+    @Test
+    void otherFilesAreRejected() throws Exception {
+        Path file = directory.resolve("inventory-1.snapshot");
+        onInventoryThread(() -> {
+            addPart(1);
+            InventorySnapshot.capture().write(file);
+            return null;
+        });
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(4, 99);
+        Path otherVersion = directory.resolve("other-version.snapshot");
+        Files.write(otherVersion, bytes);
+        Path tooShort = directory.resolve("short.snapshot");
+        Files.write(tooShort, new byte[]{0x49, 0x4E, 0x56, 0x53});
+
+        assertThrows(IOException.class, () -> onInventoryThread(() -> {
+            InventorySnapshot.load(otherVersion);
+            return null;
+        }));
+        assertThrows(IOException.class, () -> onInventoryThread(() -> {
+            InventorySnapshot.load(tooShort);
+            return null;
+        }));
+    }
+
+    /** Empties the inventory, loads a snapshot into it and describes the result */
+    private static List<String> reload(Path file) throws Exception {
+        return onInventoryThread(() -> {
+            InventoryFixture.emptyInventory();
+            InventorySnapshot.load(file);
+            return describeInventory();
+        });
+    }
+}
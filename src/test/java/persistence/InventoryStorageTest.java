@@ -0,0 +1,101 @@
+package persistence;
+
+import model.Inventory;
+import model.InventoryFixture;
+import model.Part;
+import model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static model.InventoryFixture.addPart;
+import static model.InventoryFixture.addProduct;
+import static model.InventoryFixture.onInventoryThread;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static persistence.InventoryJournalTest.describeInventory;
+
+/**
+ * This class tests that the inventory reopened from a snapshot & journal matches the inventory saved,
+ * across checkpoints
+ *
+ * @author Ella Upchurch
+ */
+@ExtendWith(InventoryFixture.class)
+class InventoryStorageTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void checkpointThenReopenKeepsEveryChange() throws Exception {
+        List<String> saved = onInventoryThread(() -> {
+            try (InventoryStorage storage = InventoryStorage.open(directory)) {
+                assertTrue(storage.isNew());
+                Part frame = addPart(10);
+                Product bike = addProduct("Bike");
+                bike.setAssociatedPartQuantity(frame, 2);
+                storage.checkpoint();
+                // changes after the checkpoint go to the next generation's journal
+                frame.setStock(8);
+                Product trike = addProduct("Trike");
+                trike.addComponent(bike, 1);
+                Inventory.deleteProduct(bike);
+                waitForCheckpoints(storage);
+            }
+            return describeInventory();
+        });
+        assertEquals(List.of("inventory-1.journal", "inventory-1.snapshot"), files());
+
+        List<String> reopened = onInventoryThread(() -> {
+            InventoryFixture.emptyInventory();
+            try (InventoryStorage storage = InventoryStorage.open(directory)) {
+                assertFalse(storage.isNew());
+                return describeInventory();
+            }
+        });
+        assertEquals(saved, reopened);
+    }
+
+    @Test
+    void checkpointsNumberGenerationsInOrder() throws Exception {
+        List<String> saved = onInventoryThread(() -> {
+            try (InventoryStorage storage = InventoryStorage.open(directory)) {
+                Part part = addPart(1);
+                for (int stock = 2; stock <= 4; stock++) {
+                    storage.checkpoint();
+                    part.setStock(stock);
+                }
+                waitForCheckpoints(storage);
+            }
+            return describeInventory();
+        });
+        assertEquals(List.of("inventory-3.journal", "inventory-3.snapshot"), files());
+
+        List<String> reopened = onInventoryThread(() -> {
+            InventoryFixture.emptyInventory();
+            try (InventoryStorage storage = InventoryStorage.open(directory)) {
+                return describeInventory();
+            }
+        });
+        assertEquals(saved, reopened);
+    }
+
+    private static void waitForCheckpoints(InventoryStorage storage) throws InterruptedException {
+        while (storage.getJournal().getPendingCheckpoints() > 0) {
+            Thread.sleep(5);
+        }
+    }
+
+    private List<String> files() throws Exception {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}